@@ -2,6 +2,7 @@ plugins {
     id("java")
     kotlin("jvm") version "1.8.0"
     `maven-publish`
+    id("me.champeau.jmh") version "0.7.1"
 }
 
 group = "revxrsal"
@@ -13,12 +14,157 @@ repositories {
 
 dependencies {
     compileOnly("org.jetbrains:annotations:24.0.1")
+
+    jmh("org.jetbrains:annotations:24.0.1")
+    jmh(kotlin("reflect"))
+    jmh("org.openjdk.jol:jol-core:0.17")
 }
 
 kotlin {
     jvmToolchain(8)
 }
 
+// Benchmarks, with the Kotlin fixtures compiled from src/jmh/kotlin.
+// Run with ./gradlew jmh, or ./gradlew jmh -Pjmh.includes=<regex> for a subset
+jmh {
+    jmhVersion.set("1.36")
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    (findProperty("jmh.includes") as String?)?.let { includes.add(it) }
+}
+
+// Generates a corpus of Kotlin functions for the cold-start benchmarks, spread
+// over classes, objects, companion objects and top-level files
+val generateBenchmarkCorpus by tasks.registering {
+    val classes = (findProperty("corpus.classes") as String?)?.toInt() ?: 100
+    val functions = (findProperty("corpus.functions") as String?)?.toInt() ?: 30
+    val output = layout.buildDirectory.dir("generated/corpus/kotlin")
+    inputs.property("classes", classes)
+    inputs.property("functions", functions)
+    outputs.dir(output)
+    doLast {
+        val directory = output.get().asFile.resolve("revxrsal/args/benchmarks/corpus")
+        directory.deleteRecursively()
+        directory.mkdirs()
+        val names = mutableListOf<String>()
+        for (owner in 0 until classes) {
+            val body = (0 until functions).joinToString("\n") { corpusFunction(owner, it) }
+            val source = when (owner % 4) {
+                0 -> "class Corpus$owner {\n$body\n}".also { names += "Corpus$owner" }
+                1 -> "object Corpus$owner {\n$body\n}".also { names += "Corpus$owner" }
+                2 -> "class Corpus$owner {\n    companion object {\n${body.prependIndent("    ")}\n    }\n}".also { names += "Corpus$owner\$Companion" }
+                else -> body.also { names += "Corpus${owner}Kt" }
+            }
+            directory.resolve("Corpus$owner.kt").writeText("package revxrsal.args.benchmarks.corpus\n\n$source\n")
+        }
+        val index = names.joinToString(",\n") { "        \"revxrsal.args.benchmarks.corpus.${it.replace("$", "\\$")}\"" }
+        directory.resolve("CorpusIndex.kt").writeText(
+            "package revxrsal.args.benchmarks.corpus\n\n" +
+                    "object CorpusIndex {\n\n" +
+                    "    @JvmField\n" +
+                    "    val CLASSES = arrayOf(\n$index\n    )\n" +
+                    "}\n"
+        )
+    }
+}
+
+fun corpusFunction(owner: Int, index: Int): String {
+    val arity = 1 + (owner * 31 + index) % 12
+    val parameters = (0 until arity).joinToString(", ") {
+        when (it % 4) {
+            0 -> "p$it: Int = $it"
+            1 -> "p$it: String = \"$it\""
+            2 -> "p$it: Long = ${it}L"
+            else -> "p$it: Boolean = ${it % 2 == 0}"
+        }
+    }
+    return "    fun f${owner}_$index($parameters) = p0"
+}
+
+// Generates DirectCalls, the baseline of the invocation benchmarks, which calls
+// every fixture of Targets.kt directly, for every shape of InvocationBenchmark
+val generateDirectCalls by tasks.registering {
+    val output = layout.buildDirectory.dir("generated/direct/kotlin")
+    outputs.dir(output)
+    doLast {
+        val directory = output.get().asFile.resolve("revxrsal/args/benchmarks")
+        directory.mkdirs()
+        directory.resolve("DirectCalls.kt").writeText(directCalls())
+    }
+}
+
+fun directCalls(): String {
+    val targets = mapOf("static" to "", "member" to "MEMBER.", "object" to "ObjectTarget.", "companion" to "CompanionTarget.")
+    val arities = listOf(0, 1, 2, 4, 8, 16, 32, 40)
+    val cases = StringBuilder()
+    for ((target, receiver) in targets) {
+        for (arity in arities) {
+            for (omission in listOf("none", "half", "all")) {
+                val arguments = (0 until arity)
+                    .filter { omission == "none" || (omission == "half" && it % 2 == 0) }
+                    .joinToString(", ") { "p$it = ${it * 2}" }
+                cases.append("            \"$target/$arity/$omission\" -> ({ ${receiver}arity$arity($arguments) })\n")
+            }
+        }
+    }
+    return "package revxrsal.args.benchmarks\n\n" +
+            "/**\n" +
+            " * Calls the fixtures directly, as Kotlin code would, to serve as the\n" +
+            " * baseline of the benchmarks.\n" +
+            " */\n" +
+            "object DirectCalls {\n\n" +
+            "    private val MEMBER = MemberTarget()\n\n" +
+            "    /**\n" +
+            "     * Returns a function that calls the given target directly, omitting\n" +
+            "     * the same arguments as the benchmarks do.\n" +
+            "     */\n" +
+            "    @JvmStatic\n" +
+            "    fun of(target: String, arity: Int, omission: String): () -> Int {\n" +
+            "        return when (\"\$target/\$arity/\$omission\") {\n" +
+            cases +
+            "            else -> throw IllegalArgumentException(\"Unknown shape: \$target/\$arity/\$omission\")\n" +
+            "        }\n" +
+            "    }\n" +
+            "}\n"
+}
+
+kotlin.sourceSets.named("jmh") {
+    kotlin.srcDir(generateBenchmarkCorpus)
+    kotlin.srcDir(generateDirectCalls)
+}
+
+// Generates invokers and $default resolutions for the benchmark fixtures, as
+// projects that declare functions do (see the README), and packages them with
+// the jmh classes. The classpath is built from the class directories rather
+// than from the source set output, which includes the generated directory
+val jmhInvokers = layout.buildDirectory.dir("generated/invokers/jmh")
+
+val generateJmhInvokers by tasks.registering(JavaExec::class) {
+    group = "build"
+    description = "Generates invokers for the functions of the benchmark fixtures"
+    val classes = sourceSets["jmh"].output.classesDirs
+    inputs.files(classes)
+    outputs.dir(jmhInvokers)
+    classpath = classes + sourceSets.main.get().output + configurations["jmhRuntimeClasspath"]
+    mainClass.set("revxrsal.args.reflect.InvokerGenerator")
+    argumentProviders.add(CommandLineArgumentProvider {
+        listOf(jmhInvokers.get().asFile.path) + classes.files.map { it.path }
+    })
+    doFirst { delete(jmhInvokers) }
+}
+
+sourceSets.named("jmh") {
+    output.dir(mapOf("builtBy" to generateJmhInvokers), jmhInvokers)
+}
+
+// Reports the memory retained by wrapped functions over the corpus, using JOL
+val footprint by tasks.registering(JavaExec::class) {
+    group = "benchmark"
+    description = "Reports the bytes retained per wrapped function"
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("revxrsal.args.benchmarks.FootprintReport")
+}
+
 publishing {
     publications {
         create<MavenPublication>("maven") {
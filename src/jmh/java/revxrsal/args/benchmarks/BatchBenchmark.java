@@ -0,0 +1,97 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import revxrsal.args.BatchCall;
+import revxrsal.args.KotlinFunction;
+import revxrsal.args.OptionalityProfile;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost per row of calling a function over many rows of
+ * arguments, one call at a time and through {@link BatchCall}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"1", "8", "40"})
+    public int arity;
+
+    private KotlinFunction function;
+    private MemberTarget instance;
+    private OptionalityProfile profile;
+    private Object[][] rows;
+    private BatchCall sequential;
+    private BatchCall parallel;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        Class<?>[] types = new Class<?>[arity];
+        Arrays.fill(types, int.class);
+        Method method = MemberTarget.class.getDeclaredMethod("arity" + arity, types);
+        function = KotlinFunction.wrap(method);
+        instance = new MemberTarget();
+        profile = OptionalityProfile.fromMetadata(function);
+
+        // rows of a few distinct shapes, as in recorded invocations
+        rows = new Object[ROWS][arity];
+        for (int row = 0; row < ROWS; row++)
+            for (int i = 0; i < arity; i++)
+                rows[row][i] = (i + row) % 4 == 0 ? null : i;
+        sequential = BatchCall.of(function, instance, profile);
+        parallel = sequential.parallel(ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void callEach(Blackhole blackhole) {
+        for (Object[] row : rows)
+            blackhole.consume(function.call(instance, Arrays.asList(row), profile));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void batch(Blackhole blackhole) {
+        sequential.call(rows, (index, result) -> blackhole.consume(result));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void batchParallel(Blackhole blackhole) {
+        parallel.call(rows, (index, result) -> blackhole.consume(result));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Measures the first-call cost of functions at boot, over a generated corpus
+ * of thousands of functions. Every iteration loads the library and the corpus
+ * in a fresh class loader, so nothing is cached beforehand.
+ * <p>
+ * Operations are:
+ * <ul>
+ *     <li>{@code wrap}: {@code KotlinFunction.wrap} of every function</li>
+ *     <li>{@code resolve}: wrapping, then finding the synthetic {@code $default} method</li>
+ *     <li>{@code call}: wrapping, then calling with all defaults for the first time</li>
+ * </ul>
+ * The corpus size can be changed with {@code -Pcorpus.classes} and {@code -Pcorpus.functions}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(3)
+public class ColdStartBenchmark {
+
+    @Benchmark
+    public int corpus(Corpus corpus) {
+        return corpus.driver.getAsInt();
+    }
+
+    /**
+     * Many threads calling the same functions for the first time, all of
+     * them racing to resolve the synthetic methods.
+     */
+    @Benchmark
+    @Threads(8)
+    public int firstCallStorm(Storm storm) {
+        return storm.driver.getAsInt();
+    }
+
+    @State(Scope.Thread)
+    public static class Corpus {
+
+        @Param({"wrap", "resolve", "call"})
+        public String operation;
+
+        private IntSupplier driver;
+
+        @Setup(Level.Iteration)
+        public void setup() throws ReflectiveOperationException {
+            driver = IsolatedClassLoader.newDriver(operation);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Storm {
+
+        private IntSupplier driver;
+
+        @Setup(Level.Iteration)
+        public void setup() throws ReflectiveOperationException {
+            // functions are wrapped, but nothing is resolved yet
+            driver = IsolatedClassLoader.newDriver("callWrapped");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.benchmarks;
+
+import org.openjdk.jol.info.GraphLayout;
+import revxrsal.args.CallableMethod;
+import revxrsal.args.KotlinFunction;
+import revxrsal.args.benchmarks.corpus.CorpusIndex;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reports the memory retained by every wrapped function of the generated
+ * corpus, measured with JOL. The reflection objects of the methods are
+ * excluded, as they are retained by the JVM anyway, so this is only what
+ * the library adds.
+ * <p>
+ * Run with {@code ./gradlew footprint}.
+ */
+public final class FootprintReport {
+
+    private FootprintReport() {
+    }
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        List<Method> methods = new ArrayList<>();
+        for (String className : CorpusIndex.CLASSES) {
+            for (Method method : Class.forName(className).getDeclaredMethods()) {
+                if (method.isSynthetic())
+                    continue;
+                // parameters are cached by the method, so they are excluded too
+                method.getParameters();
+                methods.add(method);
+            }
+        }
+
+        List<KotlinFunction> functions = new ArrayList<>();
+        for (Method method : methods)
+            functions.add(KotlinFunction.wrap(method));
+        report("wrapped", functions, methods);
+
+        List<Object> reflection = new ArrayList<>(methods);
+        for (KotlinFunction function : functions) {
+            CallableMethod defaultMethod = function.getDefaultSyntheticMethod();
+            if (defaultMethod != null) {
+                defaultMethod.getMethod().getParameters();
+                reflection.add(defaultMethod.getMethod());
+            }
+        }
+        report("resolved", functions, reflection);
+    }
+
+    private static void report(String state, List<KotlinFunction> functions, List<?> reflection) {
+        GraphLayout retained = GraphLayout.parseInstance(functions.toArray())
+                .subtract(GraphLayout.parseInstance(reflection.toArray()));
+        System.out.printf("%s: %d functions, %d bytes per function%n",
+                state, functions.size(), retained.totalSize() / functions.size());
+        System.out.println(retained.toFootprint());
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.benchmarks;
+
+import kotlin.jvm.functions.Function0;
+import kotlin.reflect.KFunction;
+import kotlin.reflect.KParameter;
+import kotlin.reflect.full.KCallables;
+import kotlin.reflect.jvm.ReflectJvmMapping;
+import org.openjdk.jmh.annotations.*;
+import revxrsal.args.KotlinFunction;
+import revxrsal.args.OptionalityProfile;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures the steady-state cost of calling a function with default
+ * parameters, through every API of {@link KotlinFunction}, compared to
+ * a direct Kotlin call and to kotlin-reflect.
+ * <p>
+ * Run with {@code ./gradlew jmh}, which also reports allocation rates
+ * through the {@code gc} profiler.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvocationBenchmark {
+
+    /**
+     * Where the function is declared: a top-level function, a class member,
+     * an {@code object} member, or a {@code companion object} member.
+     */
+    @Param({"static", "member", "object", "companion"})
+    public String target;
+
+    @Param({"0", "1", "2", "4", "8", "16", "32", "40"})
+    public int arity;
+
+    /**
+     * Which arguments are omitted: none of them, every other one, or all of them.
+     */
+    @Param({"none", "half", "all"})
+    public String omission;
+
+    private Function0<Integer> direct;
+    private KotlinFunction function;
+    private Object instance;
+    private List<Object> arguments;
+    private Map<Integer, Object> byIndices;
+    private Map<String, Object> byNames;
+    private Map<Parameter, Object> byParameters;
+    private Object[] positional;
+    private long present;
+    private Function<Parameter, Boolean> isOptional;
+    private OptionalityProfile profile;
+    private KFunction<?> kFunction;
+    private Map<KParameter, Object> kArguments;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        String name = "arity" + arity;
+        Method method;
+        switch (target) {
+            case "static":
+                method = TargetsKt.class.getDeclaredMethod(name, intParameters());
+                instance = null;
+                break;
+            case "member":
+                method = MemberTarget.class.getDeclaredMethod(name, intParameters());
+                instance = new MemberTarget();
+                break;
+            case "object":
+                method = ObjectTarget.class.getDeclaredMethod(name, intParameters());
+                instance = ObjectTarget.INSTANCE;
+                break;
+            case "companion":
+                method = CompanionTarget.Companion.class.getDeclaredMethod(name, intParameters());
+                instance = CompanionTarget.Companion;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown target: " + target);
+        }
+        direct = DirectCalls.of(target, arity, omission);
+        function = KotlinFunction.wrap(method);
+        isOptional = parameter -> true;
+        profile = OptionalityProfile.fromMetadata(function);
+
+        arguments = new ArrayList<>();
+        byIndices = new HashMap<>();
+        byNames = new HashMap<>();
+        byParameters = new HashMap<>();
+        positional = new Object[arity];
+        kFunction = Objects.requireNonNull(ReflectJvmMapping.getKotlinFunction(method));
+        kArguments = new HashMap<>();
+        KParameter instanceParameter = KCallables.getInstanceParameter(kFunction);
+        if (instanceParameter != null)
+            kArguments.put(instanceParameter, instance);
+        List<KParameter> kParameters = KCallables.getValueParameters(kFunction);
+        for (int i = 0; i < arity; i++) {
+            Object value = isPresent(i) ? i * 2 : null;
+            arguments.add(value);
+            positional[i] = value;
+            if (value == null)
+                continue;
+            Parameter parameter = function.getParameter(i);
+            present |= 1L << i;
+            byIndices.put(i, value);
+            byNames.put("p" + i, value);
+            byParameters.put(parameter, value);
+            kArguments.put(kParameters.get(i), value);
+        }
+    }
+
+    private boolean isPresent(int index) {
+        switch (omission) {
+            case "none":
+                return true;
+            case "half":
+                return index % 2 == 0;
+            default:
+                return false;
+        }
+    }
+
+    private Class<?>[] intParameters() {
+        Class<?>[] types = new Class<?>[arity];
+        Arrays.fill(types, int.class);
+        return types;
+    }
+
+    @Benchmark
+    public Object direct() {
+        return direct.invoke();
+    }
+
+    @Benchmark
+    public Object call() {
+        return function.call(instance, arguments, isOptional);
+    }
+
+    @Benchmark
+    public Object callWithProfile() {
+        return function.call(instance, arguments, profile);
+    }
+
+    @Benchmark
+    public Object callByIndices() {
+        return function.callByIndices(instance, byIndices, isOptional);
+    }
+
+    @Benchmark
+    public Object callByNames() {
+        return function.callByNames(instance, byNames, isOptional);
+    }
+
+    @Benchmark
+    public Object callByParameters() {
+        return function.callByParameters(instance, byParameters, isOptional);
+    }
+
+    @Benchmark
+    public Object callPositional() {
+        return function.callPositional(instance, positional, present, profile);
+    }
+
+    @Benchmark
+    public Object kotlinReflectCallBy() {
+        return kFunction.callBy(kArguments);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.benchmarks;
+
+import revxrsal.args.KotlinFunction;
+import revxrsal.args.benchmarks.corpus.CorpusDriver;
+import revxrsal.args.benchmarks.corpus.CorpusIndex;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.IntSupplier;
+
+/**
+ * A class loader that loads the library and the benchmark corpus by itself,
+ * instead of delegating to its parent. Every instance therefore starts from
+ * a cold state, as if the application was booting.
+ */
+final class IsolatedClassLoader extends URLClassLoader {
+
+    private static final String LIBRARY_PACKAGE = "revxrsal.args.";
+    private static final String BENCHMARKS_PACKAGE = "revxrsal.args.benchmarks.";
+    private static final String CORPUS_PACKAGE = "revxrsal.args.benchmarks.corpus.";
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private IsolatedClassLoader(URL[] urls, ClassLoader parent) {
+        super(urls, parent);
+    }
+
+    /**
+     * Creates a {@link CorpusDriver} in a new isolated class loader
+     *
+     * @param operation The driver operation
+     * @return The driver
+     */
+    static IntSupplier newDriver(String operation) throws ReflectiveOperationException {
+        Set<URL> urls = new LinkedHashSet<>();
+        urls.add(locationOf(KotlinFunction.class));
+        urls.add(locationOf(CorpusIndex.class));
+        urls.add(locationOf(CorpusDriver.class));
+        ClassLoader loader = new IsolatedClassLoader(urls.toArray(new URL[0]), IsolatedClassLoader.class.getClassLoader());
+        return (IntSupplier) loader.loadClass(CorpusDriver.class.getName())
+                .getConstructor(String.class)
+                .newInstance(operation);
+    }
+
+    private static URL locationOf(Class<?> type) {
+        return type.getProtectionDomain().getCodeSource().getLocation();
+    }
+
+    private static boolean isIsolated(String name) {
+        if (!name.startsWith(LIBRARY_PACKAGE))
+            return false;
+        return !name.startsWith(BENCHMARKS_PACKAGE) || name.startsWith(CORPUS_PACKAGE);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!isIsolated(name))
+            return super.loadClass(name, resolve);
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> type = findLoadedClass(name);
+            if (type == null) {
+                try {
+                    type = findClass(name);
+                } catch (ClassNotFoundException e) {
+                    return super.loadClass(name, resolve);
+                }
+            }
+            if (resolve)
+                resolveClass(type);
+            return type;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.benchmarks.corpus;
+
+import revxrsal.args.KotlinFunction;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Performs an operation on every function of the generated corpus.
+ * <p>
+ * This class is loaded in a fresh class loader along with the library and
+ * the corpus, so that every instance starts with cold caches. It only
+ * exposes JDK types, to be usable from the benchmarks' class loader.
+ */
+public final class CorpusDriver implements IntSupplier {
+
+    private final String operation;
+    private final List<Method> methods = new ArrayList<>();
+    private final List<Object> instances = new ArrayList<>();
+    private final List<KotlinFunction> functions = new ArrayList<>();
+
+    /**
+     * Creates a driver for the given operation, and loads the corpus
+     *
+     * @param operation One of {@code wrap}, {@code resolve}, {@code call} or
+     *                  {@code callWrapped}
+     */
+    public CorpusDriver(String operation) throws ReflectiveOperationException {
+        this.operation = operation;
+        for (String className : CorpusIndex.CLASSES) {
+            Class<?> type = Class.forName(className, true, CorpusDriver.class.getClassLoader());
+            Object instance = instanceOf(type);
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.isSynthetic())
+                    continue;
+                methods.add(method);
+                instances.add(Modifier.isStatic(method.getModifiers()) ? null : instance);
+            }
+        }
+        if (operation.equals("callWrapped")) {
+            for (Method method : methods)
+                functions.add(KotlinFunction.wrap(method));
+        }
+    }
+
+    private static Object instanceOf(Class<?> type) throws ReflectiveOperationException {
+        for (Field field : type.getDeclaredFields()) {
+            if (field.getName().equals("INSTANCE") && Modifier.isStatic(field.getModifiers()))
+                return field.get(null);
+        }
+        Class<?> enclosing = type.getEnclosingClass();
+        if (enclosing != null)
+            return enclosing.getField(type.getSimpleName()).get(null);
+        if (Modifier.isFinal(type.getModifiers()) && type.getSimpleName().endsWith("Kt"))
+            return null;
+        return type.getConstructor().newInstance();
+    }
+
+    @Override
+    public int getAsInt() {
+        int result = 0;
+        switch (operation) {
+            case "wrap":
+                for (Method method : methods)
+                    result += KotlinFunction.wrap(method).getParameters().size();
+                break;
+            case "resolve":
+                for (Method method : methods)
+                    result += KotlinFunction.wrap(method).getDefaultSyntheticMethod() == null ? 0 : 1;
+                break;
+            case "call":
+                for (int i = 0; i < methods.size(); i++)
+                    result += callWithDefaults(KotlinFunction.wrap(methods.get(i)), instances.get(i));
+                break;
+            case "callWrapped":
+                for (int i = 0; i < functions.size(); i++)
+                    result += callWithDefaults(functions.get(i), instances.get(i));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+        return result;
+    }
+
+    private static int callWithDefaults(KotlinFunction function, Object instance) {
+        Integer result = function.call(instance, Collections.emptyList(), parameter -> true);
+        return result;
+    }
+}
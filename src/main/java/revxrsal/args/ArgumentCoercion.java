@@ -0,0 +1,298 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.args.util.Preconditions;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Parameter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Converts the arguments of calls to the types of the parameters, such as
+ * strings that come from commands or configuration files into {@code int}s,
+ * enums or {@link Duration}s.
+ * <p>
+ * Converters are registered by their target type, and are resolved once for
+ * every parameter of a function, when it is wrapped with
+ * {@link KotlinFunction#withCoercion(ArgumentCoercion)}. Calls then run the
+ * converters of the parameters that have one, and only for the arguments
+ * that are not already of the parameter type:
+ * <pre>
+ *     ArgumentCoercion coercion = ArgumentCoercion.standard()
+ *             .with(UUID.class, value -> UUID.fromString(value.toString()));
+ *     KotlinFunction ban = KotlinFunction.wrap(banMethod).withCoercion(coercion);
+ *
+ *     ban.callByNames(Commands.INSTANCE, arguments, profile);
+ * </pre>
+ * Primitive parameters share the converters of their wrapper types. Arguments
+ * that are already of the wrapper type are passed as-is, without unboxing
+ * and boxing them again.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+public final class ArgumentCoercion {
+
+    private static final ArgumentCoercion EMPTY = new ArgumentCoercion(Collections.emptyMap(), false);
+    private static final ArgumentCoercion STANDARD = createStandard();
+
+    private final Map<Class<?>, Function<Object, ?>> converters;
+    private final boolean enums;
+
+    private ArgumentCoercion(@NotNull Map<Class<?>, Function<Object, ?>> converters, boolean enums) {
+        this.converters = converters;
+        this.enums = enums;
+    }
+
+    /**
+     * Returns a coercion that converts nothing
+     *
+     * @return The empty coercion
+     */
+    public static @NotNull ArgumentCoercion empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a coercion that converts:
+     * <ul>
+     *     <li>strings and numbers into primitives and their wrappers. Numbers
+     *     are only converted into integral types if they are whole and in range</li>
+     *     <li>strings into {@code char}s, if they are a single character</li>
+     *     <li>strings into enums, by the names of their constants,
+     *     ignoring case if there is no exact match</li>
+     *     <li>ISO-8601 strings into {@link Duration}s</li>
+     *     <li>anything into {@link String}s</li>
+     * </ul>
+     *
+     * @return The standard coercion
+     */
+    public static @NotNull ArgumentCoercion standard() {
+        return STANDARD;
+    }
+
+    /**
+     * Returns a copy of this coercion that converts arguments of the given
+     * type with the given converter, replacing any previous converter of it.
+     * <p>
+     * The converter is only called for arguments that are not null, and that
+     * are not already of the given type. Converters of primitive types also
+     * apply to their wrappers, and vice versa.
+     *
+     * @param type      The target type
+     * @param converter The converter
+     * @param <T>       The target type
+     * @return The new coercion
+     */
+    public <T> @NotNull ArgumentCoercion with(@NotNull Class<T> type, @NotNull Function<Object, ? extends T> converter) {
+        Preconditions.checkNotNull(type, "type");
+        Preconditions.checkNotNull(converter, "converter");
+        Map<Class<?>, Function<Object, ?>> converters = new HashMap<>(this.converters);
+        converters.put(wrap(type), converter);
+        return new ArgumentCoercion(Collections.unmodifiableMap(converters), enums);
+    }
+
+    /**
+     * Resolves the converters of the given parameters
+     *
+     * @param parameters The parameters
+     * @return The pipeline, or {@code null} if no parameter has a converter
+     */
+    @Nullable Pipeline pipelineFor(@NotNull Parameter @NotNull [] parameters) {
+        int count = 0;
+        Function<?, ?>[] resolved = new Function<?, ?>[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            resolved[i] = converterOf(parameters[i].getType());
+            if (resolved[i] != null)
+                count++;
+        }
+        if (count == 0)
+            return null;
+        return new Pipeline(parameters, resolved, count);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private @Nullable Function<Object, ?> converterOf(@NotNull Class<?> type) {
+        Function<Object, ?> converter = converters.get(wrap(type));
+        if (converter == null && enums && type.isEnum())
+            converter = enumConverter((Class) type);
+        return converter;
+    }
+
+    private static <E extends Enum<E>> @NotNull Function<Object, E> enumConverter(@NotNull Class<E> type) {
+        Map<String, E> byName = new LinkedHashMap<>();
+        Map<String, E> byLowerName = new HashMap<>();
+        for (E constant : type.getEnumConstants()) {
+            byName.put(constant.name(), constant);
+            byLowerName.putIfAbsent(constant.name().toLowerCase(Locale.ROOT), constant);
+        }
+        return value -> {
+            String name = value.toString();
+            E constant = byName.get(name);
+            if (constant == null)
+                constant = byLowerName.get(name.toLowerCase(Locale.ROOT));
+            if (constant == null)
+                throw new IllegalArgumentException("Expected one of " + byName.keySet() + ", but found '" + name + "'.");
+            return constant;
+        };
+    }
+
+    private static @NotNull ArgumentCoercion createStandard() {
+        Map<Class<?>, Function<Object, ?>> converters = new HashMap<>();
+        converters.put(Integer.class, value -> value instanceof Number ? (int) exactValue((Number) value, Integer.MIN_VALUE, Integer.MAX_VALUE) : Integer.valueOf(value.toString().trim()));
+        converters.put(Long.class, value -> value instanceof Number ? exactValue((Number) value, Long.MIN_VALUE, Long.MAX_VALUE) : Long.valueOf(value.toString().trim()));
+        converters.put(Double.class, value -> value instanceof Number ? ((Number) value).doubleValue() : Double.valueOf(value.toString().trim()));
+        converters.put(Float.class, value -> value instanceof Number ? ((Number) value).floatValue() : Float.valueOf(value.toString().trim()));
+        converters.put(Short.class, value -> value instanceof Number ? (short) exactValue((Number) value, Short.MIN_VALUE, Short.MAX_VALUE) : Short.valueOf(value.toString().trim()));
+        converters.put(Byte.class, value -> value instanceof Number ? (byte) exactValue((Number) value, Byte.MIN_VALUE, Byte.MAX_VALUE) : Byte.valueOf(value.toString().trim()));
+        converters.put(Boolean.class, value -> parseBoolean(value.toString().trim()));
+        converters.put(Character.class, value -> parseChar(value.toString()));
+        converters.put(String.class, String::valueOf);
+        converters.put(Duration.class, value -> Duration.parse(value.toString().trim()));
+        return new ArgumentCoercion(Collections.unmodifiableMap(converters), true);
+    }
+
+    /**
+     * Returns the value of the given number as a {@code long}, if it is a
+     * whole number between the given bounds. Unlike the narrowing of
+     * {@link Number#intValue()} and the like, this never truncates or
+     * wraps around.
+     *
+     * @param value The number
+     * @param min   The smallest accepted value
+     * @param max   The largest accepted value
+     * @return The exact value
+     */
+    private static long exactValue(@NotNull Number value, long min, long max) {
+        long exact = value.longValue();
+        boolean whole;
+        if (value instanceof BigInteger)
+            whole = ((BigInteger) value).bitLength() < Long.SIZE;
+        else if (value instanceof BigDecimal)
+            whole = ((BigDecimal) value).compareTo(BigDecimal.valueOf(exact)) == 0;
+        else if (value instanceof Double || value instanceof Float)
+            // longValue() clamps 2^63 to Long.MAX_VALUE, which then compares equal to it
+            whole = value.doubleValue() == exact && value.doubleValue() != 0x1p63;
+        else
+            whole = true;
+        if (!whole || exact < min || exact > max)
+            throw new IllegalArgumentException("Expected a whole number between " + min + " and " + max + ", but found '" + value + "'.");
+        return exact;
+    }
+
+    private static @NotNull Boolean parseBoolean(@NotNull String value) {
+        if (value.equalsIgnoreCase("true"))
+            return Boolean.TRUE;
+        if (value.equalsIgnoreCase("false"))
+            return Boolean.FALSE;
+        throw new IllegalArgumentException("Expected true or false, but found '" + value + "'.");
+    }
+
+    private static @NotNull Character parseChar(@NotNull String value) {
+        if (value.length() != 1)
+            throw new IllegalArgumentException("Expected a single character, but found '" + value + "'.");
+        return value.charAt(0);
+    }
+
+    private static @NotNull Class<?> wrap(@NotNull Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    /**
+     * The converters of the parameters of a single function, in the order
+     * of the parameters that have one.
+     * <p>
+     * This class is immutable, therefore is safe to share across multiple
+     * threads.
+     */
+    static final class Pipeline {
+
+        private final Parameter[] parameters;
+        private final int[] slots;
+        private final Class<?>[] types;
+        private final Function<Object, ?>[] converters;
+
+        @SuppressWarnings("unchecked")
+        private Pipeline(@NotNull Parameter @NotNull [] parameters, @Nullable Function<?, ?> @NotNull [] resolved, int count) {
+            this.parameters = parameters;
+            this.slots = new int[count];
+            this.types = new Class<?>[count];
+            this.converters = (Function<Object, ?>[]) new Function<?, ?>[count];
+            int slot = 0;
+            for (int i = 0; i < resolved.length; i++) {
+                if (resolved[i] == null)
+                    continue;
+                slots[slot] = i;
+                types[slot] = wrap(parameters[i].getType());
+                converters[slot] = (Function<Object, ?>) resolved[i];
+                slot++;
+            }
+        }
+
+        /**
+         * Converts the given arguments. The array is copied before the first
+         * argument that is converted, so that it is never modified.
+         *
+         * @param arguments The arguments, in the order of the parameters
+         * @param omitted   The parameters that use their default values, whose
+         *                  arguments are ignored
+         * @return The converted arguments, or the given array if none was converted
+         */
+        @Nullable Object @NotNull [] apply(@Nullable Object @NotNull [] arguments, long @NotNull [] omitted) {
+            Object[] args = arguments;
+            for (int i = 0; i < slots.length; i++) {
+                int slot = slots[i];
+                Object value = args[slot];
+                if (value == null || types[i].isInstance(value) || (omitted[slot / Long.SIZE] & 1L << slot) != 0)
+                    continue;
+                if (args == arguments)
+                    args = arguments.clone();
+                args[slot] = convert(i, value);
+            }
+            return args;
+        }
+
+        private Object convert(int index, @NotNull Object value) {
+            Object converted;
+            try {
+                converted = converters[index].apply(value);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cannot convert '" + value + "' to the type of " + parameters[slots[index]] + ": " + e.getMessage(), e);
+            }
+            if (converted != null && !types[index].isInstance(converted))
+                throw new IllegalArgumentException("The converter of " + parameters[slots[index]] + " returned " + converted.getClass().getName() + ".");
+            return converted;
+        }
+    }
+}
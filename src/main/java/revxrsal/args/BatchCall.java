@@ -0,0 +1,343 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.args.CallDispatcher.Batch;
+import revxrsal.args.util.Preconditions;
+
+import java.lang.reflect.Parameter;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+import static revxrsal.args.util.Preconditions.checkCallableStatic;
+
+/**
+ * Calls a {@link KotlinFunction} or a {@link KotlinConstructor} over many rows
+ * of arguments at once.
+ * <p>
+ * The optional parameters are resolved once for the whole batch, and each
+ * thread reuses a single buffer for the arguments of its rows. The plan of
+ * a call is only looked up when the missing parameters differ from the
+ * previous row, so batches of rows that have the same shape pay the setup
+ * cost of a call once.
+ * <p>
+ * As with {@link KotlinFunction#call(Object, List, Function)}, {@code null}
+ * arguments are missing. The results are passed to a {@link ResultSink} along
+ * with the index of their row. If a call throws, the batch is aborted and the
+ * exception is rethrown.
+ * <p>
+ * Batches can be split across a {@link ForkJoinPool} with {@link #parallel(ForkJoinPool)},
+ * in which case the sink is called concurrently, and in no particular order.
+ * <p>
+ * This class is immutable, therefore is safe to share across multiple
+ * threads.
+ */
+public final class BatchCall {
+
+    /**
+     * The default number of rows below which a parallel batch is not split
+     */
+    public static final int DEFAULT_SPLIT_THRESHOLD = 1024;
+
+    /**
+     * The dispatcher of the function, or {@code null} if the function is
+     * not one of ours, in which case rows are called one by one
+     */
+    private final @Nullable CallDispatcher dispatcher;
+    private final @Nullable KotlinFunction function;
+    private final @Nullable Object instance;
+    private final Function<Parameter, Boolean> isOptional;
+    private final @Nullable ForkJoinPool pool;
+    private final int threshold;
+
+    private BatchCall(
+            @Nullable CallDispatcher dispatcher,
+            @Nullable KotlinFunction function,
+            @Nullable Object instance,
+            @NotNull Function<Parameter, Boolean> isOptional,
+            @Nullable ForkJoinPool pool,
+            int threshold
+    ) {
+        this.dispatcher = dispatcher;
+        this.function = function;
+        this.instance = instance;
+        this.isOptional = isOptional;
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Creates a batch call of the given function
+     *
+     * @param function   The function to call
+     * @param instance   Instance to call the function with
+     * @param isOptional A function that guides the calls into knowing which
+     *                   parameters are optional. See
+     *                   {@link KotlinFunction#call(Object, List, Function)}.
+     * @return The batch call
+     */
+    public static @NotNull BatchCall of(
+            @NotNull KotlinFunction function,
+            @Nullable Object instance,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        Preconditions.checkNotNull(function, "function");
+        Preconditions.checkNotNull(isOptional, "isOptional");
+        checkCallableStatic(instance, function.getMethod().getMethod());
+        CallDispatcher dispatcher = function instanceof KotlinFunctionImpl
+                ? ((KotlinFunctionImpl) function).dispatcher()
+                : null;
+        return new BatchCall(dispatcher, function, instance, isOptional, null, DEFAULT_SPLIT_THRESHOLD);
+    }
+
+    /**
+     * Creates a batch call of the given constructor
+     *
+     * @param constructor The constructor to call
+     * @param isOptional  A function that guides the calls into knowing which
+     *                    parameters are optional. See
+     *                    {@link KotlinFunction#call(Object, List, Function)}.
+     * @return The batch call
+     */
+    public static @NotNull BatchCall of(
+            @NotNull KotlinConstructor<?> constructor,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        Preconditions.checkNotNull(constructor, "constructor");
+        Preconditions.checkNotNull(isOptional, "isOptional");
+        if (!(constructor instanceof KotlinConstructorImpl))
+            throw new IllegalArgumentException("Unsupported constructor implementation: " + constructor.getClass());
+        CallDispatcher dispatcher = ((KotlinConstructorImpl<?>) constructor).dispatcher();
+        return new BatchCall(dispatcher, null, null, isOptional, null, DEFAULT_SPLIT_THRESHOLD);
+    }
+
+    /**
+     * Returns a copy of this batch call that splits batches across the given
+     * pool, in parts of {@link #DEFAULT_SPLIT_THRESHOLD} rows or more
+     *
+     * @param pool The pool to run in
+     * @return The parallel batch call
+     */
+    public @NotNull BatchCall parallel(@NotNull ForkJoinPool pool) {
+        return parallel(pool, DEFAULT_SPLIT_THRESHOLD);
+    }
+
+    /**
+     * Returns a copy of this batch call that splits batches across the given
+     * pool, in parts of {@code threshold} rows or more
+     *
+     * @param pool      The pool to run in
+     * @param threshold The number of rows below which a batch is not split
+     * @return The parallel batch call
+     */
+    public @NotNull BatchCall parallel(@NotNull ForkJoinPool pool, int threshold) {
+        Preconditions.checkNotNull(pool, "pool");
+        if (threshold < 1)
+            throw new IllegalArgumentException("Threshold must be positive, but found " + threshold + ".");
+        return new BatchCall(dispatcher, function, instance, isOptional, pool, threshold);
+    }
+
+    /**
+     * Returns a copy of this batch call that runs batches on the calling thread
+     *
+     * @return The sequential batch call
+     */
+    public @NotNull BatchCall sequential() {
+        return pool == null ? this : new BatchCall(dispatcher, function, instance, isOptional, null, threshold);
+    }
+
+    /**
+     * Calls with every row of arguments, in the order of the parameters.
+     * Rows are not modified.
+     *
+     * @param rows The rows of arguments
+     * @param sink The sink that receives the results
+     * @param <T>  The return type
+     */
+    public <T> void call(@Nullable Object @NotNull [] @NotNull [] rows, @NotNull ResultSink<T> sink) {
+        Preconditions.checkNotNull(rows, "rows");
+        Preconditions.checkNotNull(sink, "sink");
+        run(new RangeTask<>((batch, index) -> callRow(batch, rows[index]), sink, 0, rows.length));
+    }
+
+    /**
+     * Calls with every row of arguments, mapped by the names of the parameters
+     *
+     * @param rows The rows of arguments
+     * @param sink The sink that receives the results
+     * @param <T>  The return type
+     */
+    public <T> void callByNames(@NotNull List<Map<String, Object>> rows, @NotNull ResultSink<T> sink) {
+        Preconditions.checkNotNull(rows, "rows");
+        Preconditions.checkNotNull(sink, "sink");
+        run(new RangeTask<>((batch, index) -> {
+            if (batch == null)
+                return function.callByNames(instance, rows.get(index), isOptional);
+            batch.setArguments(rows.get(index));
+            return batch.call();
+        }, sink, 0, rows.size()));
+    }
+
+    /**
+     * Calls with every row of arguments of the given spliterator, in the order
+     * of the parameters. The index of a row is its position in the encounter
+     * order of the spliterator.
+     * <p>
+     * When parallel, rows are read on the calling thread in parts, which are
+     * then called in the pool. Only a few parts are pending at any time, so
+     * the rows do not have to fit in memory at once.
+     *
+     * @param rows The rows of arguments
+     * @param sink The sink that receives the results
+     * @param <T>  The return type
+     */
+    public <T> void call(@NotNull Spliterator<@Nullable Object @NotNull []> rows, @NotNull ResultSink<T> sink) {
+        Preconditions.checkNotNull(rows, "rows");
+        Preconditions.checkNotNull(sink, "sink");
+        if (pool == null) {
+            Batch batch = newBatch();
+            long[] index = {0};
+            rows.forEachRemaining(row -> sink.accept(index[0]++, callRow(batch, row)));
+            return;
+        }
+        Deque<ForkJoinTask<?>> pending = new ArrayDeque<>();
+        int maxPending = pool.getParallelism() * 2;
+        long base = 0;
+        while (true) {
+            Object[][] part = new Object[threshold][];
+            int[] size = {0};
+            while (size[0] < part.length && rows.tryAdvance(row -> part[size[0]++] = row))
+                ;
+            if (size[0] == 0)
+                break;
+            long partBase = base;
+            int partSize = size[0];
+            pending.add(pool.submit(() -> {
+                Batch batch = newBatch();
+                for (int i = 0; i < partSize; i++)
+                    sink.accept(partBase + i, callRow(batch, part[i]));
+            }));
+            base += partSize;
+            if (pending.size() >= maxPending)
+                pending.poll().join();
+        }
+        for (ForkJoinTask<?> task : pending)
+            task.join();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T callRow(@Nullable Batch batch, @Nullable Object @NotNull [] row) {
+        if (batch == null)
+            return function.call(instance, Arrays.asList(row), isOptional);
+        batch.setArguments(row);
+        return (T) batch.call();
+    }
+
+    private @Nullable Batch newBatch() {
+        return dispatcher == null ? null : dispatcher.batch(instance, isOptional);
+    }
+
+    private void run(@NotNull RangeTask<?> task) {
+        if (pool == null || task.to - task.from <= threshold)
+            task.compute();
+        else
+            pool.invoke(task);
+    }
+
+    /**
+     * A sink that receives the results of a batch call
+     *
+     * @param <T> The return type
+     */
+    @FunctionalInterface
+    public interface ResultSink<T> {
+
+        /**
+         * Receives the result of a row. This is {@code null} for functions
+         * that return nothing.
+         *
+         * @param index  The index of the row
+         * @param result The return value
+         */
+        void accept(long index, @Nullable T result);
+
+    }
+
+    /**
+     * Calls the row at the given index, with the batch state of the
+     * current thread
+     */
+    @FunctionalInterface
+    private interface RowCall {
+
+        Object call(@Nullable Batch batch, int index);
+
+    }
+
+    /**
+     * Calls a range of rows, splitting it in halves while it is larger than
+     * the threshold
+     */
+    private final class RangeTask<T> extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RowCall call;
+        private final ResultSink<T> sink;
+        private final int from, to;
+
+        RangeTask(@NotNull RowCall call, @NotNull ResultSink<T> sink, int from, int to) {
+            this.call = call;
+            this.sink = sink;
+            this.from = from;
+            this.to = to;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        protected void compute() {
+            if (pool != null && to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new RangeTask<>(call, sink, from, middle),
+                        new RangeTask<>(call, sink, middle, to)
+                );
+                return;
+            }
+            Batch batch = newBatch();
+            for (int index = from; index < to; index++)
+                sink.accept(index, (T) call.call(batch, index));
+        }
+    }
+}
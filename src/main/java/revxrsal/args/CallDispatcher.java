@@ -0,0 +1,683 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+import revxrsal.args.metrics.Instrumentation;
+import revxrsal.args.metrics.InvocationListener;
+import revxrsal.args.reflect.MethodCaller;
+import revxrsal.args.reflect.MethodCallerFactory;
+
+import java.lang.reflect.Executable;
+import java.lang.reflect.Parameter;
+import java.util.*;
+import java.util.function.Function;
+
+import static revxrsal.args.util.CollectionUtils.getOrNull;
+
+/**
+ * Resolves the arguments of calls against the parameters of a function or
+ * a constructor, and dispatches them to the {@link CallPlan} that matches
+ * the missing parameters.
+ * <p>
+ * This is shared by {@link KotlinFunctionImpl} and {@link KotlinConstructorImpl},
+ * which only differ in how the underlying executables are found and invoked.
+ * <p>
+ * This class is thread-safe.
+ */
+final class CallDispatcher {
+
+    private final Executable executable;
+    private final Parameter[] parameters;
+    private final ParameterShape shape;
+    private final CallPlanCache plans;
+
+    /**
+     * The converters of the arguments, or null if they are passed as-is
+     */
+    private final @Nullable ArgumentCoercion.Pipeline coercion;
+
+    /**
+     * Creates a dispatcher for the given executable
+     *
+     * @param executable The main method or constructor
+     * @param parameters The parameters of the executable
+     * @param names      The names of the parameters
+     * @param mainCaller The caller of the executable
+     * @param factory    The factory of the caller of the synthetic default
+     *                   method or constructor, which is resolved on demand
+     * @param receivers  The number of leading receiver parameters, which
+     *                   are not part of the default masks
+     * @param trailing   The number of trailing parameters, which are not
+     *                   part of the default masks either
+     */
+    CallDispatcher(
+            @NotNull Executable executable,
+            @NotNull Parameter[] parameters,
+            @NotNull String[] names,
+            @NotNull MethodCaller mainCaller,
+            @NotNull MethodCallerFactory factory,
+            int receivers,
+            int trailing
+    ) {
+        this.executable = executable;
+        this.parameters = parameters;
+        this.shape = ParameterShape.of(executable, names, receivers, trailing);
+        this.plans = new CallPlanCache(executable, shape, mainCaller, factory);
+        this.coercion = null;
+    }
+
+    private CallDispatcher(@NotNull CallDispatcher dispatcher, @Nullable ArgumentCoercion.Pipeline coercion) {
+        this.executable = dispatcher.executable;
+        this.parameters = dispatcher.parameters;
+        this.shape = dispatcher.shape;
+        this.plans = dispatcher.plans;
+        this.coercion = coercion;
+    }
+
+    /**
+     * Returns a dispatcher that converts arguments with the given coercion
+     * before every call. The call plans are shared with this dispatcher.
+     *
+     * @param coercion The coercion
+     * @return The new dispatcher
+     */
+    @NotNull CallDispatcher withCoercion(@NotNull ArgumentCoercion coercion) {
+        return new CallDispatcher(this, coercion.pipelineFor(parameters));
+    }
+
+    @Unmodifiable @NotNull List<Parameter> parameters() {
+        return Collections.unmodifiableList(Arrays.asList(parameters));
+    }
+
+    @NotNull Parameter parameter(int index) {
+        return parameters[index];
+    }
+
+    @Unmodifiable @NotNull Map<String, Parameter> parametersByName() {
+        Map<String, Parameter> byName = new LinkedHashMap<>();
+        for (int i = 0; i < parameters.length; i++)
+            byName.put(shape.nameOf(i), parameters[i]);
+        return Collections.unmodifiableMap(byName);
+    }
+
+    /**
+     * Returns the synthetic default method or constructor, resolving it
+     * if necessary
+     *
+     * @return The synthetic default method or constructor, or null if there
+     * is none
+     */
+    @Nullable Executable defaultExecutable() {
+        return plans.defaults().executable();
+    }
+
+    /**
+     * Returns the caller of the synthetic default method or constructor,
+     * resolving it if necessary
+     *
+     * @return The caller, or null if there is none
+     */
+    @Nullable MethodCaller defaultCaller() {
+        return plans.defaults().caller();
+    }
+
+    int indexOf(@NotNull String name) {
+        int index = shape.indexOf(name);
+        if (index == -1)
+            throw new IllegalArgumentException("No such parameter: '" + name + "'. Available parameters: " + parametersByName().keySet());
+        return index;
+    }
+
+    @Nullable Object @NotNull [] argumentsOf(@NotNull List<Object> arguments) {
+        Object[] args = new Object[parameters.length];
+        for (int i = 0; i < args.length; i++)
+            args[i] = getOrNull(arguments, i);
+        return args;
+    }
+
+    @Nullable Object @NotNull [] argumentsOfIndices(@NotNull Map<Integer, Object> arguments) {
+        Object[] args = new Object[parameters.length];
+        for (int i = 0; i < args.length; i++)
+            args[i] = arguments.get(i);
+        return args;
+    }
+
+    @Nullable Object @NotNull [] argumentsOfNames(@NotNull Map<String, Object> arguments) {
+        Object[] args = new Object[parameters.length];
+        for (Map.Entry<String, Object> entry : arguments.entrySet())
+            args[indexOf(entry.getKey())] = entry.getValue();
+        return args;
+    }
+
+    @Nullable Object @NotNull [] argumentsOfParameters(@NotNull Map<Parameter, Object> arguments) {
+        Object[] args = new Object[parameters.length];
+        for (int i = 0; i < args.length; i++)
+            args[i] = arguments.get(parameters[i]);
+        return args;
+    }
+
+    /**
+     * Calls with the given arguments, where {@code null}s are missing.
+     * The arguments array is owned by the dispatcher, and may be modified.
+     */
+    // Re-adapted from KCallableImpl.callBy
+    @SuppressWarnings("unchecked")
+    <T> T call(
+            @Nullable Object instance,
+            @Nullable Object @NotNull [] arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        OptionalityProfile profile = profileOf(isOptional);
+        if (profile != null) {
+            if (plans.maskWords() == 1) {
+                long missing = 0;
+                for (int index = 0; index < arguments.length; index++)
+                    if (arguments[index] == null)
+                        missing |= 1L << index;
+                return callMissing(instance, arguments, missing, profile, false);
+            }
+            long[] missing = new long[plans.maskWords()];
+            for (int index = 0; index < arguments.length; index++)
+                if (arguments[index] == null)
+                    missing[index / Long.SIZE] |= 1L << index;
+            return callMissing(instance, arguments, missing, profile, false);
+        }
+        long mask = 0;
+        long[] masks = plans.maskWords() > 1 ? new long[plans.maskWords()] : null;
+
+        for (int index = 0; index < arguments.length; index++) {
+            if (arguments[index] != null)
+                continue;
+
+            // Parameter is not present
+            Parameter parameter = parameters[index];
+            if (isOptional.apply(parameter)) {
+                if (masks == null)
+                    mask |= 1L << index;
+                else
+                    masks[index / Long.SIZE] |= 1L << index;
+            } else if (parameter.isVarArgs()) {
+                arguments[index] = plans.filler(index);
+            } else {
+                throw new IllegalArgumentException("No argument provided for a required parameter: " + parameter + ".");
+            }
+        }
+
+        CallPlan plan = masks == null ? plans.get(mask) : plans.get(masks);
+        return (T) invoke(plan, instance, arguments, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T callPositional(
+            @Nullable Object instance,
+            @Nullable Object @NotNull [] arguments,
+            long present,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        checkArity(arguments);
+        if (plans.maskWords() > 1)
+            throw new IllegalArgumentException("This function has more than " + Long.SIZE + " parameters. Use a long[] mask instead.");
+
+        int size = arguments.length;
+        long missing = ~present & (size == Long.SIZE ? -1L : (1L << size) - 1);
+        OptionalityProfile profile = profileOf(isOptional);
+        if (profile != null)
+            return callMissing(instance, arguments, missing, profile, true);
+        long mask = 0;
+        Object[] args = arguments;
+        for (; missing != 0; missing &= missing - 1) {
+            int index = Long.numberOfTrailingZeros(missing);
+            Parameter parameter = parameters[index];
+            if (isOptional.apply(parameter)) {
+                mask |= 1L << index;
+            } else if (parameter.isVarArgs()) {
+                if (args == arguments)
+                    args = arguments.clone();
+                args[index] = plans.filler(index);
+            } else {
+                throw new IllegalArgumentException("No argument provided for a required parameter: " + parameter + ".");
+            }
+        }
+        return (T) invoke(plans.get(mask), instance, args, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T callPositional(
+            @Nullable Object instance,
+            @Nullable Object @NotNull [] arguments,
+            long @NotNull [] present,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        checkArity(arguments);
+
+        int size = arguments.length;
+        OptionalityProfile profile = profileOf(isOptional);
+        if (profile != null) {
+            long[] missing = new long[plans.maskWords()];
+            for (int word = 0; word < missing.length; word++) {
+                int bits = Math.min(Long.SIZE, size - word * Long.SIZE);
+                long all = bits == Long.SIZE ? -1L : (1L << bits) - 1;
+                missing[word] = ~(word < present.length ? present[word] : 0) & all;
+            }
+            return callMissing(instance, arguments, missing, profile, true);
+        }
+        long[] mask = new long[plans.maskWords()];
+        Object[] args = arguments;
+        for (int index = 0; index < size; index++) {
+            int word = index / Long.SIZE;
+            if (word < present.length && (present[word] & 1L << index) != 0)
+                continue;
+
+            // Parameter is not present
+            Parameter parameter = parameters[index];
+            if (isOptional.apply(parameter)) {
+                mask[word] |= 1L << index;
+            } else if (parameter.isVarArgs()) {
+                if (args == arguments)
+                    args = arguments.clone();
+                args[index] = plans.filler(index);
+            } else {
+                throw new IllegalArgumentException("No argument provided for a required parameter: " + parameter + ".");
+            }
+        }
+        return (T) invoke(plans.get(mask), instance, args, null);
+    }
+
+    /**
+     * Calls using a precomputed {@link OptionalityProfile}. Missing
+     * parameters are classified with bitwise operations only, and the call is
+     * rejected before touching the arguments if any of them is required.
+     *
+     * @param missing The missing parameters
+     * @param shared  Whether the arguments array belongs to the caller, and
+     *                must be copied before being modified
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T callMissing(
+            @Nullable Object instance,
+            @Nullable Object @NotNull [] arguments,
+            long missing,
+            @NotNull OptionalityProfile profile,
+            boolean shared
+    ) {
+        long missingRequired = missing & profile.required(0);
+        if (missingRequired != 0)
+            throw missingRequired(Long.numberOfTrailingZeros(missingRequired));
+        long optional = missing & profile.optional(0);
+        long varargs = missing & ~optional;
+        Object[] args = arguments;
+        if (varargs != 0) {
+            if (shared)
+                args = arguments.clone();
+            args[Long.numberOfTrailingZeros(varargs)] = plans.filler(Long.numberOfTrailingZeros(varargs));
+        }
+        return (T) invoke(plans.get(optional), instance, args, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T callMissing(
+            @Nullable Object instance,
+            @Nullable Object @NotNull [] arguments,
+            long @NotNull [] missing,
+            @NotNull OptionalityProfile profile,
+            boolean shared
+    ) {
+        int missingRequired = profile.firstMissingRequired(missing);
+        if (missingRequired != -1)
+            throw missingRequired(missingRequired);
+        Object[] args = arguments;
+        for (int word = 0; word < missing.length; word++) {
+            long varargs = missing[word] & ~profile.optional(word);
+            if (varargs != 0) {
+                if (args == arguments && shared)
+                    args = arguments.clone();
+                int index = word * Long.SIZE + Long.numberOfTrailingZeros(varargs);
+                args[index] = plans.filler(index);
+            }
+            missing[word] &= profile.optional(word);
+        }
+        return (T) invoke(plans.get(missing), instance, args, null);
+    }
+
+    /**
+     * Creates the state for calling many times from a single thread
+     *
+     * @param instance   The instance to call with
+     * @param isOptional The optional parameters
+     * @return The batch state
+     */
+    @NotNull Batch batch(@Nullable Object instance, @NotNull Function<Parameter, Boolean> isOptional) {
+        OptionalityProfile profile = profileOf(isOptional);
+        if (profile == null)
+            profile = OptionalityProfile.of(executable, parameters(), isOptional);
+        return new Batch(instance, profile);
+    }
+
+    /**
+     * The state of a batch of calls on a single thread. Arguments are written
+     * into a buffer that is reused by every call, and the plan of the previous
+     * call is reused as long as the same parameters are missing.
+     * <p>
+     * This class is not thread-safe.
+     */
+    final class Batch {
+
+        private final @Nullable Object instance;
+        private final OptionalityProfile profile;
+        private final @Nullable Object[] arguments = new Object[parameters.length];
+        private final long[] mask = new long[plans.maskWords()];
+        private @Nullable CallPlan plan;
+        private @Nullable Object @Nullable [] scratch;
+
+        private Batch(@Nullable Object instance, @NotNull OptionalityProfile profile) {
+            this.instance = instance;
+            this.profile = profile;
+        }
+
+        /**
+         * Returns the buffer of the arguments of the next call, in the order
+         * of the parameters. It is cleared after every call.
+         *
+         * @return The arguments buffer
+         */
+        @Nullable Object @NotNull [] arguments() {
+            return arguments;
+        }
+
+        /**
+         * Copies the given row into the arguments buffer. Arguments beyond the
+         * number of parameters are ignored.
+         *
+         * @param row The arguments, in the order of the parameters
+         */
+        void setArguments(@Nullable Object @NotNull [] row) {
+            System.arraycopy(row, 0, arguments, 0, Math.min(row.length, arguments.length));
+        }
+
+        /**
+         * Copies the given arguments into the arguments buffer, by their names
+         *
+         * @param row The arguments, mapped by parameter names
+         */
+        void setArguments(@NotNull Map<String, Object> row) {
+            for (Map.Entry<String, Object> entry : row.entrySet())
+                arguments[indexOf(entry.getKey())] = entry.getValue();
+        }
+
+        /**
+         * Calls with the arguments buffer, where {@code null}s are missing,
+         * then clears it
+         *
+         * @return The return value
+         */
+        Object call() {
+            try {
+                boolean samePlan = plan != null;
+                for (int word = 0; word < mask.length; word++) {
+                    long missing = 0;
+                    int from = word * Long.SIZE, to = Math.min(arguments.length, from + Long.SIZE);
+                    for (int index = from; index < to; index++)
+                        if (arguments[index] == null)
+                            missing |= 1L << index;
+                    long missingRequired = missing & profile.required(word);
+                    if (missingRequired != 0)
+                        throw missingRequired(from + Long.numberOfTrailingZeros(missingRequired));
+                    long optional = missing & profile.optional(word);
+                    for (long varargs = missing & ~optional; varargs != 0; varargs &= varargs - 1) {
+                        int index = from + Long.numberOfTrailingZeros(varargs);
+                        arguments[index] = plans.filler(index);
+                    }
+                    samePlan &= mask[word] == optional;
+                    mask[word] = optional;
+                }
+                if (!samePlan) {
+                    plan = mask.length == 1 ? plans.get(mask[0]) : plans.get(mask);
+                    if (scratch == null && plan.usesDefaults())
+                        scratch = new Object[plan.argumentCount()];
+                }
+                CallPlan plan = this.plan;
+                return invoke(plan, instance, arguments, scratch);
+            } finally {
+                Arrays.fill(arguments, null);
+            }
+        }
+    }
+
+    /**
+     * Creates the state for calling with a fixed set of parameters, where the
+     * rest use their default values
+     *
+     * @param instance   The instance to call with
+     * @param positions  The indices of the provided parameters, in the order
+     *                   their arguments are given
+     * @param isOptional The optional parameters
+     * @return The view
+     * @throws IllegalArgumentException if a parameter that is not provided is required
+     */
+    @NotNull View view(
+            @Nullable Object instance,
+            int @NotNull [] positions,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        long[] missing = new long[plans.maskWords()];
+        for (int index = 0; index < parameters.length; index++)
+            missing[index / Long.SIZE] |= 1L << index;
+        for (int position : positions)
+            missing[position / Long.SIZE] &= ~(1L << position);
+
+        long[] mask = new long[missing.length];
+        Object[] base = null;
+        for (int word = 0; word < missing.length; word++) {
+            for (long bits = missing[word]; bits != 0; bits &= bits - 1) {
+                int index = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                Parameter parameter = parameters[index];
+                if (isOptional.apply(parameter)) {
+                    mask[word] |= 1L << index;
+                } else if (parameter.isVarArgs()) {
+                    if (base == null)
+                        base = new Object[parameters.length];
+                    base[index] = plans.filler(index);
+                } else {
+                    throw missingRequired(index);
+                }
+            }
+        }
+        CallPlan plan = mask.length == 1 ? plans.get(mask[0]) : plans.get(mask);
+        return new View(instance, positions, plan, base);
+    }
+
+    /**
+     * A call with a fixed set of provided parameters, whose plan is resolved
+     * once. Arguments are given in the order of the positions of the view,
+     * rather than the order of the parameters.
+     * <p>
+     * The {@code callN} functions are the targets of the classes spun by
+     * {@link InterfaceViews}, which pass their arguments as-is.
+     * <p>
+     * This class is immutable, therefore is safe to share across multiple
+     * threads.
+     */
+    final class View {
+
+        private final @Nullable Object instance;
+        private final int[] positions;
+        private final CallPlan plan;
+
+        /**
+         * The arguments of the parameters that are not provided, or
+         * {@code null} if all of them use their default values
+         */
+        private final @Nullable Object @Nullable [] base;
+
+        private View(
+                @Nullable Object instance,
+                int @NotNull [] positions,
+                @NotNull CallPlan plan,
+                @Nullable Object @Nullable [] base
+        ) {
+            this.instance = instance;
+            this.positions = positions;
+            this.plan = plan;
+            this.base = base;
+        }
+
+        /**
+         * Calls with the given arguments
+         *
+         * @param arguments The arguments, in the order of the positions
+         * @return The return value
+         */
+        Object call(@Nullable Object @NotNull [] arguments) {
+            Object[] args = arguments();
+            for (int i = 0; i < positions.length; i++)
+                args[positions[i]] = arguments[i];
+            return invoke(plan, instance, args, null);
+        }
+
+        Object call0() {
+            return invoke(plan, instance, arguments(), null);
+        }
+
+        Object call1(Object a0) {
+            Object[] args = arguments();
+            args[positions[0]] = a0;
+            return invoke(plan, instance, args, null);
+        }
+
+        Object call2(Object a0, Object a1) {
+            Object[] args = arguments();
+            args[positions[0]] = a0;
+            args[positions[1]] = a1;
+            return invoke(plan, instance, args, null);
+        }
+
+        Object call3(Object a0, Object a1, Object a2) {
+            Object[] args = arguments();
+            args[positions[0]] = a0;
+            args[positions[1]] = a1;
+            args[positions[2]] = a2;
+            return invoke(plan, instance, args, null);
+        }
+
+        Object call4(Object a0, Object a1, Object a2, Object a3) {
+            Object[] args = arguments();
+            args[positions[0]] = a0;
+            args[positions[1]] = a1;
+            args[positions[2]] = a2;
+            args[positions[3]] = a3;
+            return invoke(plan, instance, args, null);
+        }
+
+        Object call5(Object a0, Object a1, Object a2, Object a3, Object a4) {
+            Object[] args = arguments();
+            args[positions[0]] = a0;
+            args[positions[1]] = a1;
+            args[positions[2]] = a2;
+            args[positions[3]] = a3;
+            args[positions[4]] = a4;
+            return invoke(plan, instance, args, null);
+        }
+
+        Object call6(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5) {
+            Object[] args = arguments();
+            args[positions[0]] = a0;
+            args[positions[1]] = a1;
+            args[positions[2]] = a2;
+            args[positions[3]] = a3;
+            args[positions[4]] = a4;
+            args[positions[5]] = a5;
+            return invoke(plan, instance, args, null);
+        }
+
+        private @Nullable Object @NotNull [] arguments() {
+            return base == null ? new Object[parameters.length] : base.clone();
+        }
+    }
+
+    /**
+     * Invokes the given plan, and reports the invocation to the installed
+     * {@link InvocationListener} when instrumentation is enabled. Arguments
+     * are converted first if this dispatcher has a coercion.
+     *
+     * @param plan      The plan to invoke
+     * @param instance  The instance to invoke on
+     * @param arguments The arguments, in the order of the parameters
+     * @param scratch   The buffer for the arguments of the default method, or
+     *                  {@code null} to allocate a new one
+     * @return The result of the call
+     */
+    private Object invoke(
+            @NotNull CallPlan plan,
+            @Nullable Object instance,
+            @Nullable Object @NotNull [] arguments,
+            @Nullable Object[] scratch
+    ) {
+        if (coercion != null)
+            arguments = coercion.apply(arguments, plan.mask());
+        InvocationListener listener = Instrumentation.ENABLED ? Instrumentation.listener() : null;
+        if (listener == null)
+            return scratch == null ? plan.call(instance, arguments) : plan.call(instance, arguments, scratch);
+        long start = System.nanoTime();
+        try {
+            return scratch == null ? plan.call(instance, arguments) : plan.call(instance, arguments, scratch);
+        } finally {
+            listener.onInvocation(executable, plan.mask(), plan.usesDefaults(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the given {@code isOptional} function as an {@link OptionalityProfile}
+     * if it is a profile of this executable, otherwise {@code null}
+     */
+    private @Nullable OptionalityProfile profileOf(@NotNull Function<Parameter, Boolean> isOptional) {
+        if (isOptional instanceof OptionalityProfile) {
+            OptionalityProfile profile = (OptionalityProfile) isOptional;
+            if (profile.isFor(executable))
+                return profile;
+        }
+        return null;
+    }
+
+    /**
+     * Rejects calls that can never be satisfied because they have fewer
+     * arguments than the required parameters
+     */
+    void checkRequiredCount(int size, @NotNull Function<Parameter, Boolean> isOptional) {
+        OptionalityProfile profile = profileOf(isOptional);
+        if (profile != null && size < profile.requiredCount())
+            throw new IllegalArgumentException("Expected at least " + profile.requiredCount() + " arguments, but found " + size + ".");
+    }
+
+    private @NotNull IllegalArgumentException missingRequired(int index) {
+        return new IllegalArgumentException("No argument provided for a required parameter: " + parameters[index] + ".");
+    }
+
+    private void checkArity(@Nullable Object @NotNull [] arguments) {
+        if (arguments.length != parameters.length)
+            throw new IllegalArgumentException("Expected " + parameters.length + " arguments, but found " + arguments.length + ".");
+    }
+}
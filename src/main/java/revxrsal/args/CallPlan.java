@@ -0,0 +1,257 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.args.reflect.MethodCaller;
+
+import java.util.Arrays;
+
+/**
+ * A precomputed invocation for a single shape of call, where the shape is
+ * the set of parameters that should use their default values.
+ * <p>
+ * A plan holds a ready-to-copy template of the arguments passed to the
+ * underlying method, in which the mask ints, the placeholder values of
+ * omitted parameters and the trailing {@code DefaultConstructorMarker}
+ * slot are already filled in. Invoking a plan only copies the provided
+ * arguments into a clone of the template.
+ * <p>
+ * This class is immutable, therefore is safe to share across multiple
+ * threads.
+ */
+final class CallPlan {
+
+    /**
+     * The parameters that use their default values in this plan, in 64-bit
+     * words. Bit {@code i} represents the parameter at index {@code i}.
+     */
+    private final long[] mask;
+
+    /**
+     * The caller to invoke. This is either the main method, or the synthetic
+     * default method
+     */
+    private final MethodCaller caller;
+
+    /**
+     * The arguments template, or {@code null} if arguments should be passed
+     * as-is.
+     */
+    private final @Nullable Object[] template;
+
+    /**
+     * The indices of the parameters that are copied from the provided
+     * arguments.
+     */
+    private final int[] slots;
+
+    /**
+     * The slots of direct plans, which copy nothing
+     */
+    private static final int[] NO_SLOTS = new int[0];
+
+    /**
+     * The mask of direct plans of functions with 64 parameters or fewer
+     */
+    private static final long[] NO_DEFAULTS = new long[1];
+
+    private CallPlan(
+            long @NotNull [] mask,
+            @NotNull MethodCaller caller,
+            @Nullable Object[] template,
+            int @NotNull [] slots
+    ) {
+        this.mask = mask;
+        this.caller = caller;
+        this.template = template;
+        this.slots = slots;
+    }
+
+    /**
+     * Creates a plan that passes all arguments directly to the main method
+     *
+     * @param mainCaller The main method caller
+     * @param maskWords  The number of 64-bit words in the mask
+     * @return The new plan
+     */
+    static @NotNull CallPlan direct(@NotNull MethodCaller mainCaller, int maskWords) {
+        return new CallPlan(maskWords == 1 ? NO_DEFAULTS : new long[maskWords], mainCaller, null, NO_SLOTS);
+    }
+
+    /**
+     * Creates a plan that invokes the synthetic default method, with the given
+     * parameters using their default values
+     *
+     * @param defaultCaller The synthetic method caller
+     * @param mask          The parameters that use their default values
+     * @param fillers       The placeholder values for each parameter
+     * @param receivers     The number of leading receiver parameters, which
+     *                      are not part of the masks of the synthetic method
+     * @param trailing      The number of trailing parameters, such as the
+     *                      continuation of suspend functions, which are not
+     *                      part of the masks either
+     * @return The new plan
+     */
+    static @NotNull CallPlan withDefaults(
+            @NotNull MethodCaller defaultCaller,
+            long @NotNull [] mask,
+            @Nullable Object @NotNull [] fillers,
+            int receivers,
+            int trailing
+    ) {
+        int parameterCount = fillers.length;
+        int intMasks = Math.max(1, (parameterCount - receivers - trailing + Integer.SIZE - 1) / Integer.SIZE);
+
+        // parameters, then the int masks, then the DefaultConstructorMarker
+        Object[] template = new Object[parameterCount + intMasks + 1];
+        int[] slots = new int[parameterCount - bitCount(mask)];
+        int slot = 0;
+        for (int i = 0; i < parameterCount; i++) {
+            if (isSet(mask, i))
+                template[i] = fillers[i];
+            else
+                slots[slot++] = i;
+        }
+        for (int i = 0; i < intMasks; i++)
+            template[parameterCount + i] = intMask(mask, receivers + i * Integer.SIZE);
+        return new CallPlan(mask.clone(), defaultCaller, template, slots);
+    }
+
+    /**
+     * Returns the 32 bits of the mask that start at the given bit
+     */
+    private static int intMask(long @NotNull [] mask, int from) {
+        int word = from / Long.SIZE, shift = from % Long.SIZE;
+        long low = word < mask.length ? mask[word] >>> shift : 0;
+        long high = shift != 0 && word + 1 < mask.length ? mask[word + 1] << (Long.SIZE - shift) : 0;
+        return (int) (low | high);
+    }
+
+    /**
+     * Invokes this plan with the given arguments. Arguments of parameters
+     * that use their default values are ignored.
+     *
+     * @param instance  The instance to invoke with
+     * @param arguments The arguments, in the order of the function parameters
+     * @return The function return value
+     */
+    Object call(@Nullable Object instance, @Nullable Object @NotNull [] arguments) {
+        if (template == null)
+            return caller.call(instance, arguments);
+        Object[] args = template.clone();
+        for (int slot : slots)
+            args[slot] = arguments[slot];
+        return caller.call(instance, args);
+    }
+
+    /**
+     * Invokes this plan with the given arguments, building the arguments of
+     * the synthetic default method in the given scratch array instead of a
+     * new copy of the template.
+     * <p>
+     * This is only safe when the scratch array is not shared with other
+     * threads, and the caller does not retain the array it is given.
+     *
+     * @param instance  The instance to invoke with
+     * @param arguments The arguments, in the order of the function parameters
+     * @param scratch   The scratch array, whose length is {@link #argumentCount()}.
+     *                  This is ignored if the plan does not use the default method.
+     * @return The function return value
+     */
+    Object call(@Nullable Object instance, @Nullable Object @NotNull [] arguments, @Nullable Object @NotNull [] scratch) {
+        if (template == null)
+            return caller.call(instance, arguments);
+        System.arraycopy(template, 0, scratch, 0, template.length);
+        for (int slot : slots)
+            scratch[slot] = arguments[slot];
+        return caller.call(instance, scratch);
+    }
+
+    /**
+     * Returns the number of arguments passed to the synthetic default method,
+     * or {@code 0} if this plan does not use it
+     *
+     * @return The argument count
+     */
+    int argumentCount() {
+        return template == null ? 0 : template.length;
+    }
+
+    /**
+     * Tests whether this plan uses the synthetic default method
+     *
+     * @return If this plan uses the default method
+     */
+    boolean usesDefaults() {
+        return template != null;
+    }
+
+    /**
+     * Tests whether this plan is for the given mask
+     *
+     * @param mask The mask. This is only valid for functions with 64 parameters
+     *             or fewer.
+     * @return If this plan matches
+     */
+    boolean matches(long mask) {
+        return this.mask[0] == mask;
+    }
+
+    /**
+     * Tests whether this plan is for the given mask
+     *
+     * @param mask The mask words
+     * @return If this plan matches
+     */
+    boolean matches(long @NotNull [] mask) {
+        return Arrays.equals(this.mask, mask);
+    }
+
+    /**
+     * Returns the parameters that use their default values in this plan
+     *
+     * @return The mask words. This array must not be modified.
+     */
+    long @NotNull [] mask() {
+        return mask;
+    }
+
+    private static boolean isSet(long @NotNull [] mask, int index) {
+        return (mask[index / Long.SIZE] & 1L << index) != 0;
+    }
+
+    private static int bitCount(long @NotNull [] mask) {
+        int count = 0;
+        for (long word : mask)
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "CallPlan(" + caller + ", defaults=" + Arrays.toString(mask) + ")";
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.args.reflect.MethodCaller;
+import revxrsal.args.reflect.MethodCallerFactory;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+
+import static revxrsal.args.DefaultFunctionFinder.findDefaultConstructor;
+import static revxrsal.args.DefaultFunctionFinder.findDefaultFunction;
+
+/**
+ * A cache of {@link CallPlan}s for a single function, keyed by the
+ * parameters that use their default values.
+ * <p>
+ * Plans are created on demand, once per distinct mask, and stored in a
+ * copy-on-write open-addressing table, so that lookups do not lock, box
+ * or allocate. The synthetic default method or constructor is resolved
+ * along with the first plan that needs it.
+ * <p>
+ * This class is thread-safe.
+ */
+final class CallPlanCache {
+
+    /**
+     * The table of functions that were never called with defaults. It is
+     * never written to, as tables are copied when plans are added.
+     */
+    private static final CallPlan[] EMPTY_TABLE = new CallPlan[1];
+
+    private final Executable executable;
+    private final ParameterShape shape;
+    private final MethodCallerFactory factory;
+
+    /**
+     * The plan for calls that provide all parameters
+     */
+    private final CallPlan direct;
+
+    /**
+     * The synthetic default method or constructor, resolved on demand
+     */
+    private volatile @Nullable Defaults defaults;
+
+    private volatile CallPlan[] table = EMPTY_TABLE;
+    private int size; // guarded by this
+
+    CallPlanCache(
+            @NotNull Executable executable,
+            @NotNull ParameterShape shape,
+            @NotNull MethodCaller mainCaller,
+            @NotNull MethodCallerFactory factory
+    ) {
+        this.executable = executable;
+        this.shape = shape;
+        this.factory = factory;
+        this.direct = CallPlan.direct(mainCaller, shape.maskWords());
+    }
+
+    /**
+     * Returns the number of 64-bit words that a mask for this function
+     * requires
+     *
+     * @return The mask words
+     */
+    int maskWords() {
+        return shape.maskWords();
+    }
+
+    /**
+     * Returns the synthetic default method or constructor, resolving it
+     * if necessary
+     *
+     * @return The resolved defaults
+     */
+    @NotNull Defaults defaults() {
+        Defaults defaults = this.defaults;
+        if (defaults == null) {
+            synchronized (this) {
+                defaults = this.defaults;
+                if (defaults == null)
+                    this.defaults = defaults = resolveDefaults();
+            }
+        }
+        return defaults;
+    }
+
+    private @NotNull Defaults resolveDefaults() {
+        if (executable instanceof Method) {
+            CallableMethod defaultMethod = findDefaultFunction((Method) executable, factory);
+            return defaultMethod == null
+                    ? Defaults.NONE
+                    : new Defaults(defaultMethod.getMethod(), defaultMethod.getCaller());
+        }
+        Constructor<?> defaultConstructor = findDefaultConstructor((Constructor<?>) executable);
+        return defaultConstructor == null
+                ? Defaults.NONE
+                : new Defaults(defaultConstructor, MethodCaller.wrap(defaultConstructor, factory));
+    }
+
+    /**
+     * Returns the placeholder value of the parameter at the given index
+     *
+     * @param index The parameter index
+     * @return The placeholder value
+     */
+    @Nullable Object filler(int index) {
+        return shape.filler(index);
+    }
+
+    /**
+     * Returns the plan for the given mask, creating it if necessary.
+     * <p>
+     * This must only be used for functions with 64 parameters or fewer.
+     *
+     * @param mask The parameters that use their default values
+     * @return The call plan
+     */
+    @NotNull CallPlan get(long mask) {
+        if (mask == 0)
+            return direct;
+        CallPlan[] table = this.table;
+        int last = table.length - 1;
+        for (int i = hash(mask) & last; table[i] != null; i = (i + 1) & last) {
+            if (table[i].matches(mask))
+                return table[i];
+        }
+        return create(new long[]{mask});
+    }
+
+    /**
+     * Returns the plan for the given mask, creating it if necessary.
+     *
+     * @param mask The parameters that use their default values, in 64-bit words
+     * @return The call plan
+     */
+    @NotNull CallPlan get(long @NotNull [] mask) {
+        if (isEmpty(mask))
+            return direct;
+        CallPlan[] table = this.table;
+        int last = table.length - 1;
+        for (int i = hash(mask) & last; table[i] != null; i = (i + 1) & last) {
+            if (table[i].matches(mask))
+                return table[i];
+        }
+        return create(mask.clone());
+    }
+
+    private synchronized @NotNull CallPlan create(long @NotNull [] mask) {
+        CallPlan[] table = this.table;
+        int last = table.length - 1;
+        for (int i = hash(mask) & last; table[i] != null; i = (i + 1) & last) {
+            if (table[i].matches(mask))
+                return table[i];
+        }
+        MethodCaller defaultCaller = defaults().caller();
+        if (defaultCaller == null)
+            throw new IllegalArgumentException("This function does not have default parameters. Have you implemented isOptional correctly?");
+        CallPlan plan = CallPlan.withDefaults(defaultCaller, mask, shape.fillers(), shape.receivers(), shape.trailing());
+
+        int capacity = (size + 1) * 2 > table.length ? table.length * 2 : table.length;
+        CallPlan[] newTable = new CallPlan[capacity];
+        for (CallPlan existing : table) {
+            if (existing != null)
+                insert(newTable, existing);
+        }
+        insert(newTable, plan);
+        size++;
+        this.table = newTable;
+        return plan;
+    }
+
+    private static void insert(@NotNull CallPlan[] table, @NotNull CallPlan plan) {
+        int last = table.length - 1;
+        int i = hash(plan.mask()) & last;
+        while (table[i] != null)
+            i = (i + 1) & last;
+        table[i] = plan;
+    }
+
+    private static boolean isEmpty(long @NotNull [] mask) {
+        for (long word : mask) {
+            if (word != 0)
+                return false;
+        }
+        return true;
+    }
+
+    private static int hash(long mask) {
+        long h = mask * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+    private static int hash(long @NotNull [] mask) {
+        long h = 0;
+        for (long word : mask)
+            h = h * 31 + word;
+        return hash(h);
+    }
+
+    /**
+     * The synthetic default method or constructor of a function, along
+     * with its caller
+     */
+    static final class Defaults {
+
+        private static final Defaults NONE = new Defaults(null, null);
+
+        private final @Nullable Executable executable;
+        private final @Nullable MethodCaller caller;
+
+        private Defaults(@Nullable Executable executable, @Nullable MethodCaller caller) {
+            this.executable = executable;
+            this.caller = caller;
+        }
+
+        /**
+         * Returns the synthetic default method or constructor
+         *
+         * @return The executable, or null if there is none
+         */
+        @Nullable Executable executable() {
+            return executable;
+        }
+
+        /**
+         * Returns the caller of the synthetic default method or constructor
+         *
+         * @return The caller, or null if there is none
+         */
+        @Nullable MethodCaller caller() {
+            return caller;
+        }
+    }
+}
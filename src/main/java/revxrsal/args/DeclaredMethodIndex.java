@@ -0,0 +1,209 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An index of the methods declared in a class, keyed by their names and
+ * parameter types.
+ * <p>
+ * The index is built with a single call to {@link Class#getDeclaredMethods()},
+ * and resolves the synthetic default functions of all the methods in the
+ * class in the same pass. This avoids repeated {@link Class#getDeclaredMethod(String, Class[])}
+ * probes, each of which copies the declared methods and throws a
+ * {@link NoSuchMethodException} when missing.
+ * <p>
+ * Indexes are cached per class, and are immutable, therefore are safe to
+ * share across multiple threads.
+ */
+final class DeclaredMethodIndex {
+
+    private static final ClassValue<DeclaredMethodIndex> INDEXES = new ClassValue<DeclaredMethodIndex>() {
+        @Override
+        protected DeclaredMethodIndex computeValue(Class<?> type) {
+            return new DeclaredMethodIndex(type);
+        }
+    };
+
+    private static final String DEFAULT_SUFFIX = "$default";
+    private static final String CONTINUATION = "kotlin.coroutines.Continuation";
+
+    private final Map<Signature, Method> bySignature;
+    private final Map<Method, Method> defaults;
+
+    private DeclaredMethodIndex(@NotNull Class<?> type) {
+        Method[] methods = type.getDeclaredMethods();
+        this.bySignature = new HashMap<>(methods.length * 2);
+        for (Method method : methods)
+            bySignature.put(new Signature(method.getName(), method.getParameterTypes()), method);
+
+        this.defaults = new HashMap<>();
+        for (Method method : methods) {
+            if (method.getName().endsWith(DEFAULT_SUFFIX) || method.getParameterCount() == 0)
+                continue;
+            Method defaultMethod = resolveDefault(type, method);
+            if (defaultMethod != null)
+                defaults.put(method, defaultMethod);
+        }
+    }
+
+    /**
+     * Returns the index of the given class
+     *
+     * @param type The class to index
+     * @return The method index
+     */
+    static @NotNull DeclaredMethodIndex of(@NotNull Class<?> type) {
+        return INDEXES.get(type);
+    }
+
+    /**
+     * Returns the method with the given name and parameter types, or
+     * {@code null} if there is none.
+     *
+     * @param name           The method name
+     * @param parameterTypes The method parameter types
+     * @return The method, or null
+     */
+    @Nullable Method find(@NotNull String name, @NotNull Class<?>[] parameterTypes) {
+        return bySignature.get(new Signature(name, parameterTypes));
+    }
+
+    /**
+     * Returns the synthetic default function of the given method, if it
+     * is declared in the same class. This is either a function with the
+     * same parameters followed by the synthetic ones, or a static function
+     * that additionally takes the declaring class as its first parameter.
+     *
+     * @param method The method. This must be declared in the indexed class.
+     * @return The synthetic default method, or null
+     */
+    @Nullable Method findDefault(@NotNull Method method) {
+        return defaults.get(method);
+    }
+
+    private @Nullable Method resolveDefault(@NotNull Class<?> type, @NotNull Method method) {
+        String name = defaultMethodName(method);
+        Method defaultMethod = find(name, syntheticParameters(method, null));
+        if (defaultMethod != null)
+            return defaultMethod;
+        return find(name, syntheticParameters(method, type));
+    }
+
+    /**
+     * Returns the name of the synthetic default function of the given method
+     *
+     * @param method The method
+     * @return The name of the default function
+     */
+    static @NotNull String defaultMethodName(@NotNull Method method) {
+        return method.getName() + DEFAULT_SUFFIX;
+    }
+
+    /**
+     * Returns the parameter types of the synthetic default function of the
+     * given method: the (optional) receiver type, then the method parameters,
+     * then the int masks and the {@code DefaultConstructorMarker}. The masks
+     * do not cover the trailing {@code Continuation} of suspend functions.
+     *
+     * @param method   The method
+     * @param receiver The receiver type, or null
+     * @return The parameter types
+     */
+    static @NotNull Class<?>[] syntheticParameters(@NotNull Method method, @Nullable Class<?> receiver) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        int offset = receiver == null ? 0 : 1;
+        int masks = (maskedParameters(parameterTypes) + Integer.SIZE - 1) / Integer.SIZE;
+        Class<?>[] parameters = new Class<?>[offset + parameterTypes.length + masks + 1];
+        if (receiver != null)
+            parameters[0] = receiver;
+        System.arraycopy(parameterTypes, 0, parameters, offset, parameterTypes.length);
+        Arrays.fill(parameters, offset + parameterTypes.length, parameters.length - 1, int.class);
+        parameters[parameters.length - 1] = Object.class;
+        return parameters;
+    }
+
+    /**
+     * Returns the number of the given parameters that have a bit in the masks
+     * of the synthetic default function, which are all of them except the
+     * trailing {@code Continuation} of suspend functions
+     *
+     * @param parameterTypes The parameter types of the function
+     * @return The masked parameter count
+     */
+    static int maskedParameters(@NotNull Class<?>[] parameterTypes) {
+        int count = parameterTypes.length;
+        return count > 0 && parameterTypes[count - 1].getName().equals(CONTINUATION) ? count - 1 : count;
+    }
+
+    /**
+     * Tests whether the given synthetic default function takes the receiver
+     * as its first parameter, i.e. whether it was resolved with a receiver
+     * by {@link #syntheticParameters(Method, Class)}.
+     *
+     * @param method        The method
+     * @param defaultMethod The synthetic default function of the method
+     * @return If the default function takes a receiver
+     */
+    static boolean takesReceiver(@NotNull Method method, @NotNull Method defaultMethod) {
+        int masks = (maskedParameters(method.getParameterTypes()) + Integer.SIZE - 1) / Integer.SIZE;
+        return defaultMethod.getParameterCount() == 1 + method.getParameterCount() + masks + 1;
+    }
+
+    /**
+     * A key that consists of a method name and its parameter types
+     */
+    private static final class Signature {
+
+        private final String name;
+        private final Class<?>[] parameterTypes;
+        private final int hash;
+
+        Signature(@NotNull String name, @NotNull Class<?>[] parameterTypes) {
+            this.name = name;
+            this.parameterTypes = parameterTypes;
+            this.hash = 31 * name.hashCode() + Arrays.hashCode(parameterTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Signature)) return false;
+            Signature that = (Signature) o;
+            return hash == that.hash && name.equals(that.name) && Arrays.equals(parameterTypes, that.parameterTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
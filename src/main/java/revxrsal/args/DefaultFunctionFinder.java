@@ -25,15 +25,23 @@ package revxrsal.args;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import revxrsal.args.ResolutionIndex.Binding;
+import revxrsal.args.ResolutionIndex.Resolution;
+import revxrsal.args.metrics.Instrumentation;
+import revxrsal.args.metrics.InvocationListener;
 import revxrsal.args.reflect.MethodCaller;
+import revxrsal.args.reflect.MethodCallerFactory;
+import revxrsal.args.util.KotlinSingletons.CompanionObject;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 
-import static revxrsal.args.util.CollectionUtils.insertAtBeginning;
-import static revxrsal.args.util.KotlinSingletons.findCompanion;
+import static revxrsal.args.DeclaredMethodIndex.defaultMethodName;
+import static revxrsal.args.DeclaredMethodIndex.syntheticParameters;
+import static revxrsal.args.DeclaredMethodIndex.takesReceiver;
+import static revxrsal.args.util.KotlinConstants.defaultConstructorMarker;
+import static revxrsal.args.util.KotlinSingletons.companionOf;
+import static revxrsal.args.util.KotlinSingletons.singletonOf;
 
 /**
  * A utility for finding the default synthetic function generated by
@@ -63,102 +71,128 @@ import static revxrsal.args.util.KotlinSingletons.findCompanion;
  *         the companion object type
  *     </li>
  * </ol>
+ * <p>
+ * Lookups go through a {@link DeclaredMethodIndex} of the declaring class
+ * (and its companion), so the declared methods of each class are only
+ * fetched once. Functions whose resolution was recorded at build time by
+ * {@link revxrsal.args.reflect.InvokerGenerator}, or that an installed
+ * {@link ResolutionIndex} knows of, are looked up directly instead.
+ * <p>
+ * Receivers of {@code $default} methods that belong to an {@code object} or
+ * a companion object are bound to the caller once, rather than taken from
+ * the instance of each call.
+ * <p>
+ * Constructors are simpler, as their synthetic counterpart is always a
+ * constructor of the same class that takes the constructor parameters,
+ * then the int masks, then a {@code DefaultConstructorMarker}.
  */
 final class DefaultFunctionFinder {
 
     private DefaultFunctionFinder() {
     }
 
-    static @Nullable CallableMethod findDefaultFunction(@NotNull Method method) {
+    static @Nullable CallableMethod findDefaultFunction(@NotNull Method method, @NotNull MethodCallerFactory factory) {
+        InvocationListener listener = Instrumentation.ENABLED ? Instrumentation.listener() : null;
+        if (listener == null)
+            return resolveDefaultFunction(method, factory);
+        long start = System.nanoTime();
+        CallableMethod defaultMethod = resolveDefaultFunction(method, factory);
+        listener.onDefaultResolution(method, defaultMethod != null, System.nanoTime() - start);
+        return defaultMethod;
+    }
+
+    private static @Nullable CallableMethod resolveDefaultFunction(@NotNull Method method, @NotNull MethodCallerFactory factory) {
         if (method.getParameterCount() == 0)
             throw new IllegalArgumentException("Method has no parameters!");
 
-        List<Class<?>> syntheticParams = getSyntheticParameters(method);
-        String name = getDefaultMethodName(method);
-
-        Method defaultMethod;
-
-        // 1. look into the declaring class
-        defaultMethod = getDeclaredMethodOrNull(
-                name,
-                method.getDeclaringClass(),
-                syntheticParams
-        );
-        if (defaultMethod != null) {
-            MethodCaller callerForDefault = MethodCaller.wrap(defaultMethod);
-            return CallableMethod.of(
-                    defaultMethod,
-                    callerForDefault
-            );
-        }
-
-        // 2. try the same as above, but with our type as the first parameter.
-        syntheticParams.add(0, method.getDeclaringClass());
-        defaultMethod = getDeclaredMethodOrNull(
-                name,
-                method.getDeclaringClass(),
-                syntheticParams
-        );
-        if (defaultMethod != null) {
-
-            MethodCaller callerForDefault = bindInstanceParameter(defaultMethod);
-            return CallableMethod.of(
-                    defaultMethod,
-                    callerForDefault
-            );
+        Resolution resolution = PrecompiledResolutions.lookup(method);
+        ResolutionIndex index = resolution == null ? ResolutionIndex.installed() : null;
+        if (index != null)
+            resolution = index.lookup(method);
+        if (resolution == null) {
+            resolution = searchDefaultFunction(method);
+            if (index != null)
+                index.record(method, resolution);
         }
 
-        // 2. look into companions
-        Object companion = findCompanion(method.getDeclaringClass());
-        syntheticParams.set(0, companion.getClass());
-        defaultMethod = getDeclaredMethodOrNull(
-                name,
-                companion.getClass(),
-                syntheticParams
-        );
-
+        Method defaultMethod = resolution.defaultMethod();
         if (defaultMethod == null)
             return null;
-
-        MethodCaller callerForDefault = bindInstanceParameter(defaultMethod);
+        MethodCaller callerForDefault;
+        switch (resolution.binding()) {
+            case STATIC:
+                callerForDefault = MethodCaller.wrap(defaultMethod, factory);
+                break;
+            case COMPANION:
+                CompanionObject companion = companionOf(method.getDeclaringClass());
+                callerForDefault = MethodCaller.wrapReceiver(defaultMethod, companion == null ? null : companion.instance(), factory);
+                break;
+            default:
+                // objects and companions are bound once, other classes receive the instance of each call
+                callerForDefault = MethodCaller.wrapReceiver(defaultMethod, singletonOf(method.getDeclaringClass()), factory);
+                break;
+        }
         return CallableMethod.of(
                 defaultMethod,
                 callerForDefault
         );
     }
 
-    private static @NotNull MethodCaller bindInstanceParameter(Method method) {
-        MethodCaller caller = MethodCaller.wrap(method);
-        return (instance, arguments) -> {
-            Object[] boundArgs = insertAtBeginning(arguments, instance);
-            return caller.call(instance, boundArgs);
-        };
+    private static @NotNull Resolution searchDefaultFunction(@NotNull Method method) {
+        // 1. and 2. look into the declaring class
+        Class<?> declaringClass = method.getDeclaringClass();
+        Method defaultMethod = DeclaredMethodIndex.of(declaringClass).findDefault(method);
+        if (defaultMethod != null) {
+            Binding binding = takesReceiver(method, defaultMethod) ? Binding.INSTANCE_FIRST : Binding.STATIC;
+            return Resolution.of(binding, defaultMethod);
+        }
+
+        // 3. look into companions
+        CompanionObject companion = companionOf(declaringClass);
+        if (companion == null)
+            return Resolution.of(Binding.NONE, null);
+        Class<?> companionType = companion.type();
+        defaultMethod = DeclaredMethodIndex.of(companionType).find(
+                defaultMethodName(method),
+                syntheticParameters(method, companionType)
+        );
+        return Resolution.of(Binding.COMPANION, defaultMethod);
     }
 
-    private static @Nullable Method getDeclaredMethodOrNull(
-            @NotNull String name,
-            @NotNull Class<?> type,
-            @NotNull List<Class<?>> parameterTypes
-    ) {
-        try {
-            return type.getDeclaredMethod(
-                    name,
-                    parameterTypes.toArray(new Class[0])
-            );
-        } catch (NoSuchMethodException e) {
-            return null;
-        }
+    static <T> @Nullable Constructor<T> findDefaultConstructor(@NotNull Constructor<T> constructor) {
+        InvocationListener listener = Instrumentation.ENABLED ? Instrumentation.listener() : null;
+        if (listener == null)
+            return resolveDefaultConstructor(constructor);
+        long start = System.nanoTime();
+        Constructor<T> defaultConstructor = resolveDefaultConstructor(constructor);
+        listener.onDefaultResolution(constructor, defaultConstructor != null, System.nanoTime() - start);
+        return defaultConstructor;
     }
 
-    private static @NotNull String getDefaultMethodName(@NotNull Method method) {
-        return method.getName() + "$default";
+    @SuppressWarnings("unchecked")
+    private static <T> @Nullable Constructor<T> resolveDefaultConstructor(@NotNull Constructor<T> constructor) {
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        for (Constructor<?> candidate : constructor.getDeclaringClass().getDeclaredConstructors()) {
+            if (candidate.isSynthetic() && isDefaultOf(candidate.getParameterTypes(), parameterTypes))
+                return (Constructor<T>) candidate;
+        }
+        return null;
     }
 
-    private static @NotNull List<Class<?>> getSyntheticParameters(Method method) {
-        List<Class<?>> parameters = new ArrayList<>(method.getParameterCount() + 3);
-        Collections.addAll(parameters, method.getParameterTypes());
-        parameters.add(int.class);
-        parameters.add(Object.class);
-        return parameters;
+    private static boolean isDefaultOf(@NotNull Class<?>[] candidate, @NotNull Class<?>[] parameterTypes) {
+        // at least one int mask, and the marker
+        if (candidate.length < parameterTypes.length + 2)
+            return false;
+        if (candidate[candidate.length - 1] != defaultConstructorMarker())
+            return false;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (candidate[i] != parameterTypes[i])
+                return false;
+        }
+        for (int i = parameterTypes.length; i < candidate.length - 1; i++) {
+            if (candidate[i] != int.class)
+                return false;
+        }
+        return true;
     }
 }
@@ -0,0 +1,64 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args
+
+import java.util.concurrent.CompletableFuture
+import kotlin.coroutines.Continuation
+import kotlin.coroutines.CoroutineContext
+import kotlin.coroutines.EmptyCoroutineContext
+import kotlin.coroutines.intrinsics.COROUTINE_SUSPENDED
+
+/**
+ * A [Continuation] that completes a [CompletableFuture], which allows
+ * calling suspend functions from Java without blocking a thread.
+ *
+ * The future is completed by whichever thread resumes the continuation,
+ * so dependent stages run on that thread unless an executor is specified.
+ *
+ * If the function returns `Unit`, the future is completed with `Unit`,
+ * as the function may return the value of a function it tail-calls.
+ */
+internal class FutureContinuation<T>(private val returnsUnit: Boolean) : CompletableFuture<T>(), Continuation<T> {
+
+    override val context: CoroutineContext
+        get() = EmptyCoroutineContext
+
+    override fun resumeWith(result: Result<T>) {
+        result.fold({ complete(valueOf(it)) }, ::completeExceptionally)
+    }
+
+    /**
+     * Completes this future with the value returned by the suspend function,
+     * unless the function has suspended, in which case it is completed
+     * later by [resumeWith].
+     */
+    fun completeUnlessSuspended(result: Any?): CompletableFuture<T> {
+        if (result !== COROUTINE_SUSPENDED)
+            complete(valueOf(result))
+        return this
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun valueOf(result: Any?): T = (if (returnsUnit) Unit else result) as T
+}
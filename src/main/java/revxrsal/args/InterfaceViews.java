@@ -0,0 +1,311 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.args.CallDispatcher.View;
+import revxrsal.args.reflect.InterfaceBridges;
+import revxrsal.args.reflect.MethodCaller;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.lang.invoke.MethodType.genericMethodType;
+import static revxrsal.args.util.Preconditions.sneakyThrow;
+
+/**
+ * Implements functional interfaces with {@link KotlinFunction}s.
+ * <p>
+ * The parameters of the interface method are mapped to the parameters of
+ * the function by their names when the interface is compiled with
+ * {@code -parameters} and all the names match, otherwise by their positions.
+ * The parameters of the function that are not mapped use their default values,
+ * so the call plan is resolved once, when the interface is implemented.
+ * <p>
+ * Implementations are spun with {@link LambdaMetafactory}, so that they call
+ * the view directly and can be inlined like any lambda. The call site is linked
+ * once per interface, and only the view is bound for each implementation.
+ * <p>
+ * The metafactory cannot be applied when the class loader of this library
+ * cannot see the interface, or when the method has too many parameters. In
+ * such cases, the implementation is generated by {@link InterfaceBridges} in
+ * a child loader of the interface's loader. Interfaces that are not public
+ * fall back to a {@link Proxy}, unless they have default methods, which a
+ * proxy cannot call.
+ */
+final class InterfaceViews {
+
+    /**
+     * The highest arity of the {@code callN} functions of {@link View}
+     */
+    private static final int MAX_ARITY = 6;
+
+    private static final Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final ClassValue<Implementor> IMPLEMENTORS = new ClassValue<Implementor>() {
+        @Override
+        protected Implementor computeValue(@NotNull Class<?> type) {
+            return implementorOf(type);
+        }
+    };
+
+    private InterfaceViews() {
+    }
+
+    /**
+     * Implements the given interface with the given function
+     *
+     * @param type       The functional interface
+     * @param function   The function to call
+     * @param dispatcher The dispatcher of the function
+     * @param instance   The instance to call the function with
+     * @param isOptional The optional parameters of the function
+     * @param <T>        The interface type
+     * @return The implementation
+     */
+    static <T> @NotNull T implement(
+            @NotNull Class<T> type,
+            @NotNull KotlinFunction function,
+            @NotNull CallDispatcher dispatcher,
+            @Nullable Object instance,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        if (!type.isInterface())
+            throw new IllegalArgumentException(type.getName() + " is not an interface.");
+        if (function.isSuspend())
+            throw new IllegalArgumentException("Suspend functions cannot implement interfaces: " + function.getMethod().getMethod());
+        Implementor implementor = IMPLEMENTORS.get(type);
+        Method method = implementor.method;
+        int[] positions = positionsOf(method, function);
+        checkReturnType(method, function.getMethod().getMethod());
+
+        View view = dispatcher.view(instance, positions, isOptional);
+        return type.cast(implementor.factory.apply(view));
+    }
+
+    private static @NotNull Implementor implementorOf(@NotNull Class<?> type) {
+        Method method = functionalMethod(type);
+        Function<View, Object> factory = spin(type, method);
+        if (factory == null)
+            factory = bridge(type, method);
+        if (factory == null)
+            factory = proxy(type, method);
+        return new Implementor(method, factory);
+    }
+
+    /**
+     * Returns the single abstract method of the given interface
+     */
+    private static @NotNull Method functionalMethod(@NotNull Class<?> type) {
+        Method functional = null;
+        for (Method method : type.getMethods()) {
+            if (!Modifier.isAbstract(method.getModifiers()) || isObjectMethod(method))
+                continue;
+            if (functional != null)
+                throw new IllegalArgumentException(type.getName() + " is not a functional interface. It has more than one abstract method.");
+            functional = method;
+        }
+        if (functional == null)
+            throw new IllegalArgumentException(type.getName() + " is not a functional interface. It has no abstract methods.");
+        return functional;
+    }
+
+    /**
+     * Maps the parameters of the interface method to the indices of the
+     * function parameters, by names if possible, otherwise by positions
+     */
+    private static int @NotNull [] positionsOf(@NotNull Method method, @NotNull KotlinFunction function) {
+        Parameter[] parameters = method.getParameters();
+        List<Parameter> functionParameters = function.getParameters();
+        int[] positions = byName(parameters, function);
+        if (positions == null) {
+            if (parameters.length > functionParameters.size())
+                throw new IllegalArgumentException("Method " + method + " has more parameters than the function " + function.getMethod().getMethod() + ".");
+            positions = new int[parameters.length];
+            for (int i = 0; i < positions.length; i++)
+                positions[i] = i;
+        }
+        for (int i = 0; i < positions.length; i++) {
+            Parameter target = functionParameters.get(positions[i]);
+            if (!wrap(target.getType()).isAssignableFrom(wrap(parameters[i].getType())))
+                throw new IllegalArgumentException("Parameter " + parameters[i] + " of " + method + " cannot be passed to " + target + ".");
+        }
+        return positions;
+    }
+
+    private static int @Nullable [] byName(@NotNull Parameter[] parameters, @NotNull KotlinFunction function) {
+        Map<String, Parameter> byName = function.getParametersByName();
+        List<Parameter> functionParameters = function.getParameters();
+        int[] positions = new int[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter target = parameters[i].isNamePresent() ? byName.get(parameters[i].getName()) : null;
+            if (target == null)
+                return null;
+            positions[i] = functionParameters.indexOf(target);
+        }
+        return positions;
+    }
+
+    private static void checkReturnType(@NotNull Method method, @NotNull Method function) {
+        Class<?> returnType = method.getReturnType();
+        if (returnType != void.class && !wrap(returnType).isAssignableFrom(wrap(function.getReturnType())))
+            throw new IllegalArgumentException("Method " + method + " cannot return the result of " + function + ".");
+    }
+
+    /**
+     * Spins a class that implements the interface method by calling the view,
+     * and returns a function that binds views to it, or {@code null} if the
+     * metafactory cannot be applied
+     */
+    private static @Nullable Function<View, Object> spin(@NotNull Class<?> type, @NotNull Method method) {
+        int arity = method.getParameterCount();
+        if (arity > MAX_ARITY || !isAccessible(type))
+            return null;
+        // the spun class resolves all of these through the loader of this class
+        ClassLoader host = InterfaceViews.class.getClassLoader();
+        if (!isVisible(type, host) || !isVisible(method.getReturnType(), host))
+            return null;
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!isVisible(parameterType, host))
+                return null;
+        }
+        try {
+            MethodHandle target = LOOKUP.findVirtual(View.class, "call" + arity, genericMethodType(arity));
+            MethodType methodType = MethodType.methodType(method.getReturnType(), method.getParameterTypes());
+            CallSite site = LambdaMetafactory.metafactory(
+                    LOOKUP,
+                    method.getName(),
+                    MethodType.methodType(type, View.class),
+                    methodType,
+                    target,
+                    methodType
+            );
+            MethodHandle factory = site.getTarget().asType(MethodType.methodType(Object.class, View.class));
+            return view -> {
+                try {
+                    return (Object) factory.invokeExact(view);
+                } catch (Throwable e) {
+                    throw sneakyThrow(e);
+                }
+            };
+        } catch (Throwable e) {
+            // inaccessible types, incompatible signatures, etc.
+            return null;
+        }
+    }
+
+    /**
+     * Generates a class in a child loader of the interface's loader, and
+     * returns a function that creates instances of it around views, or
+     * {@code null} if the interface or its types are not public
+     */
+    private static @Nullable Function<View, Object> bridge(@NotNull Class<?> type, @NotNull Method method) {
+        Function<MethodCaller, ?> bridge = InterfaceBridges.factoryFor(type, method);
+        if (bridge == null)
+            return null;
+        return view -> bridge.apply((instance, arguments) -> view.call(arguments));
+    }
+
+    private static @NotNull Function<View, Object> proxy(@NotNull Class<?> type, @NotNull Method method) {
+        for (Method other : type.getMethods()) {
+            if (other.isDefault())
+                throw new IllegalArgumentException(type.getName() + " is not public and has default methods, which cannot be called through a proxy.");
+        }
+        String name = method.getName();
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        return view -> Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, invoked, args) -> {
+            if (invoked.getName().equals(name) && Arrays.equals(invoked.getParameterTypes(), parameterTypes))
+                return view.call(args == null ? new Object[0] : args);
+            switch (invoked.getName()) {
+                case "equals":
+                    return self == args[0];
+                case "hashCode":
+                    return System.identityHashCode(self);
+                default:
+                    // toString, as default methods are rejected above
+                    return type.getName() + "@" + Integer.toHexString(System.identityHashCode(self));
+            }
+        });
+    }
+
+    private static boolean isObjectMethod(@NotNull Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static boolean isAccessible(@NotNull Class<?> type) {
+        for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers()))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isVisible(@NotNull Class<?> type, @Nullable ClassLoader loader) {
+        while (type.isArray())
+            type = type.getComponentType();
+        if (type.isPrimitive())
+            return true;
+        try {
+            return Class.forName(type.getName(), false, loader) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static @NotNull Class<?> wrap(@NotNull Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    /**
+     * Creates the implementations of a single functional interface
+     */
+    private static final class Implementor {
+
+        private final Method method;
+        private final Function<View, Object> factory;
+
+        Implementor(@NotNull Method method, @NotNull Function<View, Object> factory) {
+            this.method = method;
+            this.factory = factory;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+import revxrsal.args.metadata.FunctionMetadata;
+import revxrsal.args.reflect.MethodCallerFactory;
+import revxrsal.args.util.Preconditions;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Parameter;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A simple wrapper around a constructor declared in Kotlin. This is the
+ * counterpart of {@link KotlinFunction} for constructors, which allows
+ * creating objects using the default values of constructor parameters,
+ * and named parameters.
+ * <p>
+ * Constructors with default values compile to a synthetic constructor
+ * that takes the parameters, followed by the masks of the parameters that
+ * use their default values and a {@code DefaultConstructorMarker}. Calls
+ * are dispatched to it with the same precomputed plans as functions, so
+ * creating an object only copies the given arguments.
+ * <p>
+ * The constructors of inner classes take the outer instance as their
+ * first parameter.
+ * <p>
+ * This class is thread-safe, as it is immutable and uses synchronization
+ * for lazy reflection fetching.
+ *
+ * @param <T> The type of the created objects
+ */
+public interface KotlinConstructor<T> {
+
+    /**
+     * Generates a {@link KotlinConstructor} for the given {@link Constructor}.
+     * <p>
+     * Constructors are cached, so wrapping the same constructor again returns
+     * the same instance. See {@link KotlinFunction#cache()}.
+     *
+     * @param constructor The constructor to wrap
+     * @param <T>         The type of the created objects
+     * @return The wrapper {@link KotlinConstructor}
+     */
+    static <T> @NotNull KotlinConstructor<T> wrap(@NotNull Constructor<T> constructor) {
+        return wrap(constructor, MethodCallerFactory.methodHandles());
+    }
+
+    /**
+     * Generates a {@link KotlinConstructor} for the given {@link Constructor},
+     * which uses the given {@link MethodCallerFactory} to create the callers of
+     * the constructor and the synthetic default constructor.
+     * <p>
+     * Constructors are cached, so wrapping the same constructor again with the
+     * same factory returns the same instance. See {@link KotlinFunction#cache()}.
+     *
+     * @param constructor The constructor to wrap
+     * @param factory     The method caller factory
+     * @param <T>         The type of the created objects
+     * @return The wrapper {@link KotlinConstructor}
+     * @throws IllegalArgumentException if the class cannot be instantiated
+     */
+    static <T> @NotNull KotlinConstructor<T> wrap(
+            @NotNull Constructor<T> constructor,
+            @NotNull MethodCallerFactory factory
+    ) {
+        Preconditions.checkNotNull(constructor, "constructor");
+        Preconditions.checkNotNull(factory, "factory");
+        return KotlinFunctionCache.global().get(constructor, factory);
+    }
+
+    /**
+     * Creates an object with the given arguments, in the order of the
+     * constructor parameters.
+     * <p>
+     * To use the default value of a parameter, pass a {@code null} in its place.
+     *
+     * @param arguments  The arguments to invoke with
+     * @param isOptional A function that guides this invocation into knowing
+     *                   which parameters are optional. See
+     *                   {@link KotlinFunction#call(Object, List, Function)}.
+     * @return The created object
+     */
+    @NotNull T call(
+            @NotNull List<Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Creates an object with the given arguments, mapped by the index
+     * of each parameter. Indexing starts from zero.
+     *
+     * @param arguments  The arguments to invoke with
+     * @param isOptional A function that guides this invocation into knowing
+     *                   which parameters are optional. See
+     *                   {@link KotlinFunction#call(Object, List, Function)}.
+     * @return The created object
+     */
+    @NotNull T callByIndices(
+            @NotNull Map<Integer, Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Creates an object with the given arguments, mapped by the
+     * {@link Parameter} object representing each parameter.
+     *
+     * @param arguments  The arguments to invoke with
+     * @param isOptional A function that guides this invocation into knowing
+     *                   which parameters are optional. See
+     *                   {@link KotlinFunction#call(Object, List, Function)}.
+     * @return The created object
+     */
+    @NotNull T callByParameters(
+            @NotNull Map<Parameter, Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Creates an object with the given arguments, mapped by the name
+     * of each parameter. This is the common case of mapping the properties
+     * of a serialized object to a data class.
+     *
+     * @param arguments  The arguments to invoke with
+     * @param isOptional A function that guides this invocation into knowing
+     *                   which parameters are optional. See
+     *                   {@link KotlinFunction#call(Object, List, Function)}.
+     * @return The created object
+     */
+    @NotNull T callByNames(
+            @NotNull Map<String, Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Creates an object with the given arguments, in the order of the
+     * constructor parameters, where the parameters that are present are
+     * specified by a bitmask. Bit {@code i} of {@code present} represents
+     * the parameter at index {@code i}.
+     * <p>
+     * See {@link KotlinFunction#callPositional(Object, Object[], long, Function)}.
+     *
+     * @param arguments  The arguments to invoke with. The length of this array
+     *                   must match the number of parameters.
+     * @param present    The bitmask of the present parameters
+     * @param isOptional A function that guides this invocation into knowing
+     *                   which parameters are optional. See
+     *                   {@link KotlinFunction#call(Object, List, Function)}.
+     * @return The created object
+     */
+    @NotNull T callPositional(
+            @Nullable Object @NotNull [] arguments,
+            long present,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Creates an object with the given arguments, in the order of the
+     * constructor parameters, where the parameters that are present are
+     * specified by a bitmask split into 64-bit words.
+     * <p>
+     * See {@link KotlinFunction#callPositional(Object, Object[], long[], Function)}.
+     *
+     * @param arguments  The arguments to invoke with. The length of this array
+     *                   must match the number of parameters.
+     * @param present    The bitmask of the present parameters
+     * @param isOptional A function that guides this invocation into knowing
+     *                   which parameters are optional. See
+     *                   {@link KotlinFunction#call(Object, List, Function)}.
+     * @return The created object
+     */
+    @NotNull T callPositional(
+            @Nullable Object @NotNull [] arguments,
+            long @NotNull [] present,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Returns a view of this constructor that converts the arguments of every
+     * call with the given {@link ArgumentCoercion}, before they are passed to
+     * the constructor. The converters of the parameters are resolved once,
+     * when the view is created.
+     * <p>
+     * The view shares everything else with this constructor, including the
+     * call plans and the synthetic default constructor.
+     *
+     * @param coercion The coercion to convert arguments with
+     * @return The converting constructor
+     */
+    @NotNull KotlinConstructor<T> withCoercion(@NotNull ArgumentCoercion coercion);
+
+    /**
+     * Returns the constructor that this wraps
+     *
+     * @return The constructor
+     */
+    @NotNull Constructor<T> getConstructor();
+
+    /**
+     * Returns the synthetic constructor generated by the Kotlin compiler
+     * for invoking a constructor with the default values. This may be
+     * null for constructors which contain no default values.
+     * <p>
+     * Note that the synthetic constructor is searched for on demand only.
+     * This function will attempt to find one on the first call.
+     *
+     * @return The synthetic constructor
+     */
+    @Nullable Constructor<T> getDefaultSyntheticConstructor();
+
+    /**
+     * Returns the Kotlin metadata of this constructor, which is read from
+     * the {@code kotlin.Metadata} annotation of its class. This may be null
+     * if the metadata is absent or could not be read.
+     *
+     * @return The constructor metadata
+     */
+    @Nullable FunctionMetadata getMetadata();
+
+    /**
+     * Returns the constructor parameters.
+     * <p>
+     * This list is unmodifiable.
+     *
+     * @return The constructor parameters
+     */
+    @Unmodifiable @NotNull List<Parameter> getParameters();
+
+    /**
+     * Returns the constructor parameters and their names, as declared
+     * in the Kotlin source.
+     * <p>
+     * Names are taken from the Kotlin metadata when available, so they are
+     * correct even if the code was compiled without {@code -java-parameters}.
+     * <p>
+     * This map is unmodifiable.
+     *
+     * @return The constructor parameters
+     */
+    @Unmodifiable @NotNull Map<String, Parameter> getParametersByName();
+
+    /**
+     * Returns the parameter by the given name, otherwise throws
+     * an {@link IllegalArgumentException}
+     *
+     * @param name The parameter name.
+     * @return The parameter
+     */
+    @NotNull Parameter getParameter(@NotNull String name);
+
+    /**
+     * Returns the parameter by the given index, otherwise throws
+     * an {@link IndexOutOfBoundsException}
+     *
+     * @param index The parameter index.
+     * @return The parameter
+     * @throws IndexOutOfBoundsException if out of bounds
+     */
+    @NotNull Parameter getParameter(int index) throws IndexOutOfBoundsException;
+
+}
@@ -0,0 +1,176 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+import revxrsal.args.metadata.FunctionMetadata;
+import revxrsal.args.metadata.KotlinMetadata;
+import revxrsal.args.reflect.MethodCaller;
+import revxrsal.args.reflect.MethodCallerFactory;
+import revxrsal.args.util.Preconditions;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+
+final class KotlinConstructorImpl<T> implements KotlinConstructor<T> {
+
+    private final Constructor<T> constructor;
+    private final @Nullable FunctionMetadata metadata;
+    private final CallDispatcher dispatcher;
+
+    public KotlinConstructorImpl(@NotNull Constructor<T> constructor, @NotNull MethodCallerFactory factory) {
+        Class<T> type = constructor.getDeclaringClass();
+        if (Modifier.isAbstract(type.getModifiers()) || type.isEnum())
+            throw new IllegalArgumentException("Cannot create instances of " + type + ".");
+        this.constructor = constructor;
+        this.metadata = KotlinMetadata.of(constructor);
+        Parameter[] parameters = constructor.getParameters();
+        String[] names = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            String name = metadata == null ? null : metadata.getParameterName(i);
+            names[i] = name == null ? parameters[i].getName() : name;
+        }
+        MethodCaller mainCaller = MethodCaller.wrap(constructor, factory);
+        // the outer instance of inner classes is not part of the masks
+        int receivers = type.isMemberClass() && !Modifier.isStatic(type.getModifiers()) ? 1 : 0;
+        this.dispatcher = new CallDispatcher(constructor, parameters, names, mainCaller, factory, receivers, 0);
+    }
+
+    private KotlinConstructorImpl(
+            @NotNull Constructor<T> constructor,
+            @Nullable FunctionMetadata metadata,
+            @NotNull CallDispatcher dispatcher
+    ) {
+        this.constructor = constructor;
+        this.metadata = metadata;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public @NotNull T call(
+            @NotNull List<Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        dispatcher.checkRequiredCount(arguments.size(), isOptional);
+        return dispatcher.call(null, dispatcher.argumentsOf(arguments), isOptional);
+    }
+
+    @Override
+    public @NotNull T callByIndices(
+            @NotNull Map<Integer, Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        dispatcher.checkRequiredCount(arguments.size(), isOptional);
+        return dispatcher.call(null, dispatcher.argumentsOfIndices(arguments), isOptional);
+    }
+
+    @Override
+    public @NotNull T callByParameters(
+            @NotNull Map<Parameter, Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        dispatcher.checkRequiredCount(arguments.size(), isOptional);
+        return dispatcher.call(null, dispatcher.argumentsOfParameters(arguments), isOptional);
+    }
+
+    @Override
+    public @NotNull T callByNames(
+            @NotNull Map<String, Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        dispatcher.checkRequiredCount(arguments.size(), isOptional);
+        return dispatcher.call(null, dispatcher.argumentsOfNames(arguments), isOptional);
+    }
+
+    @Override
+    public @NotNull T callPositional(
+            @Nullable Object @NotNull [] arguments,
+            long present,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        return dispatcher.callPositional(null, arguments, present, isOptional);
+    }
+
+    @Override
+    public @NotNull T callPositional(
+            @Nullable Object @NotNull [] arguments,
+            long @NotNull [] present,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        return dispatcher.callPositional(null, arguments, present, isOptional);
+    }
+
+    @NotNull CallDispatcher dispatcher() {
+        return dispatcher;
+    }
+
+    @Override
+    public @NotNull KotlinConstructor<T> withCoercion(@NotNull ArgumentCoercion coercion) {
+        Preconditions.checkNotNull(coercion, "coercion");
+        return new KotlinConstructorImpl<>(constructor, metadata, dispatcher.withCoercion(coercion));
+    }
+
+    @Override
+    public @NotNull Constructor<T> getConstructor() {
+        return constructor;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public @Nullable Constructor<T> getDefaultSyntheticConstructor() {
+        return (Constructor<T>) dispatcher.defaultExecutable();
+    }
+
+    @Override
+    public @Nullable FunctionMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public @Unmodifiable @NotNull List<Parameter> getParameters() {
+        return dispatcher.parameters();
+    }
+
+    @Override
+    public @Unmodifiable @NotNull Map<String, Parameter> getParametersByName() {
+        return dispatcher.parametersByName();
+    }
+
+    @Override
+    public @NotNull Parameter getParameter(@NotNull String name) {
+        return dispatcher.parameter(dispatcher.indexOf(name));
+    }
+
+    @Override
+    public @NotNull Parameter getParameter(int index) {
+        return dispatcher.parameter(index);
+    }
+}
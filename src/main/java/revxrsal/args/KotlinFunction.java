@@ -26,12 +26,15 @@ package revxrsal.args;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
+import revxrsal.args.metadata.FunctionMetadata;
+import revxrsal.args.reflect.MethodCallerFactory;
 import revxrsal.args.util.Preconditions;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 /**
@@ -47,13 +50,44 @@ public interface KotlinFunction {
 
     /**
      * Generates a {@link KotlinFunction} for the given {@link Method}.
+     * <p>
+     * Functions are cached, so wrapping the same method again returns
+     * the same instance. See {@link #cache()}.
      *
      * @param method The method to wrap
      * @return The wrapper {@link KotlinFunction}
      */
     static @NotNull KotlinFunction wrap(@NotNull Method method) {
+        return wrap(method, MethodCallerFactory.methodHandles());
+    }
+
+    /**
+     * Generates a {@link KotlinFunction} for the given {@link Method}, which
+     * uses the given {@link MethodCallerFactory} to create the callers of
+     * the main method and the synthetic default method.
+     * <p>
+     * Functions are cached, so wrapping the same method again with the
+     * same factory returns the same instance. See {@link #cache()}.
+     *
+     * @param method  The method to wrap
+     * @param factory The method caller factory
+     * @return The wrapper {@link KotlinFunction}
+     * @see MethodCallerFactory#lambdaMetafactory()
+     */
+    static @NotNull KotlinFunction wrap(@NotNull Method method, @NotNull MethodCallerFactory factory) {
         Preconditions.checkNotNull(method, "method");
-        return new KotlinFunctionImpl(method);
+        Preconditions.checkNotNull(factory, "factory");
+        return KotlinFunctionCache.global().get(method, factory);
+    }
+
+    /**
+     * Returns the global cache of wrapped functions, which can be used to
+     * inspect its statistics, or to invalidate it when classes are reloaded.
+     *
+     * @return The function cache
+     */
+    static @NotNull KotlinFunctionCache cache() {
+        return KotlinFunctionCache.global();
     }
 
     /**
@@ -200,6 +234,347 @@ public interface KotlinFunction {
             @NotNull Function<Parameter, Boolean> isOptional
     );
 
+    /**
+     * Calls the function with the given arguments, without blocking the
+     * calling thread if it is a suspend function. The arguments are the same
+     * as in {@link #call(Object, List, Function)}, without the continuation.
+     * <p>
+     * Suspend functions are invoked with a continuation that completes the
+     * returned future. If the function returns without suspending, the future
+     * is already complete when this returns. Otherwise, it is completed by
+     * the thread that resumes the function, which is also where dependent
+     * stages run unless an executor is given to them.
+     * <p>
+     * Functions that are not suspend are called directly, and their result
+     * is returned as a completed future.
+     * <p>
+     * Any exception thrown by the call completes the future exceptionally.
+     *
+     * @param instance   Instance to call the function with
+     * @param arguments  The arguments to invoke with
+     * @param isOptional A function that guides this invocation
+     *                   into knowing which parameters are optional.
+     *                   See {@link #call(Object, List, Function)}.
+     * @param <T>        The function return type
+     * @return A future of the function return value
+     */
+    <T> @NotNull CompletableFuture<T> callAsync(
+            @Nullable Object instance,
+            @NotNull List<Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Calls the function with the given arguments, mapped by the index
+     * of each parameter, without blocking the calling thread if it is a
+     * suspend function.
+     * <p>
+     * See {@link #callAsync(Object, List, Function)} for how suspend
+     * functions are invoked.
+     *
+     * @param instance   Instance to call the function with
+     * @param arguments  The arguments to invoke with
+     * @param isOptional A function that guides this invocation
+     *                   into knowing which parameters are optional.
+     *                   See {@link #callByIndices(Object, Map, Function)}.
+     * @param <T>        The function return type
+     * @return A future of the function return value
+     */
+    <T> @NotNull CompletableFuture<T> callByIndicesAsync(
+            @Nullable Object instance,
+            @NotNull Map<Integer, Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Calls the function with the given arguments, mapped by the
+     * {@link Parameter} object representing each parameter, without blocking
+     * the calling thread if it is a suspend function.
+     * <p>
+     * See {@link #callAsync(Object, List, Function)} for how suspend
+     * functions are invoked.
+     *
+     * @param instance   Instance to call the function with
+     * @param arguments  The arguments to invoke with
+     * @param isOptional A function that guides this invocation
+     *                   into knowing which parameters are optional.
+     *                   See {@link #callByParameters(Object, Map, Function)}.
+     * @param <T>        The function return type
+     * @return A future of the function return value
+     */
+    <T> @NotNull CompletableFuture<T> callByParametersAsync(
+            @Nullable Object instance,
+            @NotNull Map<Parameter, Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Calls the function with the given arguments, mapped by the name
+     * of each parameter, without blocking the calling thread if it is a
+     * suspend function.
+     * <p>
+     * See {@link #callAsync(Object, List, Function)} for how suspend
+     * functions are invoked.
+     *
+     * @param instance   Instance to call the function with
+     * @param arguments  The arguments to invoke with
+     * @param isOptional A function that guides this invocation
+     *                   into knowing which parameters are optional.
+     *                   See {@link #callByNames(Object, Map, Function)}.
+     * @param <T>        The function return type
+     * @return A future of the function return value
+     */
+    <T> @NotNull CompletableFuture<T> callByNamesAsync(
+            @Nullable Object instance,
+            @NotNull Map<String, Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Calls the suspend function with the given arguments and the given
+     * continuation. The arguments are the same as in
+     * {@link #call(Object, List, Function)}, without the continuation, which
+     * is placed in the last parameter.
+     * <p>
+     * This is the low-level entry point used by the suspend extensions
+     * in Kotlin. It returns either the function result, or
+     * {@code COROUTINE_SUSPENDED} if the function suspended, in which case
+     * the result is delivered to the continuation.
+     *
+     * @param instance     Instance to call the function with
+     * @param arguments    The arguments to invoke with
+     * @param continuation The {@code kotlin.coroutines.Continuation} to pass
+     * @param isOptional   A function that guides this invocation
+     *                     into knowing which parameters are optional.
+     *                     See {@link #call(Object, List, Function)}.
+     * @param <T>          The function return type
+     * @return The function return value, or {@code COROUTINE_SUSPENDED}
+     * @throws IllegalArgumentException if the function is not a suspend function
+     */
+    <T> T callSuspend(
+            @Nullable Object instance,
+            @NotNull List<Object> arguments,
+            @NotNull Object continuation,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Calls the suspend function with the given arguments, mapped by the index
+     * of each parameter, and the given continuation.
+     * <p>
+     * See {@link #callSuspend(Object, List, Object, Function)}.
+     *
+     * @param instance     Instance to call the function with
+     * @param arguments    The arguments to invoke with
+     * @param continuation The {@code kotlin.coroutines.Continuation} to pass
+     * @param isOptional   A function that guides this invocation
+     *                     into knowing which parameters are optional.
+     *                     See {@link #callByIndices(Object, Map, Function)}.
+     * @param <T>          The function return type
+     * @return The function return value, or {@code COROUTINE_SUSPENDED}
+     * @throws IllegalArgumentException if the function is not a suspend function
+     */
+    <T> T callByIndicesSuspend(
+            @Nullable Object instance,
+            @NotNull Map<Integer, Object> arguments,
+            @NotNull Object continuation,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Calls the suspend function with the given arguments, mapped by the
+     * {@link Parameter} object representing each parameter, and the given
+     * continuation.
+     * <p>
+     * See {@link #callSuspend(Object, List, Object, Function)}.
+     *
+     * @param instance     Instance to call the function with
+     * @param arguments    The arguments to invoke with
+     * @param continuation The {@code kotlin.coroutines.Continuation} to pass
+     * @param isOptional   A function that guides this invocation
+     *                     into knowing which parameters are optional.
+     *                     See {@link #callByParameters(Object, Map, Function)}.
+     * @param <T>          The function return type
+     * @return The function return value, or {@code COROUTINE_SUSPENDED}
+     * @throws IllegalArgumentException if the function is not a suspend function
+     */
+    <T> T callByParametersSuspend(
+            @Nullable Object instance,
+            @NotNull Map<Parameter, Object> arguments,
+            @NotNull Object continuation,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Calls the suspend function with the given arguments, mapped by the name
+     * of each parameter, and the given continuation.
+     * <p>
+     * See {@link #callSuspend(Object, List, Object, Function)}.
+     *
+     * @param instance     Instance to call the function with
+     * @param arguments    The arguments to invoke with
+     * @param continuation The {@code kotlin.coroutines.Continuation} to pass
+     * @param isOptional   A function that guides this invocation
+     *                     into knowing which parameters are optional.
+     *                     See {@link #callByNames(Object, Map, Function)}.
+     * @param <T>          The function return type
+     * @return The function return value, or {@code COROUTINE_SUSPENDED}
+     * @throws IllegalArgumentException if the function is not a suspend function
+     */
+    <T> T callByNamesSuspend(
+            @Nullable Object instance,
+            @NotNull Map<String, Object> arguments,
+            @NotNull Object continuation,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Calls the function with the given arguments, in the order of the
+     * function parameters, where the parameters that are present are
+     * specified by a bitmask. Bit {@code i} of {@code present} represents
+     * the parameter at index {@code i}.
+     * <p>
+     * Unlike the other {@code call} functions, this does not treat {@code null}
+     * as absent, so {@code null}s can be passed explicitly. Arguments of absent
+     * parameters are ignored.
+     * <p>
+     * This goes straight to the main method or the synthetic default method,
+     * without creating any intermediate collections. The given array is not
+     * modified or retained.
+     * <p>
+     * This only supports functions that have 64 parameters or fewer. For
+     * larger functions, see {@link #callPositional(Object, Object[], long[], Function)}.
+     *
+     * @param instance   Instance to call the function with
+     * @param arguments  The arguments to invoke with. The length of this array
+     *                   must match the number of parameters.
+     * @param present    The bitmask of the present parameters
+     * @param isOptional A function that guides this invocation
+     *                   into knowing which parameters are optional,
+     *                   so it can use their default values, and which
+     *                   ones are not, so it can report errors as appropriate
+     *                   when missing.
+     *                   <p>
+     *                   This should either test for a certain annotation
+     *                   if you have access to the source function, or check against
+     *                   a pre-defined list of parameter names assembled by the
+     *                   developer, or any other strategy that correctly
+     *                   reports whether a parameter is optional or not.
+     *                   <p>
+     *                   This parameter is necessary as it allows us to drop
+     *                   the dependency on kotlin-reflect.
+     * @param <T>        The function return type
+     * @return The function return value
+     */
+    <T> T callPositional(
+            @Nullable Object instance,
+            @Nullable Object @NotNull [] arguments,
+            long present,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Calls the function with the given arguments, in the order of the
+     * function parameters, where the parameters that are present are
+     * specified by a bitmask split into 64-bit words. Bit {@code i % 64}
+     * of {@code present[i / 64]} represents the parameter at index {@code i}.
+     * <p>
+     * See {@link #callPositional(Object, Object[], long, Function)}.
+     *
+     * @param instance   Instance to call the function with
+     * @param arguments  The arguments to invoke with. The length of this array
+     *                   must match the number of parameters.
+     * @param present    The bitmask of the present parameters
+     * @param isOptional A function that guides this invocation
+     *                   into knowing which parameters are optional,
+     *                   so it can use their default values, and which
+     *                   ones are not, so it can report errors as appropriate
+     *                   when missing.
+     *                   <p>
+     *                   This should either test for a certain annotation
+     *                   if you have access to the source function, or check against
+     *                   a pre-defined list of parameter names assembled by the
+     *                   developer, or any other strategy that correctly
+     *                   reports whether a parameter is optional or not.
+     *                   <p>
+     *                   This parameter is necessary as it allows us to drop
+     *                   the dependency on kotlin-reflect.
+     * @param <T>        The function return type
+     * @return The function return value
+     */
+    <T> T callPositional(
+            @Nullable Object instance,
+            @Nullable Object @NotNull [] arguments,
+            long @NotNull [] present,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Implements the given functional interface with this function. Calling
+     * the interface method calls this function with its arguments.
+     * <p>
+     * The parameters of the interface method are mapped to the parameters
+     * of this function by their names if the interface was compiled with
+     * {@code -parameters} and all the names match, otherwise by their positions.
+     * The parameters of this function that are not mapped use their default
+     * values. As these are known ahead of time, the synthetic default method
+     * is resolved once, and calls go straight to it without any intermediate
+     * collections. {@code null}s are passed as-is.
+     * <p>
+     * For example, the following interface can be implemented with
+     * {@code fun greet(name: String, greeting: String = "Hi")}:
+     * <pre>
+     *     public interface Greeter {
+     *         String greet(String name);
+     *     }
+     * </pre>
+     * The implementation is generated with {@link java.lang.invoke.LambdaMetafactory}
+     * when the interface is public, so that calls through it can be inlined.
+     * Otherwise, it is a {@link java.lang.reflect.Proxy}.
+     *
+     * @param type       The functional interface to implement
+     * @param instance   Instance to call the function with
+     * @param isOptional A function that guides this invocation
+     *                   into knowing which parameters are optional,
+     *                   so it can use their default values, and which
+     *                   ones are not, so it can report errors as appropriate
+     *                   when missing.
+     *                   <p>
+     *                   This should either test for a certain annotation
+     *                   if you have access to the source function, or check against
+     *                   a pre-defined list of parameter names assembled by the
+     *                   developer, or any other strategy that correctly
+     *                   reports whether a parameter is optional or not.
+     *                   <p>
+     *                   This parameter is necessary as it allows us to drop
+     *                   the dependency on kotlin-reflect.
+     * @param <T>        The interface type
+     * @return The implementation of the interface
+     * @throws IllegalArgumentException if the type is not a functional interface,
+     *                                  its parameters or return type do not match
+     *                                  this function, or a parameter that it does not
+     *                                  provide is required
+     */
+    <T> @NotNull T asInterface(
+            @NotNull Class<T> type,
+            @Nullable Object instance,
+            @NotNull Function<Parameter, Boolean> isOptional
+    );
+
+    /**
+     * Returns a view of this function that converts the arguments of every
+     * call with the given {@link ArgumentCoercion}, before they are passed to
+     * the function. The converters of the parameters are resolved once, when
+     * the view is created.
+     * <p>
+     * The view shares everything else with this function, including the
+     * call plans and the synthetic default method.
+     *
+     * @param coercion The coercion to convert arguments with
+     * @return The converting function
+     */
+    @NotNull KotlinFunction withCoercion(@NotNull ArgumentCoercion coercion);
+
     /**
      * Returns the method that this function wraps
      *
@@ -219,6 +594,19 @@ public interface KotlinFunction {
      */
     @Nullable CallableMethod getDefaultSyntheticMethod();
 
+    /**
+     * Returns the Kotlin metadata of this function, which is read from
+     * the {@code kotlin.Metadata} annotation of its class. This may be null
+     * if the metadata is absent or could not be read.
+     * <p>
+     * When present, it is used for the parameter names and for
+     * {@link #isSuspend()}, and can be used for finding the optional
+     * parameters with {@link OptionalityProfile#fromMetadata(KotlinFunction)}.
+     *
+     * @return The function metadata
+     */
+    @Nullable FunctionMetadata getMetadata();
+
     /**
      * Returns the real function parameters, as declared in the Kotlin source.
      * <p>
@@ -235,6 +623,9 @@ public interface KotlinFunction {
      * Returns the real function parameters and their names, as declared
      * in the Kotlin source.
      * <p>
+     * Names are taken from the Kotlin metadata when available, so they are
+     * correct even if the code was compiled without {@code -java-parameters}.
+     * <p>
      * This will not include the leading parameter in {@code object} functions,
      * which is generated by the compiler.
      * <p>
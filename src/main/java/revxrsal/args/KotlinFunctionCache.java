@@ -0,0 +1,261 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+import revxrsal.args.reflect.MethodCallerFactory;
+import revxrsal.args.util.Preconditions;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of {@link KotlinFunction}s, used by {@link KotlinFunction#wrap(Method)}
+ * so that wrapping the same method repeatedly returns the same instance, along with
+ * all of its resolved reflection elements. {@link KotlinConstructor}s are cached
+ * alongside the functions of their class.
+ * <p>
+ * Functions are stored per declaring class using a {@link ClassValue}, so the cache
+ * does not prevent classes (and their class loaders) from being unloaded. When a
+ * class is reloaded without its loader being discarded, for example when reloading
+ * plugins, the cache can be invalidated explicitly with {@link #invalidate(Class)}
+ * or {@link #invalidateAll()}.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class KotlinFunctionCache {
+
+    private static final KotlinFunctionCache GLOBAL = new KotlinFunctionCache();
+
+    private volatile ClassValue<ClassFunctions> functions = newClassValue();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private KotlinFunctionCache() {
+    }
+
+    /**
+     * Returns the global cache, used by {@link KotlinFunction#wrap(Method)}
+     *
+     * @return The global cache
+     */
+    public static @NotNull KotlinFunctionCache global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Returns the {@link KotlinFunction} of the given method, creating it
+     * if necessary.
+     *
+     * @param method The method to wrap
+     * @return The cached {@link KotlinFunction}
+     */
+    public @NotNull KotlinFunction get(@NotNull Method method) {
+        return get(method, MethodCallerFactory.methodHandles());
+    }
+
+    /**
+     * Returns the {@link KotlinFunction} of the given method that uses the
+     * given {@link MethodCallerFactory}, creating it if necessary.
+     *
+     * @param method  The method to wrap
+     * @param factory The method caller factory
+     * @return The cached {@link KotlinFunction}
+     */
+    public @NotNull KotlinFunction get(@NotNull Method method, @NotNull MethodCallerFactory factory) {
+        Preconditions.checkNotNull(method, "method");
+        Preconditions.checkNotNull(factory, "factory");
+        ConcurrentMap<Method, KotlinFunction> byMethod = functions.get(method.getDeclaringClass()).forFactory(factory);
+        KotlinFunction function = byMethod.get(method);
+        if (function != null) {
+            hits.increment();
+            return function;
+        }
+        KotlinFunction created = new KotlinFunctionImpl(method, factory);
+        function = byMethod.putIfAbsent(method, created);
+        if (function != null) {
+            // another thread won the race
+            hits.increment();
+            return function;
+        }
+        misses.increment();
+        return created;
+    }
+
+    /**
+     * Returns the {@link KotlinConstructor} of the given constructor that uses
+     * the given {@link MethodCallerFactory}, creating it if necessary.
+     *
+     * @param constructor The constructor to wrap
+     * @param factory     The method caller factory
+     * @param <T>         The type of the created objects
+     * @return The cached {@link KotlinConstructor}
+     */
+    @SuppressWarnings("unchecked")
+    public <T> @NotNull KotlinConstructor<T> get(@NotNull Constructor<T> constructor, @NotNull MethodCallerFactory factory) {
+        Preconditions.checkNotNull(constructor, "constructor");
+        Preconditions.checkNotNull(factory, "factory");
+        ConcurrentMap<Constructor<?>, KotlinConstructor<?>> byConstructor = functions.get(constructor.getDeclaringClass())
+                .constructorsForFactory(factory);
+        KotlinConstructor<?> cached = byConstructor.get(constructor);
+        if (cached != null) {
+            hits.increment();
+            return (KotlinConstructor<T>) cached;
+        }
+        KotlinConstructor<T> created = new KotlinConstructorImpl<>(constructor, factory);
+        cached = byConstructor.putIfAbsent(constructor, created);
+        if (cached != null) {
+            // another thread won the race
+            hits.increment();
+            return (KotlinConstructor<T>) cached;
+        }
+        misses.increment();
+        return created;
+    }
+
+    /**
+     * Removes all the functions and constructors declared in the given class from the cache
+     *
+     * @param type The declaring class
+     */
+    public void invalidate(@NotNull Class<?> type) {
+        Preconditions.checkNotNull(type, "type");
+        functions.remove(type);
+        invalidations.increment();
+    }
+
+    /**
+     * Removes all the functions and constructors from the cache
+     */
+    public void invalidateAll() {
+        functions = newClassValue();
+        invalidations.increment();
+    }
+
+    /**
+     * Returns a snapshot of the statistics of this cache
+     *
+     * @return The cache statistics
+     */
+    public @NotNull Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), invalidations.sum());
+    }
+
+    private static @NotNull ClassValue<ClassFunctions> newClassValue() {
+        return new ClassValue<ClassFunctions>() {
+            @Override
+            protected ClassFunctions computeValue(Class<?> type) {
+                return new ClassFunctions();
+            }
+        };
+    }
+
+    /**
+     * The functions and constructors declared in a single class
+     */
+    private static final class ClassFunctions {
+
+        private final ConcurrentMap<MethodCallerFactory, ConcurrentMap<Method, KotlinFunction>> byFactory
+                = new ConcurrentHashMap<>(1);
+
+        private final ConcurrentMap<MethodCallerFactory, ConcurrentMap<Constructor<?>, KotlinConstructor<?>>> constructorsByFactory
+                = new ConcurrentHashMap<>(1);
+
+        @NotNull ConcurrentMap<Method, KotlinFunction> forFactory(@NotNull MethodCallerFactory factory) {
+            ConcurrentMap<Method, KotlinFunction> byMethod = byFactory.get(factory);
+            if (byMethod == null)
+                byMethod = byFactory.computeIfAbsent(factory, f -> new ConcurrentHashMap<>());
+            return byMethod;
+        }
+
+        @NotNull ConcurrentMap<Constructor<?>, KotlinConstructor<?>> constructorsForFactory(@NotNull MethodCallerFactory factory) {
+            ConcurrentMap<Constructor<?>, KotlinConstructor<?>> byConstructor = constructorsByFactory.get(factory);
+            if (byConstructor == null)
+                byConstructor = constructorsByFactory.computeIfAbsent(factory, f -> new ConcurrentHashMap<>());
+            return byConstructor;
+        }
+    }
+
+    /**
+     * An immutable snapshot of the statistics of a {@link KotlinFunctionCache}
+     */
+    public static final class Stats {
+
+        private final long hits, misses, invalidations;
+
+        private Stats(long hits, long misses, long invalidations) {
+            this.hits = hits;
+            this.misses = misses;
+            this.invalidations = invalidations;
+        }
+
+        /**
+         * Returns the number of lookups that returned a cached function
+         *
+         * @return The hit count
+         */
+        public long hits() {
+            return hits;
+        }
+
+        /**
+         * Returns the number of lookups that created a new function
+         *
+         * @return The miss count
+         */
+        public long misses() {
+            return misses;
+        }
+
+        /**
+         * Returns the number of times the cache, or a part of it, was invalidated
+         *
+         * @return The invalidation count
+         */
+        public long invalidations() {
+            return invalidations;
+        }
+
+        /**
+         * Returns the ratio of lookups that returned a cached function, or
+         * {@code 1.0} if there were no lookups
+         *
+         * @return The hit rate
+         */
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 1.0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats(hits=" + hits + ", misses=" + misses + ", invalidations=" + invalidations + ")";
+        }
+    }
+}
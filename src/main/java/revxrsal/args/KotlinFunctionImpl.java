@@ -26,42 +26,60 @@ package revxrsal.args;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
+import revxrsal.args.metadata.FunctionMetadata;
+import revxrsal.args.metadata.KotlinMetadata;
 import revxrsal.args.reflect.MethodCaller;
+import revxrsal.args.reflect.MethodCallerFactory;
+import revxrsal.args.util.KotlinSingletons.CompanionObject;
+import revxrsal.args.util.Preconditions;
 
-import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
-import java.util.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
-import static revxrsal.args.DefaultFunctionFinder.findDefaultFunction;
 import static revxrsal.args.util.CollectionUtils.getOrNull;
-import static revxrsal.args.util.CollectionUtils.mapKeys;
 import static revxrsal.args.util.KotlinConstants.continuation;
-import static revxrsal.args.util.KotlinConstants.defaultPrimitiveValue;
+import static revxrsal.args.util.KotlinSingletons.companionOf;
 import static revxrsal.args.util.KotlinSingletons.getCallerForNonDefault;
 import static revxrsal.args.util.Preconditions.checkCallableStatic;
-import static revxrsal.args.util.Suppliers.lazy;
 
 final class KotlinFunctionImpl implements KotlinFunction {
 
-    private final Supplier<@Unmodifiable Map<String, Parameter>> byName = lazy(() -> {
-        Map<String, Parameter> byName = new HashMap<>();
-        for (Parameter parameter : getParameters())
-            byName.put(parameter.getName(), parameter);
-        return Collections.unmodifiableMap(byName);
-    });
-
     private final CallableMethod mainMethod;
-    private final Supplier<@Nullable CallableMethod> defaultMethod;
-    private final @Unmodifiable List<Parameter> parameters;
+    private final @Nullable FunctionMetadata metadata;
+    private final CallDispatcher dispatcher;
 
-    public KotlinFunctionImpl(@NotNull Method mainMethod) {
-        MethodCaller mainCaller = getCallerForNonDefault(mainMethod);
-        this.parameters = Arrays.asList(mainMethod.getParameters());
+    public KotlinFunctionImpl(@NotNull Method mainMethod, @NotNull MethodCallerFactory factory) {
+        MethodCaller mainCaller = getCallerForNonDefault(mainMethod, factory);
         this.mainMethod = CallableMethod.of(mainMethod, mainCaller);
-        this.defaultMethod = lazy(() -> findDefaultFunction(mainMethod));
+        this.metadata = findMetadata(mainMethod);
+        Parameter[] parameters = mainMethod.getParameters();
+        String[] names = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            String name = metadata == null ? null : metadata.getParameterName(i);
+            names[i] = name == null ? parameters[i].getName() : name;
+        }
+        int receivers = metadata == null ? 0 : metadata.getReceiverCount();
+        int trailing = parameters.length - DeclaredMethodIndex.maskedParameters(mainMethod.getParameterTypes());
+        this.dispatcher = new CallDispatcher(mainMethod, parameters, names, mainCaller, factory, receivers, trailing);
+    }
+
+    private KotlinFunctionImpl(
+            @NotNull CallableMethod mainMethod,
+            @Nullable FunctionMetadata metadata,
+            @NotNull CallDispatcher dispatcher
+    ) {
+        this.mainMethod = mainMethod;
+        this.metadata = metadata;
+        this.dispatcher = dispatcher;
+    }
+
+    @NotNull CallDispatcher dispatcher() {
+        return dispatcher;
     }
 
     @Override
@@ -71,11 +89,21 @@ final class KotlinFunctionImpl implements KotlinFunction {
 
     @Override
     public @Nullable CallableMethod getDefaultSyntheticMethod() {
-        return defaultMethod.get();
+        Method defaultMethod = (Method) dispatcher.defaultExecutable();
+        MethodCaller defaultCaller = dispatcher.defaultCaller();
+        return defaultMethod == null || defaultCaller == null ? null : CallableMethod.of(defaultMethod, defaultCaller);
+    }
+
+    @Override
+    public @Nullable FunctionMetadata getMetadata() {
+        return metadata;
     }
 
     @Override
     public boolean isSuspend() {
+        if (metadata != null)
+            return metadata.isSuspend();
+        List<Parameter> parameters = getParameters();
         Parameter lastParameter = getOrNull(parameters, parameters.size() - 1);
         return lastParameter != null && lastParameter.getType() == continuation();
     }
@@ -86,8 +114,8 @@ final class KotlinFunctionImpl implements KotlinFunction {
             @NotNull List<Object> arguments,
             @NotNull Function<Parameter, Boolean> isOptional
     ) {
-        Map<Parameter, Object> callArgs = mapArgsToParams(i -> getOrNull(arguments, i));
-        return callByParameters(instance, callArgs, isOptional);
+        dispatcher.checkRequiredCount(arguments.size(), isOptional);
+        return callWithArguments(instance, dispatcher.argumentsOf(arguments), isOptional);
     }
 
     @Override
@@ -96,8 +124,8 @@ final class KotlinFunctionImpl implements KotlinFunction {
             @NotNull Map<Integer, Object> arguments,
             @NotNull Function<Parameter, Boolean> isOptional
     ) {
-        Map<Parameter, Object> callArgs = mapArgsToParams(arguments::get);
-        return callByParameters(instance, callArgs, isOptional);
+        dispatcher.checkRequiredCount(arguments.size(), isOptional);
+        return callWithArguments(instance, dispatcher.argumentsOfIndices(arguments), isOptional);
     }
 
     @Override
@@ -106,97 +134,230 @@ final class KotlinFunctionImpl implements KotlinFunction {
             @NotNull Map<String, Object> arguments,
             @NotNull Function<Parameter, Boolean> isOptional
     ) {
-        return callByParameters(instance, mapKeys(arguments, this::getParameter), isOptional);
+        dispatcher.checkRequiredCount(arguments.size(), isOptional);
+        return callWithArguments(instance, dispatcher.argumentsOfNames(arguments), isOptional);
     }
 
-    // Re-adapted from KCallableImpl.callBy
-    @SuppressWarnings("unchecked")
     @Override
     public <T> T callByParameters(
             @Nullable Object instance,
             @NotNull Map<Parameter, Object> arguments,
             @NotNull Function<Parameter, Boolean> isOptional
     ) {
-        checkCallableStatic(instance, mainMethod.getMethod());
-        List<Object> args = new ArrayList<>(parameters.size());
-        int mask = 0;
-        List<Integer> masks = new ArrayList<>(1);
-        int index = 0;
+        dispatcher.checkRequiredCount(arguments.size(), isOptional);
+        return callWithArguments(instance, dispatcher.argumentsOfParameters(arguments), isOptional);
+    }
 
-        boolean anyOptional = false;
+    /*
+     * The continuation is always the last parameter of the main method. The
+     * synthetic default method takes the same parameters first, followed by
+     * the masks and the marker, so placing the continuation in the last
+     * argument slot works for both, without copying the arguments to append it.
+     */
 
-        for (Parameter parameter : parameters) {
-            if (index != 0 && index % Integer.SIZE == 0) {
-                masks.add(mask);
-                mask = 0;
-            }
-            @Nullable Object providedArg = arguments.get(parameter);
+    @Override
+    public <T> T callSuspend(
+            @Nullable Object instance,
+            @NotNull List<Object> arguments,
+            @NotNull Object continuation,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        dispatcher.checkRequiredCount(arguments.size() + 1, isOptional);
+        return callWithArguments(instance, withContinuation(dispatcher.argumentsOf(arguments), continuation), isOptional);
+    }
 
-            if (providedArg != null) {
-                args.add(providedArg);
-            }
+    @Override
+    public <T> T callByIndicesSuspend(
+            @Nullable Object instance,
+            @NotNull Map<Integer, Object> arguments,
+            @NotNull Object continuation,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        dispatcher.checkRequiredCount(arguments.size() + 1, isOptional);
+        return callWithArguments(instance, withContinuation(dispatcher.argumentsOfIndices(arguments), continuation), isOptional);
+    }
+
+    @Override
+    public <T> T callByNamesSuspend(
+            @Nullable Object instance,
+            @NotNull Map<String, Object> arguments,
+            @NotNull Object continuation,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        dispatcher.checkRequiredCount(arguments.size() + 1, isOptional);
+        return callWithArguments(instance, withContinuation(dispatcher.argumentsOfNames(arguments), continuation), isOptional);
+    }
+
+    @Override
+    public <T> T callByParametersSuspend(
+            @Nullable Object instance,
+            @NotNull Map<Parameter, Object> arguments,
+            @NotNull Object continuation,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        dispatcher.checkRequiredCount(arguments.size() + 1, isOptional);
+        return callWithArguments(instance, withContinuation(dispatcher.argumentsOfParameters(arguments), continuation), isOptional);
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<T> callAsync(
+            @Nullable Object instance,
+            @NotNull List<Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        return callAsync(
+                () -> call(instance, arguments, isOptional),
+                continuation -> callSuspend(instance, arguments, continuation, isOptional)
+        );
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<T> callByIndicesAsync(
+            @Nullable Object instance,
+            @NotNull Map<Integer, Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        return callAsync(
+                () -> callByIndices(instance, arguments, isOptional),
+                continuation -> callByIndicesSuspend(instance, arguments, continuation, isOptional)
+        );
+    }
+
+    @Override
+    public <T> @NotNull CompletableFuture<T> callByNamesAsync(
+            @Nullable Object instance,
+            @NotNull Map<String, Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        return callAsync(
+                () -> callByNames(instance, arguments, isOptional),
+                continuation -> callByNamesSuspend(instance, arguments, continuation, isOptional)
+        );
+    }
 
-            // Parameter is not present
+    @Override
+    public <T> @NotNull CompletableFuture<T> callByParametersAsync(
+            @Nullable Object instance,
+            @NotNull Map<Parameter, Object> arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        return callAsync(
+                () -> callByParameters(instance, arguments, isOptional),
+                continuation -> callByParametersSuspend(instance, arguments, continuation, isOptional)
+        );
+    }
 
-            else if (isOptional.apply(parameter)) {
-                mask = mask | 1 << index % 32;
-                args.add(defaultPrimitiveValue(parameter.getType()));
-                anyOptional = true;
-            } else if (parameter.isVarArgs()) {
-                args.add(Array.newInstance(parameter.getType(), 0));
-            } else {
-                throw new IllegalArgumentException("No argument provided for a required parameter: " + parameter + ".");
+    private <T> @NotNull CompletableFuture<T> callAsync(
+            @NotNull Supplier<T> call,
+            @NotNull Function<Object, Object> suspendCall
+    ) {
+        if (!isSuspend()) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            try {
+                future.complete(call.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
             }
-            index++;
+            return future;
+        }
+        FutureContinuation<T> continuation = new FutureContinuation<>(metadata != null && metadata.returnsUnit());
+        try {
+            return continuation.completeUnlessSuspended(suspendCall.apply(continuation));
+        } catch (Throwable t) {
+            continuation.completeExceptionally(t);
+            return continuation;
         }
+    }
 
-        if (!anyOptional)
-            return (T) mainMethod.getCaller().call(instance, args.toArray());
+    private @Nullable Object @NotNull [] withContinuation(@Nullable Object @NotNull [] arguments, @NotNull Object continuation) {
+        if (!isSuspend())
+            throw new IllegalArgumentException("Function is not a suspend function: " + mainMethod.getMethod());
+        arguments[arguments.length - 1] = continuation;
+        return arguments;
+    }
 
-        CallableMethod defaultMethod = this.defaultMethod.get();
+    private <T> T callWithArguments(
+            @Nullable Object instance,
+            @Nullable Object @NotNull [] arguments,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        checkCallableStatic(instance, mainMethod.getMethod());
+        return dispatcher.call(instance, arguments, isOptional);
+    }
 
-        if (defaultMethod == null)
-            throw new IllegalArgumentException("This function does not have default parameters. Have you implemented isOptional correctly?");
+    @Override
+    public <T> T callPositional(
+            @Nullable Object instance,
+            @Nullable Object @NotNull [] arguments,
+            long present,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        checkCallableStatic(instance, mainMethod.getMethod());
+        return dispatcher.callPositional(instance, arguments, present, isOptional);
+    }
 
-        masks.add(mask);
-        args.addAll(masks);
+    @Override
+    public <T> T callPositional(
+            @Nullable Object instance,
+            @Nullable Object @NotNull [] arguments,
+            long @NotNull [] present,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        checkCallableStatic(instance, mainMethod.getMethod());
+        return dispatcher.callPositional(instance, arguments, present, isOptional);
+    }
 
-        // DefaultConstructorMarker or MethodHandle
-        args.add(null);
+    @Override
+    public @NotNull KotlinFunction withCoercion(@NotNull ArgumentCoercion coercion) {
+        Preconditions.checkNotNull(coercion, "coercion");
+        return new KotlinFunctionImpl(mainMethod, metadata, dispatcher.withCoercion(coercion));
+    }
 
-        return (T) defaultMethod.getCaller().call(instance, args.toArray());
+    @Override
+    public <T> @NotNull T asInterface(
+            @NotNull Class<T> type,
+            @Nullable Object instance,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        Preconditions.checkNotNull(type, "type");
+        Preconditions.checkNotNull(isOptional, "isOptional");
+        checkCallableStatic(instance, mainMethod.getMethod());
+        return InterfaceViews.implement(type, this, dispatcher, instance, isOptional);
     }
 
-    @NotNull
-    private Map<Parameter, Object> mapArgsToParams(@NotNull Function<Integer, Object> map) {
-        Map<Parameter, Object> callArgs = new HashMap<>();
-        for (int i = 0; i < parameters.size(); i++) {
-            Parameter parameter = parameters.get(i);
-            callArgs.put(parameter, map.apply(i));
-        }
-        return callArgs;
+    /**
+     * Finds the metadata of the given method. {@code @JvmStatic} functions of
+     * companion objects are declared in the companion class, so it is
+     * searched as well.
+     */
+    static @Nullable FunctionMetadata findMetadata(@NotNull Method method) {
+        FunctionMetadata metadata = KotlinMetadata.of(method);
+        if (metadata != null)
+            return metadata;
+        CompanionObject companion = companionOf(method.getDeclaringClass());
+        if (companion == null)
+            return null;
+        KotlinMetadata companionMetadata = KotlinMetadata.of(companion.type());
+        return companionMetadata == null ? null : companionMetadata.getFunction(method);
     }
 
     @Override
     public @Unmodifiable @NotNull List<Parameter> getParameters() {
-        return parameters;
+        return dispatcher.parameters();
     }
 
     @Override
     public @Unmodifiable @NotNull Map<String, Parameter> getParametersByName() {
-        return byName.get();
+        return dispatcher.parametersByName();
     }
 
     @Override
     public @NotNull Parameter getParameter(@NotNull String name) {
-        Parameter parameter = getParametersByName().get(name);
-        if (parameter == null)
-            throw new IllegalArgumentException("No such parameter: '" + name + "'. Available parameters: " + getParametersByName().keySet());
-        return parameter;
+        return dispatcher.parameter(dispatcher.indexOf(name));
     }
 
     @Override
     public @NotNull Parameter getParameter(int index) {
-        return parameters.get(index);
+        return dispatcher.parameter(index);
     }
 }
@@ -0,0 +1,363 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.args.metadata.FunctionMetadata;
+import revxrsal.args.util.Preconditions;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Parameter;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+/**
+ * A precomputed set of the optional parameters of a {@link KotlinFunction}
+ * or a {@link KotlinConstructor}, stored as a bitset.
+ * <p>
+ * Whether a parameter is optional never changes for a given function, so
+ * instead of evaluating an {@code isOptional} function for every missing
+ * parameter on every call, a profile can be computed once and passed in
+ * its place to any of the {@code call} functions:
+ * <pre>
+ *     OptionalityProfile profile = OptionalityProfile.of(function, parameter -> ...);
+ *     function.callByNames(instance, arguments, profile);
+ * </pre>
+ * Calls with a profile only test bits, and reject arguments that leave
+ * required parameters missing before building any arguments for the
+ * function.
+ * <p>
+ * This class is immutable, therefore is safe to share across multiple
+ * threads.
+ */
+public final class OptionalityProfile implements Function<Parameter, Boolean> {
+
+    private final Executable executable;
+    private final List<Parameter> parameters;
+
+    /**
+     * The indices of the parameters, by identity
+     */
+    private final Map<Parameter, Integer> indices;
+
+    /**
+     * The optional parameters, in 64-bit words
+     */
+    private final long[] optional;
+
+    /**
+     * The parameters that must be provided, i.e. are neither optional
+     * nor varargs, in 64-bit words
+     */
+    private final long[] required;
+
+    private final int requiredCount;
+
+    private OptionalityProfile(
+            @NotNull Executable executable,
+            @NotNull List<Parameter> parameters,
+            @NotNull IntPredicate isOptional
+    ) {
+        this.executable = executable;
+        this.parameters = parameters;
+        this.indices = new IdentityHashMap<>(parameters.size());
+        int words = Math.max(1, (parameters.size() + Long.SIZE - 1) / Long.SIZE);
+        this.optional = new long[words];
+        this.required = new long[words];
+        int requiredCount = 0;
+        for (int i = 0; i < parameters.size(); i++) {
+            Parameter parameter = parameters.get(i);
+            indices.put(parameter, i);
+            if (isOptional.test(i)) {
+                optional[i / Long.SIZE] |= 1L << i;
+            } else if (!parameter.isVarArgs()) {
+                required[i / Long.SIZE] |= 1L << i;
+                requiredCount++;
+            }
+        }
+        this.requiredCount = requiredCount;
+    }
+
+    /**
+     * Computes the profile of the given function, by evaluating the given
+     * function once for every parameter.
+     *
+     * @param function   The function to compute for
+     * @param isOptional A function that tests whether a parameter is optional
+     * @return The optionality profile
+     */
+    public static @NotNull OptionalityProfile of(
+            @NotNull KotlinFunction function,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        Preconditions.checkNotNull(function, "function");
+        Preconditions.checkNotNull(isOptional, "isOptional");
+        return of(function.getMethod().getMethod(), function.getParameters(), isOptional);
+    }
+
+    /**
+     * Computes the profile of the given parameters of a method or a constructor
+     */
+    static @NotNull OptionalityProfile of(
+            @NotNull Executable executable,
+            @NotNull List<Parameter> parameters,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        return new OptionalityProfile(executable, parameters, index -> Boolean.TRUE.equals(isOptional.apply(parameters.get(index))));
+    }
+
+    /**
+     * Computes the profile of the given constructor, by evaluating the given
+     * function once for every parameter.
+     *
+     * @param constructor The constructor to compute for
+     * @param isOptional  A function that tests whether a parameter is optional
+     * @return The optionality profile
+     */
+    public static @NotNull OptionalityProfile of(
+            @NotNull KotlinConstructor<?> constructor,
+            @NotNull Function<Parameter, Boolean> isOptional
+    ) {
+        Preconditions.checkNotNull(constructor, "constructor");
+        Preconditions.checkNotNull(isOptional, "isOptional");
+        return of(constructor.getConstructor(), constructor.getParameters(), isOptional);
+    }
+
+    /**
+     * Computes the profile of the given function, where parameters that have
+     * the given annotation are optional.
+     *
+     * @param function   The function to compute for
+     * @param annotation The annotation that marks optional parameters
+     * @return The optionality profile
+     */
+    public static @NotNull OptionalityProfile annotatedWith(
+            @NotNull KotlinFunction function,
+            @NotNull Class<? extends Annotation> annotation
+    ) {
+        Preconditions.checkNotNull(function, "function");
+        Preconditions.checkNotNull(annotation, "annotation");
+        List<Parameter> parameters = function.getParameters();
+        return new OptionalityProfile(
+                function.getMethod().getMethod(),
+                parameters,
+                index -> parameters.get(index).isAnnotationPresent(annotation)
+        );
+    }
+
+    /**
+     * Computes the profile of the given constructor, where parameters that have
+     * the given annotation are optional.
+     *
+     * @param constructor The constructor to compute for
+     * @param annotation  The annotation that marks optional parameters
+     * @return The optionality profile
+     */
+    public static @NotNull OptionalityProfile annotatedWith(
+            @NotNull KotlinConstructor<?> constructor,
+            @NotNull Class<? extends Annotation> annotation
+    ) {
+        Preconditions.checkNotNull(constructor, "constructor");
+        Preconditions.checkNotNull(annotation, "annotation");
+        List<Parameter> parameters = constructor.getParameters();
+        return new OptionalityProfile(
+                constructor.getConstructor(),
+                parameters,
+                index -> parameters.get(index).isAnnotationPresent(annotation)
+        );
+    }
+
+    /**
+     * Computes the profile of the given function from its Kotlin metadata,
+     * where parameters that declare a default value are optional.
+     *
+     * @param function The function to compute for
+     * @return The optionality profile
+     * @throws IllegalArgumentException if the function has no Kotlin metadata
+     * @see KotlinFunction#getMetadata()
+     */
+    public static @NotNull OptionalityProfile fromMetadata(@NotNull KotlinFunction function) {
+        Preconditions.checkNotNull(function, "function");
+        FunctionMetadata metadata = function.getMetadata();
+        if (metadata == null)
+            throw new IllegalArgumentException("No Kotlin metadata was found for " + function.getMethod().getMethod() + ".");
+        return new OptionalityProfile(function.getMethod().getMethod(), function.getParameters(), metadata::declaresDefaultValue);
+    }
+
+    /**
+     * Computes the profile of the given constructor from its Kotlin metadata,
+     * where parameters that declare a default value are optional.
+     *
+     * @param constructor The constructor to compute for
+     * @return The optionality profile
+     * @throws IllegalArgumentException if the constructor has no Kotlin metadata
+     * @see KotlinConstructor#getMetadata()
+     */
+    public static @NotNull OptionalityProfile fromMetadata(@NotNull KotlinConstructor<?> constructor) {
+        Preconditions.checkNotNull(constructor, "constructor");
+        FunctionMetadata metadata = constructor.getMetadata();
+        if (metadata == null)
+            throw new IllegalArgumentException("No Kotlin metadata was found for " + constructor.getConstructor() + ".");
+        return new OptionalityProfile(constructor.getConstructor(), constructor.getParameters(), metadata::declaresDefaultValue);
+    }
+
+    /**
+     * Computes the profile of the given function, where all parameters are
+     * optional.
+     *
+     * @param function The function to compute for
+     * @return The optionality profile
+     */
+    public static @NotNull OptionalityProfile allOptional(@NotNull KotlinFunction function) {
+        Preconditions.checkNotNull(function, "function");
+        return new OptionalityProfile(function.getMethod().getMethod(), function.getParameters(), index -> true);
+    }
+
+    /**
+     * Computes the profile of the given constructor, where all parameters are
+     * optional.
+     *
+     * @param constructor The constructor to compute for
+     * @return The optionality profile
+     */
+    public static @NotNull OptionalityProfile allOptional(@NotNull KotlinConstructor<?> constructor) {
+        Preconditions.checkNotNull(constructor, "constructor");
+        return new OptionalityProfile(constructor.getConstructor(), constructor.getParameters(), index -> true);
+    }
+
+    /**
+     * Tests whether the parameter at the given index is optional
+     *
+     * @param index The parameter index
+     * @return If the parameter is optional
+     */
+    public boolean isOptional(int index) {
+        if (index < 0 || index >= parameters.size())
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + parameters.size());
+        return (optional[index / Long.SIZE] & 1L << index) != 0;
+    }
+
+    /**
+     * Tests whether the given parameter is optional. This allows using the
+     * profile in place of an {@code isOptional} function.
+     *
+     * @param parameter The parameter
+     * @return If the parameter is optional
+     */
+    @Override
+    public Boolean apply(@NotNull Parameter parameter) {
+        Integer index = indices.get(parameter);
+        if (index != null)
+            return (optional[index / Long.SIZE] & 1L << index) != 0;
+        // an equal parameter that was obtained from the executable again
+        int equalIndex = parameters.indexOf(parameter);
+        return equalIndex != -1 && isOptional(equalIndex);
+    }
+
+    /**
+     * Returns the number of parameters of the function or constructor
+     *
+     * @return The number of parameters
+     */
+    public int parameterCount() {
+        return parameters.size();
+    }
+
+    /**
+     * Tests whether this profile was computed for the given method or constructor
+     *
+     * @param executable The main method of a function, or a constructor
+     * @return If this profile belongs to the executable
+     */
+    boolean isFor(@NotNull Executable executable) {
+        return this.executable == executable || this.executable.equals(executable);
+    }
+
+    /**
+     * Returns the optional parameters in the given 64-bit word
+     */
+    long optional(int word) {
+        return optional[word];
+    }
+
+    /**
+     * Returns the required parameters in the given 64-bit word
+     */
+    long required(int word) {
+        return required[word];
+    }
+
+    /**
+     * Returns the number of parameters that must be provided
+     */
+    int requiredCount() {
+        return requiredCount;
+    }
+
+    /**
+     * Returns the index of the first required parameter in the given mask of
+     * missing parameters, or {@code -1} if none of them is required.
+     *
+     * @param missing The missing parameters, in 64-bit words
+     * @return The index of the first missing required parameter, or -1
+     */
+    int firstMissingRequired(long @NotNull [] missing) {
+        for (int word = 0; word < missing.length; word++) {
+            long missingRequired = missing[word] & required[word];
+            if (missingRequired != 0)
+                return word * Long.SIZE + Long.numberOfTrailingZeros(missingRequired);
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (this == o) return true;
+        if (!(o instanceof OptionalityProfile)) return false;
+        OptionalityProfile that = (OptionalityProfile) o;
+        return executable.equals(that.executable) && Arrays.equals(optional, that.optional);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * executable.hashCode() + Arrays.hashCode(optional);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("OptionalityProfile(");
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0)
+                builder.append(", ");
+            builder.append(parameters.get(i).getName()).append(isOptional(i) ? "?" : "");
+        }
+        return builder.append(')').toString();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * A precomputed table that maps parameter names directly to their indices.
+ * <p>
+ * Names are interned when the table is created, and the table is sized
+ * so that names rarely share a slot. Looking up a name therefore takes a
+ * single hash (which {@link String} caches), and usually a single reference
+ * comparison when the name is a literal or otherwise interned.
+ * <p>
+ * This class is immutable, therefore is safe to share across multiple
+ * threads.
+ */
+final class ParameterNameTable {
+
+    /**
+     * The largest table size, relative to the number of names, to try when
+     * looking for a table without collisions
+     */
+    private static final int MAX_SPREAD = 16;
+
+    private final String[] names;
+    private final String[] keys;
+    private final int[] indices;
+    private final int mask;
+
+    ParameterNameTable(@NotNull String[] names) {
+        this.names = new String[names.length];
+        for (int i = 0; i < names.length; i++)
+            this.names[i] = names[i].intern();
+
+        int size = Integer.highestOneBit(Math.max(1, names.length) * 2 - 1) << 1;
+        while (hasCollisions(this.names, size) && size < names.length * MAX_SPREAD)
+            size <<= 1;
+        this.mask = size - 1;
+        this.keys = new String[size];
+        this.indices = new int[size];
+        for (int i = 0; i < this.names.length; i++) {
+            int slot = spread(this.names[i].hashCode()) & mask;
+            while (keys[slot] != null)
+                slot = (slot + 1) & mask;
+            keys[slot] = this.names[i];
+            indices[slot] = i;
+        }
+    }
+
+    /**
+     * Returns the index of the parameter with the given name, or {@code -1}
+     * if there is no such parameter.
+     *
+     * @param name The parameter name
+     * @return The parameter index, or -1
+     */
+    int indexOf(@NotNull String name) {
+        for (int slot = spread(name.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            String key = keys[slot];
+            if (key == name)
+                return indices[slot];
+            if (key == null)
+                return -1;
+            if (key.equals(name))
+                return indices[slot];
+        }
+    }
+
+    /**
+     * Returns the name of the parameter at the given index
+     *
+     * @param index The parameter index
+     * @return The parameter name
+     */
+    @NotNull String nameOf(int index) {
+        return names[index];
+    }
+
+    private static boolean hasCollisions(@NotNull String[] names, int size) {
+        boolean[] taken = new boolean[size];
+        for (String name : names) {
+            int slot = spread(name.hashCode()) & (size - 1);
+            if (taken[slot])
+                return true;
+            taken[slot] = true;
+        }
+        return false;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return "ParameterNameTable(" + Arrays.toString(names) + ")";
+    }
+}
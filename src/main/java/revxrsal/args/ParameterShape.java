@@ -0,0 +1,235 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Executable;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static revxrsal.args.util.KotlinConstants.defaultPrimitiveValue;
+
+/**
+ * The parameters of a function or a constructor, stripped of anything that
+ * is specific to the executable: the names, the types, and everything that
+ * is derived from them.
+ * <p>
+ * Shapes are interned, so functions with identical signatures share the
+ * same shape. Shapes that only refer to classes of the bootstrap class loader
+ * are shared globally, while others are only shared within their declaring
+ * class, so that they do not prevent class loaders from being unloaded.
+ * <p>
+ * This class is immutable, therefore is safe to share across multiple
+ * threads.
+ */
+final class ParameterShape {
+
+    /**
+     * The shapes that only refer to classes of the bootstrap class loader
+     */
+    private static final ConcurrentMap<Signature, ParameterShape> SHARED = new ConcurrentHashMap<>();
+
+    /**
+     * The shapes that refer to other classes, by the classes that declare them
+     */
+    private static final ClassValue<ConcurrentMap<Signature, ParameterShape>> BY_OWNER = new ClassValue<ConcurrentMap<Signature, ParameterShape>>() {
+        @Override
+        protected ConcurrentMap<Signature, ParameterShape> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>(4);
+        }
+    };
+
+    private final Signature signature;
+    private final ParameterNameTable names;
+
+    /**
+     * The placeholder value of each parameter. This is the 'zero' value
+     * for primitives, an empty array for varargs, and null otherwise.
+     */
+    private final @Nullable Object[] fillers;
+
+    private ParameterShape(@NotNull Signature signature) {
+        this.signature = signature;
+        this.names = new ParameterNameTable(signature.names);
+        Class<?>[] types = signature.types;
+        this.fillers = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            fillers[i] = signature.varArgs && i == types.length - 1
+                    ? Array.newInstance(types[i].getComponentType(), 0)
+                    : defaultPrimitiveValue(types[i]);
+        }
+    }
+
+    /**
+     * Returns the shape of the given executable
+     *
+     * @param executable The method or constructor
+     * @param names      The names of its parameters
+     * @param receivers  The number of leading receiver parameters, which
+     *                   are not part of the default masks
+     * @param trailing   The number of trailing parameters, which are not
+     *                   part of the default masks either
+     * @return The interned shape
+     */
+    static @NotNull ParameterShape of(@NotNull Executable executable, @NotNull String[] names, int receivers, int trailing) {
+        Class<?>[] types = executable.getParameterTypes();
+        Signature signature = new Signature(names, types, executable.isVarArgs(), receivers, trailing);
+        ConcurrentMap<Signature, ParameterShape> shapes = isBootstrap(types)
+                ? SHARED
+                : BY_OWNER.get(executable.getDeclaringClass());
+        ParameterShape shape = shapes.get(signature);
+        if (shape == null)
+            shape = shapes.computeIfAbsent(signature, ParameterShape::new);
+        return shape;
+    }
+
+    /**
+     * Returns the index of the parameter with the given name, or {@code -1}
+     * if there is no such parameter.
+     *
+     * @param name The parameter name
+     * @return The parameter index, or -1
+     */
+    int indexOf(@NotNull String name) {
+        return names.indexOf(name);
+    }
+
+    /**
+     * Returns the name of the parameter at the given index
+     *
+     * @param index The parameter index
+     * @return The parameter name
+     */
+    @NotNull String nameOf(int index) {
+        return names.nameOf(index);
+    }
+
+    /**
+     * Returns the placeholder value of the parameter at the given index
+     *
+     * @param index The parameter index
+     * @return The placeholder value
+     */
+    @Nullable Object filler(int index) {
+        return fillers[index];
+    }
+
+    /**
+     * Returns all the placeholder values. This array must not be modified.
+     *
+     * @return The placeholder values
+     */
+    @Nullable Object @NotNull [] fillers() {
+        return fillers;
+    }
+
+    /**
+     * Returns the number of leading receiver parameters, such as the receiver
+     * of an extension function
+     *
+     * @return The receiver count
+     */
+    int receivers() {
+        return signature.receivers;
+    }
+
+    /**
+     * Returns the number of trailing parameters, such as the continuation
+     * of a suspend function
+     *
+     * @return The trailing parameter count
+     */
+    int trailing() {
+        return signature.trailing;
+    }
+
+    /**
+     * Returns the number of 64-bit words that a mask of these parameters
+     * requires
+     *
+     * @return The mask words
+     */
+    int maskWords() {
+        return Math.max(1, (signature.types.length + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    private static boolean isBootstrap(@NotNull Class<?>[] types) {
+        for (Class<?> type : types) {
+            while (type.isArray())
+                type = type.getComponentType();
+            if (type.getClassLoader() != null)
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "ParameterShape(" + names + ", " + Arrays.toString(signature.types) + ")";
+    }
+
+    /**
+     * The key of interned shapes
+     */
+    private static final class Signature {
+
+        private final String[] names;
+        private final Class<?>[] types;
+        private final boolean varArgs;
+        private final int receivers;
+        private final int trailing;
+        private final int hash;
+
+        Signature(@NotNull String[] names, @NotNull Class<?>[] types, boolean varArgs, int receivers, int trailing) {
+            this.names = names;
+            this.types = types;
+            this.varArgs = varArgs;
+            this.receivers = receivers;
+            this.trailing = trailing;
+            this.hash = 31 * (31 * Arrays.hashCode(names) + Arrays.hashCode(types)) + (varArgs ? 2 : 0) + receivers * 4 + trailing;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Signature)) return false;
+            Signature that = (Signature) o;
+            return hash == that.hash
+                    && varArgs == that.varArgs
+                    && receivers == that.receivers
+                    && trailing == that.trailing
+                    && Arrays.equals(types, that.types)
+                    && Arrays.equals(names, that.names);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.args.ResolutionIndex.Binding;
+import revxrsal.args.ResolutionIndex.Resolution;
+import revxrsal.args.reflect.InvokerGenerator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Looks up where the synthetic {@code $default} methods of functions are,
+ * as recorded ahead of time by {@link InvokerGenerator}, so that they do not
+ * have to be searched for at runtime.
+ * <p>
+ * Every class that went through the generator comes with a resource, which
+ * maps the functions that have a default method to its {@link Binding}, and
+ * to the companion that declares it, if any. Resources are read at most once
+ * per class.
+ */
+final class PrecompiledResolutions {
+
+    /**
+     * The directory of the resolution resources. This is the same as
+     * {@code InvokerGenerator.RESOLUTION_DIRECTORY}.
+     */
+    private static final String DIRECTORY = "META-INF/kotlin-default-args/resolutions/";
+
+    /**
+     * The memoized resolutions of classes, as the binding, followed by the
+     * companion if any, keyed by {@link #keyOf(Method)}
+     */
+    private static final ClassValue<Map<String, String[]>> RESOLUTIONS = new ClassValue<Map<String, String[]>>() {
+        @Override
+        protected Map<String, String[]> computeValue(Class<?> type) {
+            return readResolutions(type);
+        }
+    };
+
+    private PrecompiledResolutions() {
+    }
+
+    /**
+     * Returns the recorded resolution of the given function, or {@code null}
+     * if there is none, or if it no longer matches the class.
+     *
+     * @param method The function
+     * @return The resolution, or null
+     */
+    static @Nullable Resolution lookup(@NotNull Method method) {
+        Map<String, String[]> resolutions = RESOLUTIONS.get(method.getDeclaringClass());
+        if (resolutions.isEmpty())
+            return null;
+        String[] entry = resolutions.get(keyOf(method));
+        if (entry == null)
+            return null;
+        Binding binding;
+        try {
+            binding = Binding.valueOf(entry[0]);
+        } catch (IllegalArgumentException e) {
+            // generated by another version
+            return null;
+        }
+        return Resolution.resolve(method, binding, entry.length > 1 ? entry[1] : "");
+    }
+
+    /**
+     * Returns the key of the given function in resources, which is its
+     * name, followed by the names of its parameter types. This is the
+     * same as {@code InvokerGenerator.resolutionKey(Method)}.
+     *
+     * @param method The function
+     * @return The key
+     */
+    private static @NotNull String keyOf(@NotNull Method method) {
+        StringBuilder key = new StringBuilder(method.getName()).append('(');
+        for (Class<?> parameterType : method.getParameterTypes())
+            key.append(parameterType.getName()).append(',');
+        return key.append(')').toString();
+    }
+
+    private static @NotNull Map<String, String[]> readResolutions(@NotNull Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+        if (loader == null)
+            return Collections.emptyMap();
+        InputStream stream = loader.getResourceAsStream(DIRECTORY + type.getName());
+        if (stream == null)
+            return Collections.emptyMap();
+        Map<String, String[]> resolutions = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.trim().split(" ");
+                if (parts.length >= 2)
+                    resolutions.put(parts[0], Arrays.copyOfRange(parts, 1, parts.length));
+            }
+        } catch (IOException e) {
+            return Collections.emptyMap();
+        }
+        return resolutions;
+    }
+}
@@ -0,0 +1,570 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.args.util.Preconditions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+
+import static revxrsal.args.DeclaredMethodIndex.defaultMethodName;
+import static revxrsal.args.DeclaredMethodIndex.syntheticParameters;
+
+/**
+ * A persistent index of where the synthetic {@code $default} methods of
+ * functions are, so that they do not have to be searched for again on
+ * every start of the JVM.
+ * <p>
+ * The index is read from a file, which is memory-mapped read-only, and
+ * records the functions that are resolved while it is
+ * {@link #install(ResolutionIndex) installed}. It is written back with
+ * {@link #save()}, as a new generation of the file next to it, since a file
+ * cannot be replaced while it is mapped on some platforms:
+ * <pre>
+ *     ResolutionIndex index = ResolutionIndex.open(Paths.get("cache/functions.idx"));
+ *     ResolutionIndex.install(index);
+ *     ... // wrap and call functions, or run a WarmUp
+ *     index.save();
+ * </pre>
+ * Every entry is stamped with the location, size and modification time of
+ * the class file of the function's declaring class, and of the companion
+ * that declares its default method, if any, and is ignored when either class
+ * changes. When the index cannot be read, it starts out empty.
+ * <p>
+ * Generations are named after the file, followed by their number, such as
+ * {@code functions.idx.2}, and the newest one that can be read is opened.
+ * Older generations are deleted when they are no longer mapped.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class ResolutionIndex {
+
+    private static final int MAGIC = 0x4B444958; // KDIX
+    private static final short VERSION = 2;
+    private static final long NO_STAMP = -1;
+
+    /**
+     * The smallest size of an entry: an empty key, a stamp, a binding, an
+     * empty owner and the stamp of the owner
+     */
+    private static final int MIN_ENTRY_BYTES = Short.BYTES + Long.BYTES + Byte.BYTES + Short.BYTES + Long.BYTES;
+
+    /**
+     * The stamps of the class files of classes, or {@link #NO_STAMP}
+     * if they could not be found
+     */
+    private static final ClassValue<Long> STAMPS = new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            return stampOf(type);
+        }
+    };
+
+    private static volatile @Nullable ResolutionIndex installed;
+
+    private final Path file;
+    private final ByteBuffer mapped;
+
+    /**
+     * The generation that was opened, and the last one that was saved
+     */
+    private final int openedGeneration;
+    private int generation;
+
+    /**
+     * The offsets of the entries of the mapped file, by their keys.
+     * Entries that turn out to be stale are removed.
+     */
+    private final Map<String, Integer> offsets;
+
+    /**
+     * The entries resolved since the index was opened
+     */
+    private final Map<String, Entry> recorded = new ConcurrentHashMap<>();
+
+    private ResolutionIndex(
+            @NotNull Path file,
+            @NotNull ByteBuffer mapped,
+            @NotNull Map<String, Integer> offsets,
+            int generation
+    ) {
+        this.file = file;
+        this.mapped = mapped;
+        this.offsets = offsets;
+        this.openedGeneration = generation;
+        this.generation = generation;
+    }
+
+    /**
+     * Opens the index in the given file, or in its newest generation. If no
+     * generation exists, or none can be read as a valid index, the index
+     * starts out empty.
+     *
+     * @param file The index file
+     * @return The index
+     */
+    public static @NotNull ResolutionIndex open(@NotNull Path file) {
+        Preconditions.checkNotNull(file, "file");
+        List<Integer> generations;
+        try {
+            generations = generationsOf(file);
+        } catch (UncheckedIOException e) {
+            generations = Collections.emptyList();
+        }
+        int newest = generations.isEmpty() ? 0 : generations.get(generations.size() - 1);
+        for (int i = generations.size() - 1; i >= 0; i--) {
+            int generation = generations.get(i);
+            try (FileChannel channel = FileChannel.open(generationFile(file, generation), StandardOpenOption.READ)) {
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                Map<String, Integer> offsets = readOffsets(mapped);
+                if (offsets != null) {
+                    ResolutionIndex index = new ResolutionIndex(file, mapped, offsets, generation);
+                    index.generation = newest;
+                    return index;
+                }
+            } catch (IOException e) {
+                // deleted in the meantime, or unreadable like a corrupted generation
+            }
+        }
+        return new ResolutionIndex(file, ByteBuffer.allocate(0), new ConcurrentHashMap<>(), newest);
+    }
+
+    /**
+     * Installs the given index, so that functions that are wrapped afterwards
+     * are looked up in it, and recorded into it.
+     *
+     * @param index The index to install
+     */
+    public static void install(@NotNull ResolutionIndex index) {
+        Preconditions.checkNotNull(index, "index");
+        installed = index;
+    }
+
+    /**
+     * Removes the installed index, if any
+     */
+    public static void uninstall() {
+        installed = null;
+    }
+
+    /**
+     * Returns the installed index, or {@code null} if there is none
+     *
+     * @return The installed index, or null
+     */
+    static @Nullable ResolutionIndex installed() {
+        return installed;
+    }
+
+    /**
+     * Returns the number of functions in this index
+     *
+     * @return The entry count
+     */
+    public int size() {
+        int size = recorded.size();
+        for (String key : offsets.keySet()) {
+            if (!recorded.containsKey(key))
+                size++;
+        }
+        return size;
+    }
+
+    /**
+     * Writes this index to a new generation of its file. Entries of the file
+     * that were found to be stale are dropped, and older generations that are
+     * not mapped by this index are deleted.
+     *
+     * @throws UncheckedIOException if the file could not be written
+     */
+    public synchronized void save() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            Map<String, Entry> entries = new ConcurrentHashMap<>(recorded);
+            for (Map.Entry<String, Integer> offset : offsets.entrySet())
+                entries.putIfAbsent(offset.getKey(), readEntry(offset.getValue()));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writeString(out, entry.getKey());
+                entry.getValue().write(out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null)
+                Files.createDirectories(parent);
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temporary, bytes.toByteArray());
+            // a new file is never mapped, so it can always be moved into place
+            Path target = generationFile(file, generation + 1);
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            generation++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (int older : generationsOf(file)) {
+            if (older >= generation || older == openedGeneration)
+                continue;
+            try {
+                Files.deleteIfExists(generationFile(file, older));
+            } catch (IOException e) {
+                // still mapped by another index, deleted on a later save
+            }
+        }
+    }
+
+    /**
+     * Returns the generation numbers of the given index file that exist, in
+     * ascending order. The file itself is generation 0.
+     */
+    private static @NotNull List<Integer> generationsOf(@NotNull Path file) {
+        List<Integer> generations = new ArrayList<>();
+        Path directory = file.toAbsolutePath().getParent();
+        String prefix = file.getFileName() + ".";
+        if (Files.exists(file))
+            generations.add(0);
+        if (directory == null || !Files.isDirectory(directory))
+            return generations;
+        try (DirectoryStream<Path> siblings = Files.newDirectoryStream(
+                directory,
+                path -> path.getFileName().toString().startsWith(prefix)
+        )) {
+            for (Path sibling : siblings) {
+                String suffix = sibling.getFileName().toString().substring(prefix.length());
+                if (!suffix.isEmpty() && suffix.length() < 10 && suffix.chars().allMatch(Character::isDigit))
+                    generations.add(Integer.parseInt(suffix));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    private static @NotNull Path generationFile(@NotNull Path file, int generation) {
+        return generation == 0 ? file : file.resolveSibling(file.getFileName() + "." + generation);
+    }
+
+    /**
+     * Returns the synthetic default method of the given function, as recorded
+     * in this index.
+     *
+     * @param method The function
+     * @return The resolution, or {@code null} if the function is not in the
+     * index, or its entry is stale
+     */
+    @Nullable Resolution lookup(@NotNull Method method) {
+        long stamp = STAMPS.get(method.getDeclaringClass());
+        if (stamp == NO_STAMP)
+            return null;
+        String key = keyOf(method);
+        Entry entry = recorded.get(key);
+        if (entry == null) {
+            Integer offset = offsets.get(key);
+            if (offset == null)
+                return null;
+            entry = readEntry(offset);
+        }
+        Resolution resolution = entry.stamp == stamp ? entry.resolve(method) : null;
+        if (resolution != null && resolution.binding == Binding.COMPANION
+                && STAMPS.get(resolution.defaultMethod.getDeclaringClass()) != entry.ownerStamp)
+            resolution = null;
+        if (resolution == null) {
+            recorded.remove(key);
+            offsets.remove(key);
+        }
+        return resolution;
+    }
+
+    /**
+     * Records the synthetic default method of the given function
+     *
+     * @param method     The function
+     * @param resolution Where its synthetic default method was found
+     */
+    void record(@NotNull Method method, @NotNull Resolution resolution) {
+        long stamp = STAMPS.get(method.getDeclaringClass());
+        if (stamp == NO_STAMP)
+            return;
+        String owner = "";
+        long ownerStamp = 0;
+        if (resolution.binding == Binding.COMPANION) {
+            Class<?> companion = resolution.defaultMethod.getDeclaringClass();
+            ownerStamp = STAMPS.get(companion);
+            if (ownerStamp == NO_STAMP)
+                return;
+            owner = companion.getName();
+        }
+        recorded.put(keyOf(method), new Entry(stamp, resolution.binding, owner, ownerStamp));
+    }
+
+    private @NotNull Entry readEntry(int offset) {
+        ByteBuffer buffer = mapped.duplicate();
+        buffer.position(offset);
+        long stamp = buffer.getLong();
+        Binding binding = Binding.values()[buffer.get()];
+        String owner = readString(buffer);
+        return new Entry(stamp, binding, owner, buffer.getLong());
+    }
+
+    private static @Nullable Map<String, Integer> readOffsets(@NotNull ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION)
+                return null;
+            int count = buffer.getInt();
+            if (count < 0 || count > buffer.remaining() / MIN_ENTRY_BYTES)
+                return null;
+            Map<String, Integer> offsets = new ConcurrentHashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String key = readString(buffer);
+                offsets.put(key, buffer.position());
+                buffer.position(buffer.position() + Long.BYTES);
+                int binding = buffer.get();
+                if (binding < 0 || binding >= Binding.values().length)
+                    return null;
+                readString(buffer);
+                buffer.position(buffer.position() + Long.BYTES);
+            }
+            return offsets;
+        } catch (RuntimeException e) {
+            // truncated or corrupted
+            return null;
+        }
+    }
+
+    private static @NotNull String readString(@NotNull ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(@NotNull DataOutputStream out, @NotNull String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static @NotNull String keyOf(@NotNull Method method) {
+        StringBuilder key = new StringBuilder(method.getDeclaringClass().getName())
+                .append('.')
+                .append(method.getName())
+                .append('(');
+        for (Class<?> parameterType : method.getParameterTypes())
+            key.append(parameterType.getName()).append(',');
+        return key.append(')').toString();
+    }
+
+    /**
+     * Stamps the class file of the given class with its location, size and
+     * modification time, which are read from the file system or the jar's
+     * directory, without reading the class file itself
+     */
+    private static long stampOf(@NotNull Class<?> type) {
+        String name = type.getName();
+        URL url = type.getResource(name.substring(name.lastIndexOf('.') + 1) + ".class");
+        if (url == null)
+            return NO_STAMP;
+        long size, modified;
+        try {
+            if (url.getProtocol().equals("file")) {
+                Path path = Paths.get(url.toURI());
+                size = Files.size(path);
+                modified = Files.getLastModifiedTime(path).toMillis();
+            } else {
+                URLConnection connection = url.openConnection();
+                if (connection instanceof JarURLConnection) {
+                    JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+                    size = entry.getSize();
+                    modified = entry.getTime() ^ entry.getCrc();
+                } else {
+                    size = connection.getContentLengthLong();
+                    modified = connection.getLastModified();
+                }
+            }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            return NO_STAMP;
+        }
+        if (size < 0)
+            return NO_STAMP;
+        long stamp = url.toString().hashCode();
+        stamp = stamp * 31 + size;
+        stamp = stamp * 31 + modified;
+        return stamp == NO_STAMP ? 0 : stamp;
+    }
+
+    /**
+     * How the synthetic default method of a function is found, and called
+     */
+    enum Binding {
+
+        /**
+         * The function has no synthetic default method
+         */
+        NONE,
+
+        /**
+         * The default method is in the same class, and takes the same
+         * receiver as the function
+         */
+        STATIC,
+
+        /**
+         * The default method is in the same class, and takes the instance
+         * as its first parameter
+         */
+        INSTANCE_FIRST,
+
+        /**
+         * The default method is in the companion object, and takes the
+         * companion as its first parameter
+         */
+        COMPANION
+    }
+
+    /**
+     * Where the synthetic default method of a function was found
+     */
+    static final class Resolution {
+
+        private static final Resolution NONE = new Resolution(Binding.NONE, null);
+
+        private final Binding binding;
+        private final @Nullable Method defaultMethod;
+
+        private Resolution(@NotNull Binding binding, @Nullable Method defaultMethod) {
+            this.binding = binding;
+            this.defaultMethod = defaultMethod;
+        }
+
+        static @NotNull Resolution of(@NotNull Binding binding, @Nullable Method defaultMethod) {
+            return defaultMethod == null ? NONE : new Resolution(binding, defaultMethod);
+        }
+
+        @NotNull Binding binding() {
+            return binding;
+        }
+
+        @Nullable Method defaultMethod() {
+            return defaultMethod;
+        }
+
+        /**
+         * Finds the synthetic default method of the given function, which is
+         * known to have the given binding, without searching for it
+         *
+         * @param method  The function
+         * @param binding The binding of its default method
+         * @param owner   The binary name of the companion that declares the
+         *                default method, if the binding is {@link Binding#COMPANION}
+         * @return The resolution, or {@code null} if there is no such default method
+         */
+        static @Nullable Resolution resolve(@NotNull Method method, @NotNull Binding binding, @NotNull String owner) {
+            Class<?> declaringClass = method.getDeclaringClass();
+            try {
+                switch (binding) {
+                    case NONE:
+                        return NONE;
+                    case STATIC:
+                        return synthetic(binding, declaringClass.getDeclaredMethod(defaultMethodName(method), syntheticParameters(method, null)));
+                    case INSTANCE_FIRST:
+                        return synthetic(binding, declaringClass.getDeclaredMethod(defaultMethodName(method), syntheticParameters(method, declaringClass)));
+                    default:
+                        Class<?> companion = Class.forName(owner, false, declaringClass.getClassLoader());
+                        return synthetic(binding, companion.getDeclaredMethod(defaultMethodName(method), syntheticParameters(method, companion)));
+                }
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return null;
+            }
+        }
+
+        private static @Nullable Resolution synthetic(@NotNull Binding binding, @NotNull Method defaultMethod) {
+            return defaultMethod.isSynthetic() ? new Resolution(binding, defaultMethod) : null;
+        }
+    }
+
+    /**
+     * A single function in the index. The signature of the synthetic default
+     * method follows from the function and the binding, so only the class
+     * of companions, and its stamp, is stored.
+     */
+    private static final class Entry {
+
+        private final long stamp;
+        private final Binding binding;
+        private final String owner;
+        private final long ownerStamp;
+
+        Entry(long stamp, @NotNull Binding binding, @NotNull String owner, long ownerStamp) {
+            this.stamp = stamp;
+            this.binding = binding;
+            this.owner = owner;
+            this.ownerStamp = ownerStamp;
+        }
+
+        @Nullable Resolution resolve(@NotNull Method method) {
+            // null if stale, in which case it is resolved again
+            return Resolution.resolve(method, binding, owner);
+        }
+
+        void write(@NotNull DataOutputStream out) throws IOException {
+            out.writeLong(stamp);
+            out.writeByte(binding.ordinal());
+            writeString(out, owner);
+            out.writeLong(ownerStamp);
+        }
+    }
+}
@@ -0,0 +1,449 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+import revxrsal.args.metadata.FunctionMetadata;
+import revxrsal.args.metadata.KotlinMetadata;
+import revxrsal.args.reflect.MethodCallerFactory;
+import revxrsal.args.util.KotlinSingletons.CompanionObject;
+import revxrsal.args.util.Preconditions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import static revxrsal.args.util.KotlinSingletons.companionOf;
+
+/**
+ * Eagerly wraps the functions and constructors of Kotlin classes into the
+ * {@link KotlinFunctionCache#global() global cache}, and resolves everything
+ * that is otherwise resolved on the first calls: the synthetic {@code $default}
+ * methods and constructors, companion objects, and their callers.
+ * <p>
+ * Classes are warmed up in parallel on an {@link Executor}, which is the
+ * {@link ForkJoinPool#commonPool() common pool} by default:
+ * <pre>
+ *     WarmUp.Report report = WarmUp.ofPackage("com.example.commands", loader)
+ *             .on(executor)
+ *             .run();
+ * </pre>
+ * Classes that are not Kotlin classes are skipped. The companion object of
+ * every class is warmed up along with it, and so are the {@code @JvmStatic}
+ * functions that the class declares for its companion.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+public final class WarmUp {
+
+    private static final String CLASS_EXTENSION = ".class";
+
+    private final @Unmodifiable Collection<Class<?>> classes;
+    private final @Nullable String packageName;
+    private final @Nullable ClassLoader loader;
+    private final MethodCallerFactory factory;
+    private final Executor executor;
+
+    private WarmUp(
+            @NotNull Collection<Class<?>> classes,
+            @Nullable String packageName,
+            @Nullable ClassLoader loader,
+            @NotNull MethodCallerFactory factory,
+            @NotNull Executor executor
+    ) {
+        this.classes = classes;
+        this.packageName = packageName;
+        this.loader = loader;
+        this.factory = factory;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates a warm-up of the given classes
+     *
+     * @param classes The classes to warm up
+     * @return The warm-up
+     */
+    public static @NotNull WarmUp of(@NotNull Class<?> @NotNull ... classes) {
+        Preconditions.checkNotNull(classes, "classes");
+        return of(Arrays.asList(classes));
+    }
+
+    /**
+     * Creates a warm-up of the given classes
+     *
+     * @param classes The classes to warm up
+     * @return The warm-up
+     */
+    public static @NotNull WarmUp of(@NotNull Collection<Class<?>> classes) {
+        Preconditions.checkNotNull(classes, "classes");
+        for (Class<?> type : classes)
+            Preconditions.checkNotNull(type, "class");
+        return new WarmUp(
+                Collections.unmodifiableList(new ArrayList<>(classes)),
+                null,
+                null,
+                MethodCallerFactory.methodHandles(),
+                ForkJoinPool.commonPool()
+        );
+    }
+
+    /**
+     * Creates a warm-up of all the classes in the given package and its
+     * subpackages, as found by the given class loader. Packages are looked up
+     * in directories and JAR files.
+     *
+     * @param packageName The package name, such as {@code com.example}
+     * @param loader      The class loader to find and load classes with
+     * @return The warm-up
+     */
+    public static @NotNull WarmUp ofPackage(@NotNull String packageName, @NotNull ClassLoader loader) {
+        Preconditions.checkNotNull(packageName, "package name");
+        Preconditions.checkNotNull(loader, "loader");
+        return new WarmUp(
+                Collections.emptyList(),
+                packageName,
+                loader,
+                MethodCallerFactory.methodHandles(),
+                ForkJoinPool.commonPool()
+        );
+    }
+
+    /**
+     * Returns a copy of this warm-up that wraps functions with the given
+     * {@link MethodCallerFactory}. This should be the same factory that
+     * the functions are later wrapped with.
+     *
+     * @param factory The method caller factory
+     * @return The new warm-up
+     */
+    public @NotNull WarmUp using(@NotNull MethodCallerFactory factory) {
+        Preconditions.checkNotNull(factory, "factory");
+        return new WarmUp(classes, packageName, loader, factory, executor);
+    }
+
+    /**
+     * Returns a copy of this warm-up that runs on the given executor
+     *
+     * @param executor The executor to run on
+     * @return The new warm-up
+     */
+    public @NotNull WarmUp on(@NotNull Executor executor) {
+        Preconditions.checkNotNull(executor, "executor");
+        return new WarmUp(classes, packageName, loader, factory, executor);
+    }
+
+    /**
+     * Warms up all the classes, and waits for them to finish.
+     * <p>
+     * Failures to load a class or to wrap one of its functions do not stop
+     * the warm-up, and are reported in {@link Report#failures()} instead.
+     *
+     * @return The report of the warm-up
+     * @throws UncheckedIOException if the package could not be scanned
+     */
+    public @NotNull Report run() {
+        long start = System.nanoTime();
+        Run run = new Run();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (Class<?> type : classes)
+            tasks.add(CompletableFuture.runAsync(() -> run.warmUp(type), executor));
+        if (packageName != null && loader != null) {
+            for (String className : classNamesIn(packageName, loader))
+                tasks.add(CompletableFuture.runAsync(() -> run.warmUp(className, loader), executor));
+        }
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+        return run.report(System.nanoTime() - start);
+    }
+
+    /**
+     * The state of a single run of a warm-up
+     */
+    private final class Run {
+
+        private final Set<Class<?>> visited = ConcurrentHashMap.newKeySet();
+        private final LongAdder classes = new LongAdder();
+        private final LongAdder functions = new LongAdder();
+        private final LongAdder constructors = new LongAdder();
+        private final LongAdder defaults = new LongAdder();
+        private final Map<String, Throwable> failures = new ConcurrentHashMap<>();
+
+        void warmUp(@NotNull String className, @NotNull ClassLoader loader) {
+            Class<?> type;
+            try {
+                type = Class.forName(className, false, loader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                failures.put(className, e);
+                return;
+            }
+            warmUp(type);
+        }
+
+        void warmUp(@NotNull Class<?> type) {
+            if (!visited.add(type))
+                return;
+            try {
+                KotlinMetadata metadata = KotlinMetadata.of(type);
+                if (metadata == null)
+                    return;
+                classes.increment();
+                for (Method method : type.getDeclaredMethods())
+                    warmUp(method);
+                if (isInstantiable(type)) {
+                    for (Constructor<?> constructor : type.getDeclaredConstructors())
+                        warmUp(constructor);
+                }
+                CompanionObject companion = companionOf(type);
+                if (companion != null)
+                    warmUp(companion.type());
+            } catch (RuntimeException | LinkageError e) {
+                failures.put(type.getName(), e);
+            }
+        }
+
+        private void warmUp(@NotNull Method method) {
+            if (method.isSynthetic() || method.isBridge() || Modifier.isAbstract(method.getModifiers()))
+                return;
+            try {
+                // @JvmStatic bridges have their metadata in the companion
+                if (KotlinFunctionImpl.findMetadata(method) == null)
+                    return;
+                KotlinFunction function = KotlinFunctionCache.global().get(method, factory);
+                functions.increment();
+                if (declaresDefaults(function.getMetadata(), method.getParameterCount())
+                        && ((KotlinFunctionImpl) function).dispatcher().defaultCaller() != null)
+                    defaults.increment();
+            } catch (RuntimeException | LinkageError e) {
+                failures.put(method.toString(), e);
+            }
+        }
+
+        private void warmUp(@NotNull Constructor<?> constructor) {
+            if (constructor.isSynthetic())
+                return;
+            try {
+                KotlinConstructor<?> wrapped = KotlinFunctionCache.global().get(constructor, factory);
+                constructors.increment();
+                if (declaresDefaults(wrapped.getMetadata(), constructor.getParameterCount())
+                        && ((KotlinConstructorImpl<?>) wrapped).dispatcher().defaultCaller() != null)
+                    defaults.increment();
+            } catch (RuntimeException | LinkageError e) {
+                failures.put(constructor.toString(), e);
+            }
+        }
+
+        @NotNull Report report(long nanos) {
+            return new Report(
+                    classes.sum(),
+                    functions.sum(),
+                    constructors.sum(),
+                    defaults.sum(),
+                    Collections.unmodifiableMap(new TreeMap<>(failures)),
+                    nanos
+            );
+        }
+    }
+
+    private static boolean isInstantiable(@NotNull Class<?> type) {
+        return !type.isInterface() && !type.isEnum() && !Modifier.isAbstract(type.getModifiers());
+    }
+
+    private static boolean declaresDefaults(@Nullable FunctionMetadata metadata, int parameterCount) {
+        if (metadata == null)
+            return false;
+        for (int i = 0; i < parameterCount; i++) {
+            if (metadata.declaresDefaultValue(i))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the names of the classes in the given package and its subpackages
+     */
+    private static @NotNull Set<String> classNamesIn(@NotNull String packageName, @NotNull ClassLoader loader) {
+        String path = packageName.replace('.', '/');
+        Set<String> classNames = new LinkedHashSet<>();
+        try {
+            Enumeration<URL> roots = loader.getResources(path);
+            while (roots.hasMoreElements()) {
+                URL root = roots.nextElement();
+                if (root.getProtocol().equals("file"))
+                    addDirectory(classNames, Paths.get(root.toURI()), packageName);
+                else if (root.getProtocol().equals("jar"))
+                    addJar(classNames, (JarURLConnection) root.openConnection(), path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid class path entry for package " + packageName + ".", e);
+        }
+        return classNames;
+    }
+
+    private static void addDirectory(@NotNull Set<String> classNames, @NotNull Path directory, @NotNull String packageName) throws IOException {
+        String prefix = packageName.isEmpty() ? "" : packageName + ".";
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.forEach(file -> {
+                String relative = directory.relativize(file).toString();
+                if (isClassFile(relative))
+                    classNames.add(prefix + toClassName(relative.replace(file.getFileSystem().getSeparator(), "/")));
+            });
+        }
+    }
+
+    private static void addJar(@NotNull Set<String> classNames, @NotNull JarURLConnection connection, @NotNull String path) throws IOException {
+        connection.setUseCaches(false);
+        String prefix = path.isEmpty() ? "" : path + "/";
+        try (JarFile jar = connection.getJarFile()) {
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.startsWith(prefix) && isClassFile(name))
+                    classNames.add(toClassName(name));
+            }
+        }
+    }
+
+    private static boolean isClassFile(@NotNull String path) {
+        return path.endsWith(CLASS_EXTENSION)
+                && !path.endsWith("module-info" + CLASS_EXTENSION)
+                && !path.endsWith("package-info" + CLASS_EXTENSION);
+    }
+
+    private static @NotNull String toClassName(@NotNull String path) {
+        return path.substring(0, path.length() - CLASS_EXTENSION.length()).replace('/', '.');
+    }
+
+    /**
+     * The result of a {@link WarmUp}
+     */
+    public static final class Report {
+
+        private final long classes, functions, constructors, defaults;
+        private final @Unmodifiable Map<String, Throwable> failures;
+        private final long nanos;
+
+        private Report(
+                long classes,
+                long functions,
+                long constructors,
+                long defaults,
+                @NotNull Map<String, Throwable> failures,
+                long nanos
+        ) {
+            this.classes = classes;
+            this.functions = functions;
+            this.constructors = constructors;
+            this.defaults = defaults;
+            this.failures = failures;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Returns the number of Kotlin classes that were warmed up
+         *
+         * @return The class count
+         */
+        public long classes() {
+            return classes;
+        }
+
+        /**
+         * Returns the number of functions that were wrapped
+         *
+         * @return The function count
+         */
+        public long functions() {
+            return functions;
+        }
+
+        /**
+         * Returns the number of constructors that were wrapped
+         *
+         * @return The constructor count
+         */
+        public long constructors() {
+            return constructors;
+        }
+
+        /**
+         * Returns the number of synthetic default methods and constructors
+         * that were resolved
+         *
+         * @return The resolved default count
+         */
+        public long defaults() {
+            return defaults;
+        }
+
+        /**
+         * Returns the classes and members that could not be warmed up, along with
+         * the reason
+         *
+         * @return The failures, mapped by the name of the class or member
+         */
+        public @Unmodifiable @NotNull Map<String, Throwable> failures() {
+            return failures;
+        }
+
+        /**
+         * Returns the time the warm-up took
+         *
+         * @return The elapsed time, in nanoseconds
+         */
+        public long elapsedNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Report(classes=" + classes
+                    + ", functions=" + functions
+                    + ", constructors=" + constructors
+                    + ", defaults=" + defaults
+                    + ", failures=" + failures.size()
+                    + ", elapsed=" + nanos / 1_000_000 + "ms)";
+        }
+    }
+}
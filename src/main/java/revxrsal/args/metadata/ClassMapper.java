@@ -0,0 +1,132 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.metadata;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps Kotlin class names, as written in the metadata, to the JVM types that
+ * the compiler assumes when it omits the JVM signature of a function.
+ * <p>
+ * The compiler only writes a signature when the real descriptor differs from
+ * the one obtained by mapping every type with {@link #mapClass(String)}, so
+ * rebuilding that descriptor is enough to tell overloads apart. Nullability
+ * is not part of this mapping: a nullable {@code Int} maps to {@code I}, and
+ * since it compiles to {@code Integer}, its signature is always written.
+ */
+final class ClassMapper {
+
+    private static final Map<String, String> BUILT_INS = new HashMap<>();
+
+    static {
+        String[] primitives = {
+                "Boolean", "Z", "Char", "C", "Byte", "B", "Short", "S",
+                "Int", "I", "Float", "F", "Long", "J", "Double", "D"
+        };
+        for (int i = 0; i < primitives.length; i += 2) {
+            BUILT_INS.put("kotlin/" + primitives[i], primitives[i + 1]);
+            BUILT_INS.put("kotlin/" + primitives[i] + "Array", "[" + primitives[i + 1]);
+        }
+        BUILT_INS.put("kotlin/Unit", "V");
+        add("Any", "java/lang/Object");
+        add("Nothing", "java/lang/Void");
+        add("Annotation", "java/lang/annotation/Annotation");
+        for (String name : new String[]{"String", "CharSequence", "Throwable", "Cloneable", "Number", "Comparable", "Enum"})
+            add(name, "java/lang/" + name);
+        for (String name : new String[]{"Iterator", "Collection", "List", "Set", "Map", "ListIterator"}) {
+            add("collections/" + name, "java/util/" + name);
+            add("collections/Mutable" + name, "java/util/" + name);
+        }
+        add("collections/Iterable", "java/lang/Iterable");
+        add("collections/MutableIterable", "java/lang/Iterable");
+        add("collections/Map.Entry", "java/util/Map$Entry");
+        add("collections/MutableMap.MutableEntry", "java/util/Map$Entry");
+        for (int i = 0; i <= 22; i++) {
+            add("Function" + i, "kotlin/jvm/functions/Function" + i);
+            add("reflect/KFunction" + i, "kotlin/reflect/KFunction");
+        }
+        for (String name : new String[]{"Char", "Byte", "Short", "Int", "Float", "Long", "Double", "String", "Enum"})
+            add(name + ".Companion", "kotlin/jvm/internal/" + name + "CompanionObject");
+    }
+
+    private ClassMapper() {
+    }
+
+    private static void add(@NotNull String kotlinName, @NotNull String jvmName) {
+        BUILT_INS.put("kotlin/" + kotlinName, "L" + jvmName + ";");
+    }
+
+    /**
+     * Maps a Kotlin class name, such as {@code kotlin/Int} or
+     * {@code a/b/Outer.Inner}, to its default JVM type descriptor
+     *
+     * @param className The class name
+     * @return The type descriptor
+     */
+    static @NotNull String mapClass(@NotNull String className) {
+        String builtIn = BUILT_INS.get(className);
+        return builtIn != null ? builtIn : "L" + className.replace('.', '$') + ";";
+    }
+
+    /**
+     * Rebuilds the descriptor that the compiler infers for a function whose
+     * JVM signature is omitted, or returns {@code null} if one of the types
+     * is not a class, in which case the signature is never omitted.
+     *
+     * @param receiver    The class of the extension receiver, if any
+     * @param parameters  The classes of the value parameters
+     * @param returnClass The class of the return type, or {@code null} for
+     *                    constructors
+     * @param constructor If this is a constructor, which always returns void
+     * @return The descriptor, or null
+     */
+    static @Nullable String defaultDescriptor(
+            @Nullable String receiver,
+            @NotNull List<String> parameters,
+            @Nullable String returnClass,
+            boolean constructor
+    ) {
+        StringBuilder builder = new StringBuilder("(");
+        if (receiver != null)
+            builder.append(mapClass(receiver));
+        for (String parameter : parameters) {
+            if (parameter == null)
+                return null;
+            builder.append(mapClass(parameter));
+        }
+        builder.append(')');
+        if (constructor)
+            builder.append('V');
+        else if (returnClass == null)
+            return null;
+        else
+            builder.append(mapClass(returnClass));
+        return builder.toString();
+    }
+}
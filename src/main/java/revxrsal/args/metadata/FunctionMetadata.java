@@ -0,0 +1,205 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.metadata;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Kotlin metadata of a single function or constructor, as read from
+ * the {@code kotlin.Metadata} annotation of its class.
+ * <p>
+ * Unless stated otherwise, parameter indices refer to the parameters of
+ * the JVM method, which may be preceded by an extension or context
+ * receivers, and followed by a continuation if the function is suspend.
+ * The JVM constructors of inner classes are preceded by the outer instance,
+ * which is counted as a receiver.
+ * <p>
+ * This class is immutable, therefore is safe to share across multiple
+ * threads.
+ */
+public final class FunctionMetadata {
+
+    /**
+     * The IS_SUSPEND function flag
+     */
+    private static final int IS_SUSPEND = 1 << 13;
+
+    /**
+     * The name of constructors
+     */
+    static final String CONSTRUCTOR_NAME = "<init>";
+
+    /**
+     * The DECLARES_DEFAULT_VALUE value parameter flag
+     */
+    static final int DECLARES_DEFAULT_VALUE = 1 << 1;
+
+    private final String name;
+    private final String jvmName;
+    private final @Nullable String jvmDescriptor;
+    private final int flags;
+    private final int receivers;
+    private final boolean returnsUnit;
+    private final List<String> parameterNames;
+    private final boolean[] declaresDefault;
+
+    FunctionMetadata(
+            @NotNull String name,
+            @NotNull String jvmName,
+            @Nullable String jvmDescriptor,
+            int flags,
+            int receivers,
+            boolean returnsUnit,
+            @NotNull String[] parameterNames,
+            boolean @NotNull [] declaresDefault
+    ) {
+        this.name = name;
+        this.jvmName = jvmName;
+        this.jvmDescriptor = jvmDescriptor;
+        this.flags = flags;
+        this.receivers = receivers;
+        this.returnsUnit = returnsUnit;
+        this.parameterNames = Collections.unmodifiableList(Arrays.asList(parameterNames));
+        this.declaresDefault = declaresDefault;
+    }
+
+    /**
+     * Returns the name of the function in Kotlin, or {@code <init>} for
+     * constructors
+     *
+     * @return The function name
+     */
+    public @NotNull String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the names of the value parameters, as declared in Kotlin. These
+     * do not include receivers or continuations.
+     *
+     * @return The parameter names
+     */
+    public @Unmodifiable @NotNull List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    /**
+     * Tests whether the function is a suspend function
+     *
+     * @return If the function is suspend
+     */
+    public boolean isSuspend() {
+        return (flags & IS_SUSPEND) != 0;
+    }
+
+    /**
+     * Tests whether the function returns {@code Unit} in Kotlin.
+     * <p>
+     * Suspend functions are compiled to return {@code Object}, and may
+     * return the value of a function they tail-call instead of {@code Unit},
+     * so their results should be replaced with {@code Unit} when this is true.
+     *
+     * @return If the function returns Unit
+     */
+    public boolean returnsUnit() {
+        return returnsUnit;
+    }
+
+    /**
+     * Returns the number of JVM parameters that precede the value parameters,
+     * i.e. the extension receiver and context receivers, or the outer instance
+     * of an inner class constructor.
+     *
+     * @return The number of receiver parameters
+     */
+    public int getReceiverCount() {
+        return receivers;
+    }
+
+    /**
+     * Returns the Kotlin name of the JVM parameter at the given index, or
+     * {@code null} if it is not a value parameter
+     *
+     * @param index The index of the JVM parameter
+     * @return The name, or null
+     */
+    public @Nullable String getParameterName(int index) {
+        int valueIndex = index - receivers;
+        if (valueIndex < 0 || valueIndex >= parameterNames.size())
+            return null;
+        return parameterNames.get(valueIndex);
+    }
+
+    /**
+     * Tests whether the JVM parameter at the given index declares a
+     * default value
+     *
+     * @param index The index of the JVM parameter
+     * @return If the parameter has a default value
+     */
+    public boolean declaresDefaultValue(int index) {
+        int valueIndex = index - receivers;
+        return valueIndex >= 0 && valueIndex < declaresDefault.length && declaresDefault[valueIndex];
+    }
+
+    /**
+     * Returns the number of parameters of the JVM method of this function
+     */
+    int jvmArity() {
+        return receivers + parameterNames.size() + (isSuspend() ? 1 : 0);
+    }
+
+    /**
+     * Tests whether this metadata describes the given method or constructor.
+     * <p>
+     * The descriptor is either written in the metadata or inferred from the
+     * Kotlin types. If neither is possible, only the name and the number of
+     * parameters are compared, which may match more than one function.
+     *
+     * @param executable The method or constructor
+     * @param descriptor The JVM descriptor of the executable
+     * @return If the executable matches
+     */
+    boolean matches(@NotNull Executable executable, @NotNull String descriptor) {
+        String name = executable instanceof Constructor ? CONSTRUCTOR_NAME : executable.getName();
+        if (!jvmName.equals(name))
+            return false;
+        if (jvmDescriptor != null)
+            return jvmDescriptor.equals(descriptor);
+        return executable.getParameterCount() == jvmArity();
+    }
+
+    @Override
+    public String toString() {
+        return "FunctionMetadata(" + name + parameterNames + (isSuspend() ? ", suspend" : "") + ")";
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.metadata;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The Kotlin metadata of a class, read directly from its {@code kotlin.Metadata}
+ * annotation without requiring kotlin-reflect.
+ * <p>
+ * This gives access to information that is lost in the compiled bytecode,
+ * such as which parameters declare default values, and their names when
+ * the code was compiled without {@code -java-parameters}.
+ * <p>
+ * Metadata is decoded at most once per class. This class is immutable,
+ * therefore is safe to share across multiple threads.
+ */
+public final class KotlinMetadata {
+
+    private static final String METADATA_ANNOTATION = "kotlin.Metadata";
+
+    /**
+     * The memoized metadata of classes
+     */
+    private static final ClassValue<Optional<KotlinMetadata>> METADATA = new ClassValue<Optional<KotlinMetadata>>() {
+        @Override
+        protected Optional<KotlinMetadata> computeValue(Class<?> type) {
+            return Optional.ofNullable(read(type));
+        }
+    };
+
+    private final @Unmodifiable List<FunctionMetadata> functions;
+    private final @Unmodifiable List<FunctionMetadata> constructors;
+    private final boolean isObject;
+
+    KotlinMetadata(
+            @NotNull List<FunctionMetadata> functions,
+            @NotNull List<FunctionMetadata> constructors,
+            boolean isObject
+    ) {
+        this.functions = Collections.unmodifiableList(functions);
+        this.constructors = Collections.unmodifiableList(constructors);
+        this.isObject = isObject;
+    }
+
+    /**
+     * Returns the metadata of the given class, or {@code null} if it is not
+     * a Kotlin class, or its metadata could not be read.
+     *
+     * @param type The class
+     * @return The metadata, or null
+     */
+    public static @Nullable KotlinMetadata of(@NotNull Class<?> type) {
+        return METADATA.get(type).orElse(null);
+    }
+
+    /**
+     * Returns the metadata of the Kotlin function that compiles to the
+     * given method, or {@code null} if it has none.
+     *
+     * @param method The method
+     * @return The function metadata, or null
+     */
+    public static @Nullable FunctionMetadata of(@NotNull Method method) {
+        KotlinMetadata metadata = of(method.getDeclaringClass());
+        return metadata == null ? null : metadata.getFunction(method);
+    }
+
+    /**
+     * Returns the metadata of the Kotlin constructor that compiles to the
+     * given constructor, or {@code null} if it has none.
+     *
+     * @param constructor The constructor
+     * @return The constructor metadata, or null
+     */
+    public static @Nullable FunctionMetadata of(@NotNull Constructor<?> constructor) {
+        KotlinMetadata metadata = of(constructor.getDeclaringClass());
+        return metadata == null ? null : metadata.getConstructor(constructor);
+    }
+
+    /**
+     * Tests whether this class is an {@code object} declaration or a
+     * {@code companion object}, as opposed to a regular class, an
+     * interface or an enum
+     *
+     * @return If this class is a singleton
+     */
+    public boolean isObject() {
+        return isObject;
+    }
+
+    /**
+     * Returns the functions declared in this class
+     *
+     * @return The functions
+     */
+    public @Unmodifiable @NotNull List<FunctionMetadata> getFunctions() {
+        return functions;
+    }
+
+    /**
+     * Returns the metadata of the function that compiles to the given
+     * method, or {@code null} if none of the functions match.
+     *
+     * @param method The method
+     * @return The function metadata, or null
+     */
+    public @Nullable FunctionMetadata getFunction(@NotNull Method method) {
+        return find(functions, method);
+    }
+
+    /**
+     * Returns the constructors declared in this class
+     *
+     * @return The constructors
+     */
+    public @Unmodifiable @NotNull List<FunctionMetadata> getConstructors() {
+        return constructors;
+    }
+
+    /**
+     * Returns the metadata of the constructor that compiles to the given
+     * constructor, or {@code null} if none of the constructors match.
+     *
+     * @param constructor The constructor
+     * @return The constructor metadata, or null
+     */
+    public @Nullable FunctionMetadata getConstructor(@NotNull Constructor<?> constructor) {
+        return find(constructors, constructor);
+    }
+
+    private static @Nullable FunctionMetadata find(
+            @NotNull List<FunctionMetadata> candidates,
+            @NotNull Executable executable
+    ) {
+        String descriptor = descriptor(executable);
+        FunctionMetadata match = null;
+        for (FunctionMetadata candidate : candidates) {
+            if (!candidate.matches(executable, descriptor))
+                continue;
+            // an inexact match that is not unique cannot be trusted
+            if (match != null)
+                return null;
+            match = candidate;
+        }
+        return match;
+    }
+
+    private static @Nullable KotlinMetadata read(@NotNull Class<?> type) {
+        for (Annotation annotation : type.getDeclaredAnnotations()) {
+            Class<? extends Annotation> annotationType = annotation.annotationType();
+            if (!annotationType.getName().equals(METADATA_ANNOTATION))
+                continue;
+            try {
+                int kind = (int) annotationType.getMethod("k").invoke(annotation);
+                String[] d1 = (String[]) annotationType.getMethod("d1").invoke(annotation);
+                String[] d2 = (String[]) annotationType.getMethod("d2").invoke(annotation);
+                return MetadataParser.read(kind, d1, d2, isInner(type) ? 1 : 0);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // malformed or unsupported metadata
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isInner(@NotNull Class<?> type) {
+        return type.isMemberClass() && !Modifier.isStatic(type.getModifiers());
+    }
+
+    private static @NotNull String descriptor(@NotNull Executable executable) {
+        StringBuilder builder = new StringBuilder("(");
+        for (Class<?> parameterType : executable.getParameterTypes())
+            appendDescriptor(builder, parameterType);
+        builder.append(')');
+        if (executable instanceof Method)
+            appendDescriptor(builder, ((Method) executable).getReturnType());
+        else
+            builder.append('V');
+        return builder.toString();
+    }
+
+    private static void appendDescriptor(@NotNull StringBuilder builder, @NotNull Class<?> type) {
+        while (type.isArray()) {
+            builder.append('[');
+            type = type.getComponentType();
+        }
+        if (type == int.class) builder.append('I');
+        else if (type == long.class) builder.append('J');
+        else if (type == boolean.class) builder.append('Z');
+        else if (type == double.class) builder.append('D');
+        else if (type == float.class) builder.append('F');
+        else if (type == byte.class) builder.append('B');
+        else if (type == char.class) builder.append('C');
+        else if (type == short.class) builder.append('S');
+        else if (type == void.class) builder.append('V');
+        else builder.append('L').append(type.getName().replace('.', '/')).append(';');
+    }
+}
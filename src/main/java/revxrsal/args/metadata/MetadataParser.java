@@ -0,0 +1,394 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.metadata;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.args.metadata.ProtoReader.IntList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static revxrsal.args.metadata.ProtoReader.LENGTH_DELIMITED;
+import static revxrsal.args.metadata.ProtoReader.fieldNumber;
+import static revxrsal.args.metadata.ProtoReader.wireType;
+
+/**
+ * Decodes the {@code d1} and {@code d2} values of the {@code kotlin.Metadata}
+ * annotation into {@link FunctionMetadata}s.
+ * <p>
+ * Only the parts of the metadata that describe functions and constructors
+ * are read, and everything else is skipped.
+ */
+final class MetadataParser {
+
+    /**
+     * Metadata kinds, as in {@code kotlin.Metadata.k}
+     */
+    static final int KIND_CLASS = 1;
+    static final int KIND_FILE = 2;
+    static final int KIND_MULTI_FILE_CLASS_PART = 5;
+
+    /**
+     * Marks {@code d1} as encoded in the UTF-8 mode
+     */
+    private static final char UTF8_MODE_MARKER = '\u0000';
+
+    // ProtoBuf.Class
+    private static final int CLASS_FLAGS = 1;
+    private static final int CLASS_CONSTRUCTOR = 8;
+    private static final int CLASS_FUNCTION = 9;
+
+    // ProtoBuf.Package
+    private static final int PACKAGE_FUNCTION = 3;
+
+    // ProtoBuf.Function
+    private static final int FUNCTION_OLD_FLAGS = 1;
+    private static final int FUNCTION_NAME = 2;
+    private static final int FUNCTION_RETURN_TYPE = 3;
+    private static final int FUNCTION_RECEIVER_TYPE = 5;
+    private static final int FUNCTION_VALUE_PARAMETER = 6;
+    private static final int FUNCTION_RECEIVER_TYPE_ID = 8;
+    private static final int FUNCTION_FLAGS = 9;
+    private static final int FUNCTION_CONTEXT_RECEIVER_TYPE = 10;
+    private static final int FUNCTION_CONTEXT_RECEIVER_TYPE_ID = 11;
+    private static final int FUNCTION_JVM_SIGNATURE = 100;
+
+    // ProtoBuf.Constructor
+    private static final int CONSTRUCTOR_VALUE_PARAMETER = 2;
+    private static final int CONSTRUCTOR_JVM_SIGNATURE = 100;
+
+    // JvmProtoBuf.JvmMethodSignature
+    private static final int SIGNATURE_NAME = 1;
+    private static final int SIGNATURE_DESC = 2;
+
+    // ProtoBuf.ValueParameter
+    private static final int PARAMETER_FLAGS = 1;
+    private static final int PARAMETER_NAME = 2;
+    private static final int PARAMETER_TYPE = 3;
+
+    // ProtoBuf.Type
+    private static final int TYPE_CLASS_NAME = 6;
+
+    /**
+     * The default flags of functions when none are written
+     */
+    private static final int DEFAULT_FUNCTION_FLAGS = 6;
+
+    /**
+     * The default flags of classes when none are written, i.e. a public
+     * final class
+     */
+    private static final int DEFAULT_CLASS_FLAGS = 6;
+
+    /**
+     * The position and width of the class kind in the class flags, after the
+     * annotations, visibility and modality bits
+     */
+    private static final int CLASS_KIND_SHIFT = 6;
+    private static final int CLASS_KIND_MASK = 0x7;
+
+    /**
+     * {@code ProtoBuf.Class.Kind}s of singletons
+     */
+    private static final int CLASS_KIND_OBJECT = 5;
+    private static final int CLASS_KIND_COMPANION_OBJECT = 6;
+
+    private MetadataParser() {
+    }
+
+    /**
+     * Reads the functions and constructors declared in the given metadata
+     *
+     * @param kind                 The metadata kind
+     * @param d1                   The d1 value, containing the protobuf message
+     * @param d2                   The d2 value, containing the strings
+     * @param constructorReceivers The number of JVM parameters that precede
+     *                             the value parameters of constructors, i.e. 1
+     *                             for the outer instance of inner classes
+     * @return The metadata
+     */
+    static @NotNull KotlinMetadata read(int kind, @NotNull String[] d1, @NotNull String[] d2, int constructorReceivers) {
+        int functionField;
+        if (kind == KIND_CLASS)
+            functionField = CLASS_FUNCTION;
+        else if (kind == KIND_FILE || kind == KIND_MULTI_FILE_CLASS_PART)
+            functionField = PACKAGE_FUNCTION;
+        else
+            return new KotlinMetadata(Collections.emptyList(), Collections.emptyList(), false);
+
+        ProtoReader reader = new ProtoReader(decodeBytes(d1));
+        NameResolver names = NameResolver.read(reader.readMessage(), d2);
+        List<FunctionMetadata> functions = new ArrayList<>();
+        List<FunctionMetadata> constructors = new ArrayList<>();
+        int classFlags = DEFAULT_CLASS_FLAGS;
+        while (reader.hasRemaining()) {
+            int tag = reader.readTag();
+            if (kind == KIND_CLASS && fieldNumber(tag) == CLASS_FLAGS && wireType(tag) != LENGTH_DELIMITED)
+                classFlags = reader.readInt();
+            else if (wireType(tag) == LENGTH_DELIMITED && fieldNumber(tag) == functionField)
+                functions.add(readFunction(reader.readMessage(), names));
+            else if (wireType(tag) == LENGTH_DELIMITED && kind == KIND_CLASS && fieldNumber(tag) == CLASS_CONSTRUCTOR)
+                constructors.add(readConstructor(reader.readMessage(), names, constructorReceivers));
+            else
+                reader.skip(wireType(tag));
+        }
+        int classKind = classFlags >>> CLASS_KIND_SHIFT & CLASS_KIND_MASK;
+        boolean isObject = kind == KIND_CLASS
+                && (classKind == CLASS_KIND_OBJECT || classKind == CLASS_KIND_COMPANION_OBJECT);
+        return new KotlinMetadata(functions, constructors, isObject);
+    }
+
+    private static @NotNull FunctionMetadata readFunction(@NotNull ProtoReader reader, @NotNull NameResolver names) {
+        int flags = -1, oldFlags = DEFAULT_FUNCTION_FLAGS;
+        int name = -1, receivers = 0;
+        String jvmName = null, jvmDescriptor = null;
+        String receiverClass = null, returnClass = null;
+        List<String> parameterNames = new ArrayList<>();
+        List<String> parameterClasses = new ArrayList<>();
+        IntList parameterFlags = new IntList();
+        IntList contextReceiverIds = new IntList();
+        while (reader.hasRemaining()) {
+            int tag = reader.readTag();
+            int wireType = wireType(tag);
+            switch (fieldNumber(tag)) {
+                case FUNCTION_FLAGS:
+                    flags = reader.readInt();
+                    break;
+                case FUNCTION_OLD_FLAGS:
+                    oldFlags = reader.readInt();
+                    break;
+                case FUNCTION_NAME:
+                    name = reader.readInt();
+                    break;
+                case FUNCTION_RETURN_TYPE:
+                    returnClass = readClassName(reader.readMessage(), names);
+                    break;
+                case FUNCTION_RECEIVER_TYPE:
+                    receivers++;
+                    receiverClass = readClassName(reader.readMessage(), names);
+                    break;
+                case FUNCTION_RECEIVER_TYPE_ID:
+                case FUNCTION_CONTEXT_RECEIVER_TYPE:
+                    receivers++;
+                    reader.skip(wireType);
+                    break;
+                case FUNCTION_CONTEXT_RECEIVER_TYPE_ID:
+                    reader.readInts(wireType, contextReceiverIds);
+                    break;
+                case FUNCTION_VALUE_PARAMETER:
+                    readValueParameter(reader.readMessage(), names, parameterNames, parameterFlags, parameterClasses);
+                    break;
+                case FUNCTION_JVM_SIGNATURE: {
+                    String[] signature = readSignature(reader.readMessage(), names);
+                    jvmName = signature[0];
+                    jvmDescriptor = signature[1];
+                    break;
+                }
+                default:
+                    reader.skip(wireType);
+            }
+        }
+        // the descriptor is omitted when it can be inferred from the
+        // Kotlin types, in which case an extension receiver is the only
+        // parameter preceding the value parameters
+        if (jvmDescriptor == null && (receivers == 0 || receiverClass != null) && contextReceiverIds.size() == 0)
+            jvmDescriptor = ClassMapper.defaultDescriptor(receiverClass, parameterClasses, returnClass, false);
+        String functionName = names.getString(name);
+        return new FunctionMetadata(
+                functionName,
+                jvmName == null ? functionName : jvmName,
+                jvmDescriptor,
+                flags == -1 ? oldFlags : flags,
+                receivers + contextReceiverIds.size(),
+                "kotlin/Unit".equals(returnClass),
+                parameterNames.toArray(new String[0]),
+                declaresDefault(parameterFlags)
+        );
+    }
+
+    private static @NotNull FunctionMetadata readConstructor(
+            @NotNull ProtoReader reader,
+            @NotNull NameResolver names,
+            int receivers
+    ) {
+        String jvmDescriptor = null;
+        List<String> parameterNames = new ArrayList<>();
+        List<String> parameterClasses = new ArrayList<>();
+        IntList parameterFlags = new IntList();
+        while (reader.hasRemaining()) {
+            int tag = reader.readTag();
+            switch (fieldNumber(tag)) {
+                case CONSTRUCTOR_VALUE_PARAMETER:
+                    readValueParameter(reader.readMessage(), names, parameterNames, parameterFlags, parameterClasses);
+                    break;
+                case CONSTRUCTOR_JVM_SIGNATURE:
+                    jvmDescriptor = readSignature(reader.readMessage(), names)[1];
+                    break;
+                default:
+                    reader.skip(wireType(tag));
+            }
+        }
+        // the outer instance of inner classes is never part of the
+        // inferred descriptor
+        if (jvmDescriptor == null && receivers == 0)
+            jvmDescriptor = ClassMapper.defaultDescriptor(null, parameterClasses, null, true);
+        // constructor flags do not share any bits with the function flags
+        // that are read, so none are kept
+        return new FunctionMetadata(
+                FunctionMetadata.CONSTRUCTOR_NAME,
+                FunctionMetadata.CONSTRUCTOR_NAME,
+                jvmDescriptor,
+                0,
+                receivers,
+                false,
+                parameterNames.toArray(new String[0]),
+                declaresDefault(parameterFlags)
+        );
+    }
+
+    private static void readValueParameter(
+            @NotNull ProtoReader parameter,
+            @NotNull NameResolver names,
+            @NotNull List<String> parameterNames,
+            @NotNull IntList parameterFlags,
+            @NotNull List<String> parameterClasses
+    ) {
+        int flags = 0, name = -1;
+        String className = null;
+        while (parameter.hasRemaining()) {
+            int tag = parameter.readTag();
+            switch (fieldNumber(tag)) {
+                case PARAMETER_FLAGS:
+                    flags = parameter.readInt();
+                    break;
+                case PARAMETER_NAME:
+                    name = parameter.readInt();
+                    break;
+                case PARAMETER_TYPE:
+                    className = readClassName(parameter.readMessage(), names);
+                    break;
+                default:
+                    parameter.skip(wireType(tag));
+            }
+        }
+        parameterNames.add(names.getString(name));
+        parameterFlags.add(flags);
+        parameterClasses.add(className);
+    }
+
+    /**
+     * Reads a JVM method signature, returning its name and descriptor, either
+     * of which may be {@code null}
+     */
+    private static @Nullable String @NotNull [] readSignature(@NotNull ProtoReader signature, @NotNull NameResolver names) {
+        String name = null, descriptor = null;
+        while (signature.hasRemaining()) {
+            int tag = signature.readTag();
+            switch (fieldNumber(tag)) {
+                case SIGNATURE_NAME:
+                    name = names.getString(signature.readInt());
+                    break;
+                case SIGNATURE_DESC:
+                    descriptor = names.getString(signature.readInt());
+                    break;
+                default:
+                    signature.skip(wireType(tag));
+            }
+        }
+        return new String[]{name, descriptor};
+    }
+
+    private static boolean @NotNull [] declaresDefault(@NotNull IntList parameterFlags) {
+        boolean[] declaresDefault = new boolean[parameterFlags.size()];
+        for (int i = 0; i < declaresDefault.length; i++)
+            declaresDefault[i] = (parameterFlags.get(i) & FunctionMetadata.DECLARES_DEFAULT_VALUE) != 0;
+        return declaresDefault;
+    }
+
+    private static @Nullable String readClassName(@NotNull ProtoReader type, @NotNull NameResolver names) {
+        while (type.hasRemaining()) {
+            int tag = type.readTag();
+            if (fieldNumber(tag) == TYPE_CLASS_NAME)
+                return names.getString(type.readInt());
+            type.skip(wireType(tag));
+        }
+        return null;
+    }
+
+    /**
+     * Decodes the bytes of the protobuf message stored in {@code d1}
+     *
+     * @param data The d1 strings
+     * @return The decoded bytes
+     */
+    static byte @NotNull [] decodeBytes(@NotNull String[] data) {
+        if (data.length > 0 && !data[0].isEmpty() && data[0].charAt(0) == UTF8_MODE_MARKER) {
+            // every char holds a single byte, and the first char is the marker
+            byte[] bytes = toBytes(data);
+            byte[] result = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, result, 0, result.length);
+            return result;
+        }
+
+        // the legacy mode, where every char holds 7 bits
+        byte[] bytes = toBytes(data);
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) ((bytes[i] + 0x7F) & 0x7F);
+        return decode7to8(bytes);
+    }
+
+    private static byte @NotNull [] toBytes(@NotNull String[] data) {
+        int length = 0;
+        for (String string : data)
+            length += string.length();
+        byte[] bytes = new byte[length];
+        int index = 0;
+        for (String string : data)
+            for (int i = 0; i < string.length(); i++)
+                bytes[index++] = (byte) string.charAt(i);
+        return bytes;
+    }
+
+    private static byte @NotNull [] decode7to8(byte @NotNull [] data) {
+        int resultLength = 7 * data.length / 8;
+        byte[] result = new byte[resultLength];
+        int byteIndex = 0;
+        int bit = 0;
+        for (int i = 0; i < resultLength; i++) {
+            int firstPart = (data[byteIndex] & 0xFF) >>> bit;
+            byteIndex++;
+            int secondPart = (data[byteIndex] & ((1 << (bit + 1)) - 1)) << (7 - bit);
+            result[i] = (byte) (firstPart + secondPart);
+            if (bit == 6) {
+                byteIndex++;
+                bit = 0;
+            } else {
+                bit++;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.metadata;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.args.metadata.ProtoReader.IntList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resolves the string indices used by Kotlin metadata, based on the
+ * {@code StringTableTypes} message that precedes it and the {@code d2}
+ * strings of the {@code kotlin.Metadata} annotation.
+ */
+final class NameResolver {
+
+    /**
+     * Strings that are referenced by index instead of being stored in {@code d2}.
+     * The order must not change, as it is part of the metadata format.
+     */
+    private static final List<String> PREDEFINED_STRINGS = Arrays.asList(
+            "kotlin/Any", "kotlin/Nothing", "kotlin/Unit", "kotlin/Throwable", "kotlin/Number",
+            "kotlin/Byte", "kotlin/Double", "kotlin/Float", "kotlin/Int", "kotlin/Long",
+            "kotlin/Short", "kotlin/Boolean", "kotlin/Char", "kotlin/CharSequence", "kotlin/String",
+            "kotlin/Comparable", "kotlin/Enum", "kotlin/Array", "kotlin/ByteArray", "kotlin/DoubleArray",
+            "kotlin/FloatArray", "kotlin/IntArray", "kotlin/LongArray", "kotlin/ShortArray", "kotlin/BooleanArray",
+            "kotlin/CharArray", "kotlin/Cloneable", "kotlin/Annotation",
+            "kotlin/collections/Iterable", "kotlin/collections/MutableIterable",
+            "kotlin/collections/Collection", "kotlin/collections/MutableCollection",
+            "kotlin/collections/List", "kotlin/collections/MutableList",
+            "kotlin/collections/Set", "kotlin/collections/MutableSet",
+            "kotlin/collections/Map", "kotlin/collections/MutableMap",
+            "kotlin/collections/Map.Entry", "kotlin/collections/MutableMap.MutableEntry",
+            "kotlin/collections/Iterator", "kotlin/collections/MutableIterator",
+            "kotlin/collections/ListIterator", "kotlin/collections/MutableListIterator"
+    );
+
+    private static final int OPERATION_NONE = 0;
+    private static final int OPERATION_INTERNAL_TO_CLASS_ID = 1;
+    private static final int OPERATION_DESC_TO_CLASS_ID = 2;
+
+    private final String[] strings;
+
+    /**
+     * The records, expanded so that every index has its own record
+     */
+    private final List<Record> records;
+
+    private NameResolver(@NotNull String[] strings, @NotNull List<Record> records) {
+        this.strings = strings;
+        this.records = records;
+    }
+
+    /**
+     * Reads the {@code StringTableTypes} message
+     *
+     * @param reader  The reader of the message
+     * @param strings The d2 strings
+     * @return The name resolver
+     */
+    static @NotNull NameResolver read(@NotNull ProtoReader reader, @NotNull String[] strings) {
+        List<Record> records = new ArrayList<>();
+        while (reader.hasRemaining()) {
+            int tag = reader.readTag();
+            if (ProtoReader.fieldNumber(tag) == 1 && ProtoReader.wireType(tag) == ProtoReader.LENGTH_DELIMITED) {
+                Record record = Record.read(reader.readMessage());
+                for (int i = 0; i < record.range; i++)
+                    records.add(record);
+            } else {
+                reader.skip(ProtoReader.wireType(tag));
+            }
+        }
+        return new NameResolver(strings, records);
+    }
+
+    /**
+     * Returns the string at the given index
+     *
+     * @param index The index
+     * @return The string
+     */
+    @NotNull String getString(int index) {
+        Record record = index < records.size() ? records.get(index) : null;
+        if (record == null)
+            return strings[index];
+        String string;
+        if (record.string != null)
+            string = record.string;
+        else if (record.predefinedIndex >= 0 && record.predefinedIndex < PREDEFINED_STRINGS.size())
+            string = PREDEFINED_STRINGS.get(record.predefinedIndex);
+        else
+            string = strings[index];
+
+        if (record.substringIndex.size() >= 2) {
+            int begin = record.substringIndex.get(0);
+            int end = record.substringIndex.get(1);
+            if (0 <= begin && begin <= end && end <= string.length())
+                string = string.substring(begin, end);
+        }
+        if (record.replaceChar.size() >= 2)
+            string = string.replace((char) record.replaceChar.get(0), (char) record.replaceChar.get(1));
+
+        switch (record.operation) {
+            case OPERATION_INTERNAL_TO_CLASS_ID:
+                string = string.replace('$', '.');
+                break;
+            case OPERATION_DESC_TO_CLASS_ID:
+                if (string.length() >= 2)
+                    string = string.substring(1, string.length() - 1);
+                string = string.replace('$', '.');
+                break;
+            default:
+                break;
+        }
+        return string;
+    }
+
+    /**
+     * A {@code StringTableTypes.Record}
+     */
+    private static final class Record {
+
+        private int range = 1;
+        private int predefinedIndex = -1;
+        private @Nullable String string;
+        private int operation = OPERATION_NONE;
+        private final IntList substringIndex = new IntList();
+        private final IntList replaceChar = new IntList();
+
+        private static @NotNull Record read(@NotNull ProtoReader reader) {
+            Record record = new Record();
+            while (reader.hasRemaining()) {
+                int tag = reader.readTag();
+                int wireType = ProtoReader.wireType(tag);
+                switch (ProtoReader.fieldNumber(tag)) {
+                    case 1:
+                        record.range = reader.readInt();
+                        break;
+                    case 2:
+                        record.predefinedIndex = reader.readInt();
+                        break;
+                    case 3:
+                        record.operation = reader.readInt();
+                        break;
+                    case 4:
+                        reader.readInts(wireType, record.substringIndex);
+                        break;
+                    case 5:
+                        reader.readInts(wireType, record.replaceChar);
+                        break;
+                    case 6:
+                        record.string = reader.readString();
+                        break;
+                    default:
+                        reader.skip(wireType);
+                }
+            }
+            return record;
+        }
+    }
+}
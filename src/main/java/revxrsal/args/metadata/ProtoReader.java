@@ -0,0 +1,212 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.metadata;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A minimal reader for the protobuf wire format, supporting only what
+ * is needed to read Kotlin metadata.
+ * <p>
+ * Unknown fields are skipped, so newer metadata versions that add fields
+ * remain readable.
+ */
+final class ProtoReader {
+
+    static final int VARINT = 0;
+    static final int FIXED64 = 1;
+    static final int LENGTH_DELIMITED = 2;
+    static final int FIXED32 = 5;
+
+    private final byte[] bytes;
+    private int position;
+    private final int limit;
+
+    ProtoReader(byte @NotNull [] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    private ProtoReader(byte @NotNull [] bytes, int position, int limit) {
+        this.bytes = bytes;
+        this.position = position;
+        this.limit = limit;
+    }
+
+    /**
+     * Tests whether there are more bytes to read
+     *
+     * @return If there are more bytes
+     */
+    boolean hasRemaining() {
+        return position < limit;
+    }
+
+    /**
+     * Reads the next tag, which combines the field number and the
+     * wire type.
+     *
+     * @return The tag
+     */
+    int readTag() {
+        return readInt();
+    }
+
+    /**
+     * Returns the field number of the given tag
+     */
+    static int fieldNumber(int tag) {
+        return tag >>> 3;
+    }
+
+    /**
+     * Returns the wire type of the given tag
+     */
+    static int wireType(int tag) {
+        return tag & 7;
+    }
+
+    /**
+     * Reads a varint, truncated to an int. Negative int32 values are
+     * encoded in 10 bytes, which truncate back correctly.
+     *
+     * @return The int value
+     */
+    int readInt() {
+        return (int) readLong();
+    }
+
+    private long readLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = next();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return result;
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    /**
+     * Reads a length-delimited field as a reader over its bytes, and skips
+     * it in this reader.
+     *
+     * @return The nested reader
+     */
+    @NotNull ProtoReader readMessage() {
+        int length = readInt();
+        if (length < 0 || length > limit - position)
+            throw new IllegalStateException("Truncated message");
+        ProtoReader nested = new ProtoReader(bytes, position, position + length);
+        position += length;
+        return nested;
+    }
+
+    /**
+     * Reads a length-delimited field as a UTF-8 string
+     *
+     * @return The string
+     */
+    @NotNull String readString() {
+        ProtoReader reader = readMessage();
+        return new String(bytes, reader.position, reader.limit - reader.position, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a repeated int32 field, which may either be packed or not.
+     *
+     * @param wireType The wire type of the field
+     * @param values   The list to add to
+     */
+    void readInts(int wireType, @NotNull IntList values) {
+        if (wireType != LENGTH_DELIMITED) {
+            values.add(readInt());
+            return;
+        }
+        ProtoReader packed = readMessage();
+        while (packed.hasRemaining())
+            values.add(packed.readInt());
+    }
+
+    /**
+     * Skips the value of a field with the given wire type
+     *
+     * @param wireType The wire type
+     */
+    void skip(int wireType) {
+        switch (wireType) {
+            case VARINT:
+                readLong();
+                break;
+            case FIXED64:
+                advance(8);
+                break;
+            case LENGTH_DELIMITED:
+                readMessage();
+                break;
+            case FIXED32:
+                advance(4);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported wire type: " + wireType);
+        }
+    }
+
+    private void advance(int count) {
+        if (count > limit - position)
+            throw new IllegalStateException("Truncated message");
+        position += count;
+    }
+
+    private byte next() {
+        if (position >= limit)
+            throw new IllegalStateException("Truncated message");
+        return bytes[position++];
+    }
+
+    /**
+     * A growable list of primitive ints
+     */
+    static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length)
+                values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
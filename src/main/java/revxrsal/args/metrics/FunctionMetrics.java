@@ -0,0 +1,208 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.lang.reflect.Executable;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of a single function or constructor, as recorded by
+ * {@link InvocationMetrics}.
+ * <p>
+ * All counters are {@link LongAdder}s, which are striped across cores, so
+ * recording from many threads does not contend. Reading them sums the
+ * stripes, so values read while calls are being recorded are not an
+ * atomic snapshot.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class FunctionMetrics {
+
+    /**
+     * Latencies are recorded in buckets of powers of two: bucket {@code i}
+     * holds latencies in {@code [2^i, 2^(i+1))} nanoseconds. Bucket 0 also
+     * holds latencies of 0.
+     */
+    private static final int LATENCY_BUCKETS = Long.SIZE;
+
+    private final Executable executable;
+    private final LongAdder mainPath = new LongAdder();
+    private final LongAdder defaultPath = new LongAdder();
+    private final LongAdder[] latencies = new LongAdder[LATENCY_BUCKETS];
+    private final LongAdder resolutions = new LongAdder();
+    private final LongAdder resolutionNanos = new LongAdder();
+
+    /**
+     * The invocations per mask of the parameters that used their defaults.
+     * Masks are passed by the same array for every call of the same plan,
+     * so they are keyed by identity, and merged when read.
+     */
+    private final ConcurrentMap<long[], LongAdder> omissions = new ConcurrentHashMap<>();
+
+    FunctionMetrics(@NotNull Executable executable) {
+        this.executable = executable;
+        for (int i = 0; i < LATENCY_BUCKETS; i++)
+            latencies[i] = new LongAdder();
+    }
+
+    void recordInvocation(long @NotNull [] defaults, boolean usesDefaultMethod, long nanos) {
+        (usesDefaultMethod ? defaultPath : mainPath).increment();
+        latencies[bucketOf(nanos)].increment();
+        LongAdder omission = omissions.get(defaults);
+        if (omission == null)
+            omission = omissions.computeIfAbsent(defaults, k -> new LongAdder());
+        omission.increment();
+    }
+
+    void recordResolution(long nanos) {
+        resolutions.increment();
+        resolutionNanos.add(nanos);
+    }
+
+    /**
+     * Returns the function or constructor of these metrics
+     *
+     * @return The main method, or the constructor
+     */
+    public @NotNull Executable getExecutable() {
+        return executable;
+    }
+
+    /**
+     * Returns the number of invocations
+     *
+     * @return The invocation count
+     */
+    public long invocations() {
+        return mainPath.sum() + defaultPath.sum();
+    }
+
+    /**
+     * Returns the number of invocations of the main method or constructor,
+     * where all parameters were provided
+     *
+     * @return The main path invocation count
+     */
+    public long mainPathInvocations() {
+        return mainPath.sum();
+    }
+
+    /**
+     * Returns the number of invocations of the synthetic default method or
+     * constructor
+     *
+     * @return The default path invocation count
+     */
+    public long defaultPathInvocations() {
+        return defaultPath.sum();
+    }
+
+    /**
+     * Returns the number of invocations for every set of parameters that
+     * used their default values. Bit {@code i} of a key represents the
+     * parameter at index {@code i}.
+     *
+     * @return The histogram of omission masks
+     */
+    public @Unmodifiable @NotNull Map<BitSet, Long> omissionHistogram() {
+        Map<BitSet, Long> histogram = new HashMap<>();
+        for (Map.Entry<long[], LongAdder> entry : omissions.entrySet())
+            histogram.merge(BitSet.valueOf(entry.getKey()), entry.getValue().sum(), Long::sum);
+        return Collections.unmodifiableMap(histogram);
+    }
+
+    /**
+     * Returns an estimate of the given percentile of the latencies of
+     * invocations, which is the upper bound of the power-of-two bucket
+     * that contains it.
+     *
+     * @param percentile The percentile, between 0 and 100
+     * @return The latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public long latencyPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Percentile must be between 0 and 100, but found " + percentile + ".");
+        long[] counts = new long[LATENCY_BUCKETS];
+        long total = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++)
+            total += counts[i] = latencies[i].sum();
+        if (total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return upperBoundOf(i);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the number of times the synthetic default method or constructor
+     * was searched for
+     *
+     * @return The resolution count
+     */
+    public long resolutions() {
+        return resolutions.sum();
+    }
+
+    /**
+     * Returns the total time spent searching for the synthetic default method
+     * or constructor
+     *
+     * @return The resolution time, in nanoseconds
+     */
+    public long resolutionNanos() {
+        return resolutionNanos.sum();
+    }
+
+    private static int bucketOf(long nanos) {
+        return nanos <= 0 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(nanos) - 1;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        return bucket >= Long.SIZE - 2 ? Long.MAX_VALUE : (1L << (bucket + 1)) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "FunctionMetrics(" + executable
+                + ", invocations=" + invocations()
+                + ", default=" + defaultPathInvocations()
+                + ", p50=" + latencyPercentile(50) + "ns"
+                + ", p99=" + latencyPercentile(99) + "ns"
+                + ", resolutionNanos=" + resolutionNanos() + ")";
+    }
+}
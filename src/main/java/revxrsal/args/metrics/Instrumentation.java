@@ -0,0 +1,96 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.args.util.Preconditions;
+
+/**
+ * Installs the {@link InvocationListener} that is notified of calls.
+ * <p>
+ * Instrumentation must be enabled at startup with the {@value #ENABLED_PROPERTY}
+ * system property:
+ * <pre>
+ *     java -Drevxrsal.args.metrics=true ...
+ * </pre>
+ * When it is not, the check for a listener is a {@code static final} constant,
+ * which the JIT compiler folds away, so calls do not pay anything for it.
+ * <p>
+ * There is a single listener for the whole JVM, rather than one for each
+ * function or {@link revxrsal.args.reflect.MethodCallerFactory factory}, so
+ * that the check stays a single constant. Listeners that are only interested
+ * in some functions can filter them by the executable they are given.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class Instrumentation {
+
+    /**
+     * The system property that enables instrumentation
+     */
+    public static final String ENABLED_PROPERTY = "revxrsal.args.metrics";
+
+    /**
+     * Whether instrumentation is enabled. This never changes after startup.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    private static volatile @Nullable InvocationListener listener;
+
+    private Instrumentation() {
+    }
+
+    /**
+     * Installs the given listener, replacing the current one if any
+     *
+     * @param listener The listener to install
+     * @throws IllegalStateException if instrumentation is not enabled
+     */
+    public static void install(@NotNull InvocationListener listener) {
+        Preconditions.checkNotNull(listener, "listener");
+        if (!ENABLED)
+            throw new IllegalStateException("Instrumentation is not enabled. Start the JVM with -D" + ENABLED_PROPERTY + "=true to enable it.");
+        Instrumentation.listener = listener;
+    }
+
+    /**
+     * Removes the installed listener, if any
+     */
+    public static void uninstall() {
+        listener = null;
+    }
+
+    /**
+     * Returns the installed listener, or {@code null} if there is none.
+     * <p>
+     * Callers on hot paths should test {@link #ENABLED} first, so that
+     * this is never called when instrumentation is disabled.
+     *
+     * @return The installed listener, or null
+     */
+    public static @Nullable InvocationListener listener() {
+        return listener;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Executable;
+
+/**
+ * A listener that is notified of the calls made through {@link revxrsal.args.KotlinFunction}s,
+ * {@link revxrsal.args.KotlinConstructor}s and {@link revxrsal.args.BatchCall}s.
+ * <p>
+ * Listeners are installed with {@link Instrumentation#install(InvocationListener)}.
+ * They are called on the calling thread, so they must be thread-safe, and should
+ * be cheap. See {@link InvocationMetrics} for a listener that aggregates metrics.
+ */
+public interface InvocationListener {
+
+    /**
+     * Called after a function or a constructor is invoked, whether it returned
+     * or threw.
+     *
+     * @param executable        The main method of the function, or the constructor
+     * @param defaults          The parameters that used their default values, in 64-bit
+     *                          words. Bit {@code i} represents the parameter at index {@code i}.
+     *                          The same array is passed for every call with the same
+     *                          parameters, and it must not be modified.
+     * @param usesDefaultMethod Whether the synthetic default method or constructor was
+     *                          invoked, rather than the main one
+     * @param nanos             The time the invocation took, in nanoseconds
+     */
+    void onInvocation(
+            @NotNull Executable executable,
+            long @NotNull [] defaults,
+            boolean usesDefaultMethod,
+            long nanos
+    );
+
+    /**
+     * Called after the synthetic default method or constructor of a function
+     * or a constructor is searched for.
+     *
+     * @param executable The main method of the function, or the constructor
+     * @param found      Whether a synthetic method or constructor was found
+     * @param nanos      The time the search took, in nanoseconds
+     */
+    default void onDefaultResolution(@NotNull Executable executable, boolean found, long nanos) {
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.lang.reflect.Executable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An {@link InvocationListener} that aggregates {@link FunctionMetrics} for
+ * every function and constructor that is called:
+ * <pre>
+ *     InvocationMetrics metrics = new InvocationMetrics();
+ *     Instrumentation.install(metrics);
+ *     ...
+ *     FunctionMetrics greet = metrics.get(greetFunction.getMethod().getMethod());
+ * </pre>
+ * Metrics hold on to the methods and constructors they record, so they
+ * should be {@link #reset()} when classes are unloaded.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class InvocationMetrics implements InvocationListener {
+
+    private final ConcurrentMap<Executable, FunctionMetrics> metrics = new ConcurrentHashMap<>();
+
+    @Override
+    public void onInvocation(
+            @NotNull Executable executable,
+            long @NotNull [] defaults,
+            boolean usesDefaultMethod,
+            long nanos
+    ) {
+        metricsOf(executable).recordInvocation(defaults, usesDefaultMethod, nanos);
+    }
+
+    @Override
+    public void onDefaultResolution(@NotNull Executable executable, boolean found, long nanos) {
+        metricsOf(executable).recordResolution(nanos);
+    }
+
+    private @NotNull FunctionMetrics metricsOf(@NotNull Executable executable) {
+        FunctionMetrics functionMetrics = metrics.get(executable);
+        if (functionMetrics == null)
+            functionMetrics = metrics.computeIfAbsent(executable, FunctionMetrics::new);
+        return functionMetrics;
+    }
+
+    /**
+     * Returns the metrics of the given function or constructor, or {@code null}
+     * if nothing was recorded for it
+     *
+     * @param executable The main method of the function, or the constructor
+     * @return The metrics, or null
+     */
+    public @Nullable FunctionMetrics get(@NotNull Executable executable) {
+        return metrics.get(executable);
+    }
+
+    /**
+     * Returns the metrics of all functions and constructors that were recorded
+     *
+     * @return The metrics
+     */
+    public @Unmodifiable @NotNull Map<Executable, FunctionMetrics> getAll() {
+        return Collections.unmodifiableMap(metrics);
+    }
+
+    /**
+     * Removes all recorded metrics
+     */
+    public void reset() {
+        metrics.clear();
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.reflect;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.args.reflect.ClassFileWriter.Code;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static revxrsal.args.reflect.ClassFileWriter.*;
+import static revxrsal.args.reflect.ClassFileWriter.Opcodes.*;
+
+/**
+ * A {@link MethodCallerFactory} that generates a small class for every
+ * method, which calls the method with a direct {@code invokestatic},
+ * {@code invokevirtual} or {@code invokeinterface} instruction, and
+ * unboxes primitive arguments inline. Constructors are called with a
+ * {@code new} and an {@code invokespecial} instruction.
+ * <p>
+ * Each generated class is defined in its own class loader, whose parent
+ * is the loader of the method's declaring class. This allows the class
+ * to be unloaded along with the target.
+ * <p>
+ * As generated classes live in a different runtime package, this only
+ * applies to public methods and constructors of public classes, whose
+ * parameter types are public as well. For other methods, this falls back to {@link MethodHandlesCallerFactory}.
+ * <p>
+ * Receivers of static methods are loaded from the instance of each call,
+ * or, for bound callers, from a final field of the generated class.
+ */
+final class BytecodeCallerFactory implements MethodCallerFactory {
+
+    public static final BytecodeCallerFactory INSTANCE = new BytecodeCallerFactory();
+
+    private static final String OBJECT = "java/lang/Object";
+    private static final String CALLER = MethodCaller.class.getName().replace('.', '/');
+    private static final String CALL_DESCRIPTOR = "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;";
+    private static final String INVOKER_PREFIX = BytecodeCallerFactory.class.getPackage().getName() + ".GeneratedInvoker$";
+    private static final String RECEIVER_FIELD = "receiver";
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    @Override
+    public @NotNull MethodCaller createFor(@NotNull Method method) throws Throwable {
+        if (!isAccessible(method))
+            return MethodHandlesCallerFactory.INSTANCE.createFor(method);
+        String name = INVOKER_PREFIX + COUNTER.incrementAndGet();
+        byte[] bytes = generate(name.replace('.', '/'), method);
+        try {
+            Class<?> invoker = new InvokerClassLoader(method.getDeclaringClass().getClassLoader())
+                    .define(name, bytes);
+            return (MethodCaller) invoker.getConstructor().newInstance();
+        } catch (LinkageError e) {
+            return MethodHandlesCallerFactory.INSTANCE.createFor(method);
+        }
+    }
+
+    @Override
+    public @NotNull MethodCaller createForReceiver(@NotNull Method method, @Nullable Object receiver) throws Throwable {
+        MethodHandlesCallerFactory.checkReceiverMethod(method);
+        if (!isAccessible(method))
+            return MethodHandlesCallerFactory.INSTANCE.createForReceiver(method, receiver);
+        String name = INVOKER_PREFIX + COUNTER.incrementAndGet();
+        byte[] bytes = receiver == null
+                ? generate(name.replace('.', '/'), method, "BytecodeCaller", true)
+                : generateBound(name.replace('.', '/'), method, "BytecodeCaller");
+        try {
+            Class<?> invoker = new InvokerClassLoader(method.getDeclaringClass().getClassLoader())
+                    .define(name, bytes);
+            if (receiver == null)
+                return (MethodCaller) invoker.getConstructor().newInstance();
+            return (MethodCaller) invoker.getConstructor(method.getParameterTypes()[0]).newInstance(receiver);
+        } catch (LinkageError e) {
+            return MethodHandlesCallerFactory.INSTANCE.createForReceiver(method, receiver);
+        }
+    }
+
+    @Override
+    public @NotNull MethodCaller createFor(@NotNull Constructor<?> constructor) throws Throwable {
+        if (!isAccessible(constructor))
+            return MethodHandlesCallerFactory.INSTANCE.createFor(constructor);
+        String name = INVOKER_PREFIX + COUNTER.incrementAndGet();
+        byte[] bytes = generate(name.replace('.', '/'), constructor);
+        try {
+            Class<?> invoker = new InvokerClassLoader(constructor.getDeclaringClass().getClassLoader())
+                    .define(name, bytes);
+            return (MethodCaller) invoker.getConstructor().newInstance();
+        } catch (LinkageError e) {
+            return MethodHandlesCallerFactory.INSTANCE.createFor(constructor);
+        }
+    }
+
+    /**
+     * Generates the class file of an invoker for the given method
+     *
+     * @param name   The internal name of the class
+     * @param method The method to invoke
+     * @return The class file
+     */
+    static byte @NotNull [] generate(@NotNull String name, @NotNull Method method) {
+        return generate(name, method, "BytecodeCaller");
+    }
+
+    /**
+     * Generates the class file of an invoker for the given method
+     *
+     * @param name   The internal name of the class
+     * @param method The method to invoke
+     * @param label  The label of the invoker in {@link Object#toString()}
+     * @return The class file
+     */
+    static byte @NotNull [] generate(@NotNull String name, @NotNull Method method, @NotNull String label) {
+        return generate(name, method, label, false);
+    }
+
+    /**
+     * Generates the class file of an invoker for the given method
+     *
+     * @param name          The internal name of the class
+     * @param method        The method to invoke
+     * @param label         The label of the invoker in {@link Object#toString()}
+     * @param receiverFirst Whether the first parameter of the static method is
+     *                      a receiver, which is passed as the instance of
+     *                      each call rather than in the arguments
+     * @return The class file
+     */
+    static byte @NotNull [] generate(@NotNull String name, @NotNull Method method, @NotNull String label, boolean receiverFirst) {
+        return generate(name, method, label, receiverFirst, false);
+    }
+
+    /**
+     * Generates the class file of an invoker for the given static method,
+     * whose first parameter is a receiver that is bound once. The receiver
+     * is passed to the constructor of the invoker, which keeps it in a final
+     * field, and the instance of each call is ignored.
+     *
+     * @param name   The internal name of the class
+     * @param method The method to invoke
+     * @param label  The label of the invoker in {@link Object#toString()}
+     * @return The class file
+     */
+    static byte @NotNull [] generateBound(@NotNull String name, @NotNull Method method, @NotNull String label) {
+        return generate(name, method, label, true, true);
+    }
+
+    private static byte @NotNull [] generate(
+            @NotNull String name,
+            @NotNull Method method,
+            @NotNull String label,
+            boolean receiverFirst,
+            boolean bound
+    ) {
+        ClassFileWriter writer = new ClassFileWriter(name, OBJECT, CALLER);
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        String receiverDescriptor = descriptor(parameterTypes.length == 0 ? Object.class : parameterTypes[0]);
+
+        if (bound) {
+            writer.field(ACC_PRIVATE | ACC_FINAL, RECEIVER_FIELD, receiverDescriptor);
+            writer.method(ACC_PUBLIC, "<init>", "(" + receiverDescriptor + ")V", 2)
+                    .aload(0)
+                    .invoke(INVOKESPECIAL, OBJECT, "<init>", "()V", false)
+                    .aload(0)
+                    .aload(1)
+                    .putfield(name, RECEIVER_FIELD, receiverDescriptor)
+                    .ret(RETURN)
+                    .end();
+        } else {
+            writer.method(ACC_PUBLIC, "<init>", "()V", 1)
+                    .aload(0)
+                    .invoke(INVOKESPECIAL, OBJECT, "<init>", "()V", false)
+                    .ret(RETURN)
+                    .end();
+        }
+
+        Class<?> owner = method.getDeclaringClass();
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        Code call = writer.method(ACC_PUBLIC, "call", CALL_DESCRIPTOR, 3);
+        if (!isStatic)
+            call.aload(1).checkcast(internalName(owner));
+        int first = 0;
+        if (isStatic && receiverFirst) {
+            if (bound) {
+                call.aload(0).getfield(name, RECEIVER_FIELD, receiverDescriptor);
+            } else {
+                call.aload(1);
+                unbox(call, parameterTypes[0]);
+            }
+            first = 1;
+        }
+        for (int i = first; i < parameterTypes.length; i++) {
+            call.aload(2).iconst(i - first).aaload();
+            unbox(call, parameterTypes[i]);
+        }
+        int opcode = isStatic ? INVOKESTATIC : owner.isInterface() ? INVOKEINTERFACE : INVOKEVIRTUAL;
+        call.invoke(opcode, internalName(owner), method.getName(), descriptor(method), owner.isInterface());
+        box(call, method.getReturnType());
+        call.ret(ARETURN).end();
+
+        writer.method(ACC_PUBLIC, "toString", "()Ljava/lang/String;", 1)
+                .ldc(label + "(" + method + ")" + (bound ? " bound to " + parameterTypes[0].getName() : ""))
+                .ret(ARETURN)
+                .end();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Generates the class file of an invoker for the given constructor
+     *
+     * @param name        The internal name of the class
+     * @param constructor The constructor to invoke
+     * @return The class file
+     */
+    static byte @NotNull [] generate(@NotNull String name, @NotNull Constructor<?> constructor) {
+        ClassFileWriter writer = new ClassFileWriter(name, OBJECT, CALLER);
+
+        writer.method(ACC_PUBLIC, "<init>", "()V", 1)
+                .aload(0)
+                .invoke(INVOKESPECIAL, OBJECT, "<init>", "()V", false)
+                .ret(RETURN)
+                .end();
+
+        String owner = internalName(constructor.getDeclaringClass());
+        Code call = writer.method(ACC_PUBLIC, "call", CALL_DESCRIPTOR, 3)
+                .anew(owner)
+                .dup();
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            call.aload(2).iconst(i).aaload();
+            unbox(call, parameterTypes[i]);
+        }
+        call.invoke(INVOKESPECIAL, owner, "<init>", descriptor(constructor), false);
+        call.ret(ARETURN).end();
+
+        writer.method(ACC_PUBLIC, "toString", "()Ljava/lang/String;", 1)
+                .ldc("BytecodeCaller(" + constructor + ")")
+                .ret(ARETURN)
+                .end();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Converts the {@code Object} on top of the stack to the given type
+     */
+    static void unbox(@NotNull Code code, @NotNull Class<?> type) {
+        if (type == Object.class)
+            return;
+        if (!type.isPrimitive()) {
+            code.checkcast(internalName(type));
+            return;
+        }
+        String wrapper = internalName(wrapperOf(type));
+        code.checkcast(wrapper)
+                .invoke(INVOKEVIRTUAL, wrapper, type.getName() + "Value", "()" + descriptor(type), false);
+    }
+
+    /**
+     * Converts the value of the given type on top of the stack to an {@code Object}
+     */
+    static void box(@NotNull Code code, @NotNull Class<?> type) {
+        if (type == void.class) {
+            code.aconstNull();
+        } else if (type.isPrimitive()) {
+            String wrapper = internalName(wrapperOf(type));
+            code.invoke(INVOKESTATIC, wrapper, "valueOf", "(" + descriptor(type) + ")L" + wrapper + ";", false);
+        }
+    }
+
+    /**
+     * Tests whether generated classes can access the method or constructor
+     * and all of the types they have to cast to
+     */
+    static boolean isAccessible(@NotNull Executable executable) {
+        if (!Modifier.isPublic(executable.getModifiers()) || !isAccessible(executable.getDeclaringClass()))
+            return false;
+        if (executable instanceof Constructor && Modifier.isAbstract(executable.getDeclaringClass().getModifiers()))
+            return false;
+        for (Class<?> parameterType : executable.getParameterTypes()) {
+            if (!isAccessible(parameterType))
+                return false;
+        }
+        return true;
+    }
+
+    static boolean isAccessible(@NotNull Class<?> type) {
+        while (type.isArray())
+            type = type.getComponentType();
+        if (type.isPrimitive())
+            return true;
+        for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers()))
+                return false;
+        }
+        return true;
+    }
+
+    static @NotNull String internalName(@NotNull Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    static @NotNull String descriptor(@NotNull Method method) {
+        StringBuilder builder = new StringBuilder("(");
+        for (Class<?> parameterType : method.getParameterTypes())
+            builder.append(descriptor(parameterType));
+        return builder.append(')').append(descriptor(method.getReturnType())).toString();
+    }
+
+    static @NotNull String descriptor(@NotNull Constructor<?> constructor) {
+        StringBuilder builder = new StringBuilder("(");
+        for (Class<?> parameterType : constructor.getParameterTypes())
+            builder.append(descriptor(parameterType));
+        return builder.append(")V").toString();
+    }
+
+    static @NotNull String descriptor(@NotNull Class<?> type) {
+        if (type.isArray())
+            return internalName(type);
+        if (type == void.class) return "V";
+        if (type == int.class) return "I";
+        if (type == long.class) return "J";
+        if (type == boolean.class) return "Z";
+        if (type == double.class) return "D";
+        if (type == float.class) return "F";
+        if (type == short.class) return "S";
+        if (type == byte.class) return "B";
+        if (type == char.class) return "C";
+        return "L" + internalName(type) + ";";
+    }
+
+    private static @NotNull Class<?> wrapperOf(@NotNull Class<?> primitive) {
+        if (primitive == int.class) return Integer.class;
+        if (primitive == long.class) return Long.class;
+        if (primitive == boolean.class) return Boolean.class;
+        if (primitive == double.class) return Double.class;
+        if (primitive == float.class) return Float.class;
+        if (primitive == short.class) return Short.class;
+        if (primitive == byte.class) return Byte.class;
+        if (primitive == char.class) return Character.class;
+        throw new IllegalArgumentException("Not a primitive type: " + primitive);
+    }
+
+    @Override
+    public String toString() {
+        return "BytecodeCallerFactory";
+    }
+
+    /**
+     * A class loader that defines a single generated class. Classes are
+     * resolved from the loader of the target, except for {@link MethodCaller},
+     * which the target loader may not be able to see.
+     */
+    static final class InvokerClassLoader extends ClassLoader {
+
+        InvokerClassLoader(@Nullable ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.equals(MethodCaller.class.getName()))
+                return MethodCaller.class;
+            return super.loadClass(name, resolve);
+        }
+
+        @NotNull Class<?> define(@NotNull String name, byte @NotNull [] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
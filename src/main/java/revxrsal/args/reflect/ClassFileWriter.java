@@ -0,0 +1,561 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.reflect;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal writer for Java 8 class files.
+ * <p>
+ * This only supports what generated invokers need: a single class with
+ * fields, and methods consisting of straight-line code. As there are no
+ * branches, no stack map frames have to be computed.
+ */
+final class ClassFileWriter {
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+    static final int ACC_SYNTHETIC = 0x1000;
+
+    private static final int JAVA_8 = 52;
+
+    private final ConstantPool pool = new ConstantPool();
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+
+    /**
+     * Creates a new class file writer
+     *
+     * @param name       The internal name of the class
+     * @param superName  The internal name of the superclass
+     * @param interfaces The internal names of the implemented interfaces
+     */
+    ClassFileWriter(@NotNull String name, @NotNull String superName, @NotNull String... interfaces) {
+        this.thisClass = pool.classRef(name);
+        this.superClass = pool.classRef(superName);
+        this.interfaces = new int[interfaces.length];
+        for (int i = 0; i < interfaces.length; i++)
+            this.interfaces[i] = pool.classRef(interfaces[i]);
+    }
+
+    /**
+     * Adds a field to the class
+     *
+     * @param access     The field access flags
+     * @param name       The field name
+     * @param descriptor The field descriptor
+     */
+    void field(int access, @NotNull String name, @NotNull String descriptor) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(access);
+            out.writeShort(pool.utf8(name));
+            out.writeShort(pool.utf8(descriptor));
+            out.writeShort(0); // attributes
+            fields.add(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Begins a new method. The method is added to the class when
+     * {@link Code#end()} is called.
+     *
+     * @param access     The method access flags
+     * @param name       The method name
+     * @param descriptor The method descriptor
+     * @param maxLocals  The number of local variable slots, including parameters
+     * @return The code builder of the method
+     */
+    @NotNull Code method(int access, @NotNull String name, @NotNull String descriptor, int maxLocals) {
+        return new Code(access, pool.utf8(name), pool.utf8(descriptor), maxLocals);
+    }
+
+    /**
+     * Returns the bytes of the class file
+     *
+     * @return The class file
+     */
+    byte @NotNull [] toByteArray() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(JAVA_8);
+            pool.write(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (int i : interfaces)
+                out.writeShort(i);
+            out.writeShort(fields.size());
+            for (byte[] field : fields)
+                out.write(field);
+            out.writeShort(methods.size());
+            for (byte[] method : methods)
+                out.write(method);
+            out.writeShort(0); // attributes
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Builds the bytecode of a single method. This keeps track of the
+     * operand stack depth to compute the maximum stack size.
+     */
+    final class Code {
+
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        private final int access, name, descriptor, maxLocals;
+        private int stack, maxStack;
+
+        private Code(int access, int name, int descriptor, int maxLocals) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.maxLocals = maxLocals;
+        }
+
+        /**
+         * Loads a reference from a local variable
+         *
+         * @param index The local variable index
+         * @return This builder
+         */
+        @NotNull Code aload(int index) {
+            op(0x19, 1);
+            code.write(index);
+            return this;
+        }
+
+        /**
+         * Loads a local variable of the given type
+         *
+         * @param descriptor The type descriptor of the variable
+         * @param index      The local variable index
+         * @return This builder
+         */
+        @NotNull Code load(@NotNull String descriptor, int index) {
+            switch (descriptor.charAt(0)) {
+                case 'J':
+                    op(0x16, 2); // lload
+                    break;
+                case 'F':
+                    op(0x17, 1); // fload
+                    break;
+                case 'D':
+                    op(0x18, 2); // dload
+                    break;
+                case 'L':
+                case '[':
+                    op(0x19, 1); // aload
+                    break;
+                default:
+                    op(0x15, 1); // iload
+            }
+            code.write(index);
+            return this;
+        }
+
+        /**
+         * Pushes an int constant
+         *
+         * @param value The value
+         * @return This builder
+         */
+        @NotNull Code iconst(int value) {
+            if (value >= -1 && value <= 5) {
+                op(0x03 + value, 1); // iconst_<n>
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                op(0x10, 1); // bipush
+                code.write(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                op(0x11, 1); // sipush
+                u2(value);
+            } else {
+                op(0x13, 1); // ldc_w
+                u2(pool.integer(value));
+            }
+            return this;
+        }
+
+        /**
+         * Pushes a string constant
+         *
+         * @param value The value
+         * @return This builder
+         */
+        @NotNull Code ldc(@NotNull String value) {
+            op(0x13, 1); // ldc_w
+            u2(pool.string(value));
+            return this;
+        }
+
+        /**
+         * Pushes {@code null}
+         *
+         * @return This builder
+         */
+        @NotNull Code aconstNull() {
+            op(0x01, 1);
+            return this;
+        }
+
+        /**
+         * Creates a new, uninitialized object
+         *
+         * @param internalName The internal name of the class
+         * @return This builder
+         */
+        @NotNull Code anew(@NotNull String internalName) {
+            op(0xBB, 1);
+            u2(pool.classRef(internalName));
+            return this;
+        }
+
+        /**
+         * Duplicates the value on top of the stack
+         *
+         * @return This builder
+         */
+        @NotNull Code dup() {
+            op(0x59, 1);
+            return this;
+        }
+
+        /**
+         * Loads a reference from an array
+         *
+         * @return This builder
+         */
+        @NotNull Code aaload() {
+            op(0x32, -1);
+            return this;
+        }
+
+        /**
+         * Stores a reference into an array
+         *
+         * @return This builder
+         */
+        @NotNull Code aastore() {
+            op(0x53, -3);
+            return this;
+        }
+
+        /**
+         * Creates a new array of references
+         *
+         * @param internalName The internal name of the component type
+         * @return This builder
+         */
+        @NotNull Code anewarray(@NotNull String internalName) {
+            op(0xBD, 0);
+            u2(pool.classRef(internalName));
+            return this;
+        }
+
+        /**
+         * Discards the value on top of the stack
+         *
+         * @return This builder
+         */
+        @NotNull Code pop() {
+            op(0x57, -1);
+            return this;
+        }
+
+        /**
+         * Loads a field of the object on top of the stack
+         *
+         * @param owner      The internal name of the owner
+         * @param name       The field name
+         * @param descriptor The field descriptor
+         * @return This builder
+         */
+        @NotNull Code getfield(@NotNull String owner, @NotNull String name, @NotNull String descriptor) {
+            op(0xB4, returnSlots("()" + descriptor) - 1);
+            u2(pool.fieldRef(owner, name, descriptor));
+            return this;
+        }
+
+        /**
+         * Stores the value on top of the stack into a field of the object below it
+         *
+         * @param owner      The internal name of the owner
+         * @param name       The field name
+         * @param descriptor The field descriptor
+         * @return This builder
+         */
+        @NotNull Code putfield(@NotNull String owner, @NotNull String name, @NotNull String descriptor) {
+            op(0xB5, -returnSlots("()" + descriptor) - 1);
+            u2(pool.fieldRef(owner, name, descriptor));
+            return this;
+        }
+
+        /**
+         * Casts the reference on top of the stack
+         *
+         * @param internalName The internal name (or array descriptor) of the type
+         * @return This builder
+         */
+        @NotNull Code checkcast(@NotNull String internalName) {
+            op(0xC0, 0);
+            u2(pool.classRef(internalName));
+            return this;
+        }
+
+        /**
+         * Invokes a method
+         *
+         * @param opcode      The invocation opcode
+         * @param owner       The internal name of the owner
+         * @param name        The method name
+         * @param descriptor  The method descriptor
+         * @param isInterface Whether the owner is an interface
+         * @return This builder
+         */
+        @NotNull Code invoke(int opcode, @NotNull String owner, @NotNull String name,
+                             @NotNull String descriptor, boolean isInterface) {
+            int argumentSlots = argumentSlots(descriptor);
+            int delta = returnSlots(descriptor) - argumentSlots - (opcode == Opcodes.INVOKESTATIC ? 0 : 1);
+            op(opcode, delta);
+            u2(pool.methodRef(owner, name, descriptor, isInterface));
+            if (opcode == Opcodes.INVOKEINTERFACE) {
+                code.write(argumentSlots + 1);
+                code.write(0);
+            }
+            return this;
+        }
+
+        /**
+         * Returns from the method
+         *
+         * @param opcode The return opcode
+         * @return This builder
+         */
+        @NotNull Code ret(int opcode) {
+            op(opcode, 0);
+            return this;
+        }
+
+        /**
+         * Finishes this method and adds it to the class
+         */
+        void end() {
+            try {
+                byte[] bytecode = code.toByteArray();
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeShort(access);
+                out.writeShort(name);
+                out.writeShort(descriptor);
+                out.writeShort(1); // attributes
+                out.writeShort(pool.utf8("Code"));
+                out.writeInt(12 + bytecode.length);
+                out.writeShort(maxStack);
+                out.writeShort(maxLocals);
+                out.writeInt(bytecode.length);
+                out.write(bytecode);
+                out.writeShort(0); // exception table
+                out.writeShort(0); // attributes
+                methods.add(bytes.toByteArray());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void op(int opcode, int stackDelta) {
+            code.write(opcode);
+            stack += stackDelta;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        private void u2(int value) {
+            code.write(value >>> 8);
+            code.write(value);
+        }
+    }
+
+    /**
+     * The JVM opcodes used by generated code
+     */
+    static final class Opcodes {
+
+        static final int IRETURN = 0xAC;
+        static final int LRETURN = 0xAD;
+        static final int FRETURN = 0xAE;
+        static final int DRETURN = 0xAF;
+        static final int ARETURN = 0xB0;
+        static final int RETURN = 0xB1;
+        static final int INVOKEVIRTUAL = 0xB6;
+        static final int INVOKESPECIAL = 0xB7;
+        static final int INVOKESTATIC = 0xB8;
+        static final int INVOKEINTERFACE = 0xB9;
+
+        private Opcodes() {
+        }
+    }
+
+    /**
+     * Returns the number of local variable slots taken by the arguments
+     * of the given method descriptor
+     */
+    private static int argumentSlots(@NotNull String descriptor) {
+        int slots = 0;
+        for (int i = 1; descriptor.charAt(i) != ')'; i++) {
+            char c = descriptor.charAt(i);
+            if (c == 'J' || c == 'D') {
+                slots += 2;
+                continue;
+            }
+            slots++;
+            while (c == '[')
+                c = descriptor.charAt(++i);
+            if (c == 'L')
+                i = descriptor.indexOf(';', i);
+        }
+        return slots;
+    }
+
+    private static int returnSlots(@NotNull String descriptor) {
+        char c = descriptor.charAt(descriptor.indexOf(')') + 1);
+        return c == 'V' ? 0 : c == 'J' || c == 'D' ? 2 : 1;
+    }
+
+    /**
+     * The constant pool of the class, which deduplicates its entries
+     */
+    private static final class ConstantPool {
+
+        private static final int UTF8 = 1, INTEGER = 3, CLASS = 7, STRING = 8,
+                FIELD_REF = 9, METHOD_REF = 10, INTERFACE_METHOD_REF = 11, NAME_AND_TYPE = 12;
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> entries = new HashMap<>();
+        private int count = 1;
+
+        int utf8(@NotNull String value) {
+            return entry("U" + value, () -> {
+                out.writeByte(UTF8);
+                out.writeUTF(value);
+            });
+        }
+
+        int integer(int value) {
+            return entry("I" + value, () -> {
+                out.writeByte(INTEGER);
+                out.writeInt(value);
+            });
+        }
+
+        int classRef(@NotNull String internalName) {
+            int name = utf8(internalName);
+            return entry("C" + internalName, () -> {
+                out.writeByte(CLASS);
+                out.writeShort(name);
+            });
+        }
+
+        int string(@NotNull String value) {
+            int utf8 = utf8(value);
+            return entry("S" + value, () -> {
+                out.writeByte(STRING);
+                out.writeShort(utf8);
+            });
+        }
+
+        int fieldRef(@NotNull String owner, @NotNull String name, @NotNull String descriptor) {
+            int ownerRef = classRef(owner);
+            int nameAndType = nameAndType(name, descriptor);
+            return entry("F" + owner + '.' + name + ' ' + descriptor, () -> {
+                out.writeByte(FIELD_REF);
+                out.writeShort(ownerRef);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        int methodRef(@NotNull String owner, @NotNull String name, @NotNull String descriptor, boolean isInterface) {
+            int ownerRef = classRef(owner);
+            int nameAndType = nameAndType(name, descriptor);
+            return entry((isInterface ? "J" : "M") + owner + '.' + name + descriptor, () -> {
+                out.writeByte(isInterface ? INTERFACE_METHOD_REF : METHOD_REF);
+                out.writeShort(ownerRef);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        private int nameAndType(@NotNull String name, @NotNull String descriptor) {
+            int nameUtf8 = utf8(name), descriptorUtf8 = utf8(descriptor);
+            return entry("N" + name + ' ' + descriptor, () -> {
+                out.writeByte(NAME_AND_TYPE);
+                out.writeShort(nameUtf8);
+                out.writeShort(descriptorUtf8);
+            });
+        }
+
+        void write(@NotNull DataOutputStream target) throws IOException {
+            target.writeShort(count);
+            bytes.writeTo(target);
+        }
+
+        private int entry(@NotNull String key, @NotNull Writer writer) {
+            Integer index = entries.get(key);
+            if (index != null)
+                return index;
+            try {
+                writer.write();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entries.put(key, count);
+            return count++;
+        }
+
+        private interface Writer {
+            void write() throws IOException;
+        }
+    }
+}
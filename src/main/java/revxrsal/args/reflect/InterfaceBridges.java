@@ -0,0 +1,157 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.reflect;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.args.reflect.BytecodeCallerFactory.InvokerClassLoader;
+import revxrsal.args.reflect.ClassFileWriter.Code;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static revxrsal.args.reflect.BytecodeCallerFactory.*;
+import static revxrsal.args.reflect.ClassFileWriter.*;
+import static revxrsal.args.reflect.ClassFileWriter.Opcodes.*;
+import static revxrsal.args.util.Preconditions.sneakyThrow;
+
+/**
+ * Generates classes that implement the single abstract method of an interface
+ * by calling a {@link MethodCaller}, with the arguments of the method as the
+ * arguments of the call and {@code null} as the instance.
+ * <p>
+ * Each generated class is defined in its own class loader, whose parent is
+ * the loader of the interface, so that this works for interfaces that the
+ * loader of this library cannot see, such as those of plugins. As generated
+ * classes live in a different runtime package, this only applies to public
+ * interfaces whose method only uses public types.
+ */
+public final class InterfaceBridges {
+
+    private static final String OBJECT = "java/lang/Object";
+    private static final String CALLER = MethodCaller.class.getName().replace('.', '/');
+    private static final String CALLER_DESCRIPTOR = "L" + CALLER + ";";
+    private static final String CALL_DESCRIPTOR = "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;";
+    private static final String BRIDGE_PREFIX = InterfaceBridges.class.getPackage().getName() + ".GeneratedBridge$";
+
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private InterfaceBridges() {
+    }
+
+    /**
+     * Generates a class that implements the given method of the interface,
+     * and returns a function that creates instances of it around callers,
+     * or {@code null} if the class cannot be generated.
+     *
+     * @param type   The interface
+     * @param method The abstract method to implement
+     * @param <T>    The interface type
+     * @return The function creating implementations, or null
+     */
+    public static <T> @Nullable Function<MethodCaller, T> factoryFor(@NotNull Class<T> type, @NotNull Method method) {
+        if (!isAccessible(type) || !isAccessible(method.getReturnType()))
+            return null;
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!isAccessible(parameterType))
+                return null;
+        }
+        String name = BRIDGE_PREFIX + COUNTER.incrementAndGet();
+        Constructor<?> constructor;
+        try {
+            Class<?> bridge = new InvokerClassLoader(type.getClassLoader())
+                    .define(name, generate(name.replace('.', '/'), type, method));
+            constructor = bridge.getConstructor(MethodCaller.class);
+        } catch (LinkageError | NoSuchMethodException e) {
+            return null;
+        }
+        return caller -> {
+            try {
+                return type.cast(constructor.newInstance(caller));
+            } catch (ReflectiveOperationException e) {
+                throw sneakyThrow(e);
+            }
+        };
+    }
+
+    /**
+     * Generates the class file of a bridge for the given method
+     *
+     * @param name   The internal name of the class
+     * @param type   The interface to implement
+     * @param method The method to implement
+     * @return The class file
+     */
+    static byte @NotNull [] generate(@NotNull String name, @NotNull Class<?> type, @NotNull Method method) {
+        ClassFileWriter writer = new ClassFileWriter(name, OBJECT, internalName(type));
+        writer.field(ACC_PRIVATE | ACC_FINAL, "caller", CALLER_DESCRIPTOR);
+
+        writer.method(ACC_PUBLIC, "<init>", "(" + CALLER_DESCRIPTOR + ")V", 2)
+                .aload(0)
+                .invoke(INVOKESPECIAL, OBJECT, "<init>", "()V", false)
+                .aload(0)
+                .aload(1)
+                .putfield(name, "caller", CALLER_DESCRIPTOR)
+                .ret(RETURN)
+                .end();
+
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        int slots = 1;
+        for (Class<?> parameterType : parameterTypes)
+            slots += parameterType == long.class || parameterType == double.class ? 2 : 1;
+        Code call = writer.method(ACC_PUBLIC, method.getName(), descriptor(method), slots)
+                .aload(0)
+                .getfield(name, "caller", CALLER_DESCRIPTOR)
+                .aconstNull()
+                .iconst(parameterTypes.length)
+                .anewarray(OBJECT);
+        int slot = 1;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            String descriptor = descriptor(parameterTypes[i]);
+            call.dup().iconst(i).load(descriptor, slot);
+            box(call, parameterTypes[i]);
+            call.aastore();
+            slot += descriptor.equals("J") || descriptor.equals("D") ? 2 : 1;
+        }
+        call.invoke(INVOKEINTERFACE, CALLER, "call", CALL_DESCRIPTOR, true);
+        Class<?> returnType = method.getReturnType();
+        if (returnType == void.class) {
+            call.pop().ret(RETURN);
+        } else {
+            unbox(call, returnType);
+            call.ret(returnOpcode(returnType));
+        }
+        call.end();
+        return writer.toByteArray();
+    }
+
+    private static int returnOpcode(@NotNull Class<?> type) {
+        if (type == long.class) return LRETURN;
+        if (type == float.class) return FRETURN;
+        if (type == double.class) return DRETURN;
+        return type.isPrimitive() ? IRETURN : ARETURN;
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.reflect;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.args.metadata.KotlinMetadata;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static revxrsal.args.reflect.PrecompiledInvokers.BOUND_SUFFIX;
+import static revxrsal.args.reflect.PrecompiledInvokers.INVOKER_SUFFIX;
+import static revxrsal.args.reflect.PrecompiledInvokers.RECEIVER_SUFFIX;
+
+/**
+ * Generates invokers ahead of time for compiled Kotlin classes, so that
+ * {@link MethodCaller#wrap(Method, MethodCallerFactory)} can use them directly
+ * instead of reflecting on the methods at runtime.
+ * <p>
+ * For every function that has a synthetic {@code $default} twin, an invoker
+ * is generated for the function and for its {@code $default} method. If the
+ * {@code $default} method takes a receiver, another invoker passes it as the
+ * instance of each call, so that it does not have to be copied with the arguments.
+ * For {@code object}s and companion objects, another invoker takes the receiver in
+ * its constructor and keeps it in a final field, so that it is bound once.
+ * Invokers are written to an output directory, in the packages of the classes they
+ * invoke, along with a registry resource for each class. The output directory should
+ * be packaged along with the classes.
+ * <p>
+ * The generator also records where the {@code $default} method of every function is,
+ * including those of companion objects that {@code @JvmStatic} functions delegate to,
+ * so that they are not searched for when the functions are wrapped at runtime.
+ * <p>
+ * This is meant to run as a build step after compilation, in the project that declares
+ * the functions, with the compiled classes and their dependencies on the classpath:
+ * <pre>
+ *     java revxrsal.args.reflect.InvokerGenerator build/generated/invokers build/classes/kotlin/main
+ * </pre>
+ */
+public final class InvokerGenerator {
+
+    private static final String DEFAULT_SUFFIX = "$default";
+    private static final String CLASS_EXTENSION = ".class";
+    private static final String COMPANION_NAME = "Companion";
+
+    /**
+     * The directory of the resolution resources, which are read by
+     * {@code revxrsal.args.PrecompiledResolutions}
+     */
+    private static final String RESOLUTION_DIRECTORY = "META-INF/kotlin-default-args/resolutions/";
+
+    private final Path directory;
+    private final Path output;
+    private final ClassLoader loader;
+    private int classes, invokers;
+
+    private InvokerGenerator(@NotNull Path directory, @NotNull Path output, @NotNull ClassLoader loader) {
+        this.directory = directory;
+        this.output = output;
+        this.loader = loader;
+    }
+
+    /**
+     * Generates invokers for the classes in the given directories
+     *
+     * @param args The output directory, followed by the class directories
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: InvokerGenerator <output directory> <classes directory>...");
+            System.exit(1);
+        }
+        Path output = Paths.get(args[0]);
+        for (int i = 1; i < args.length; i++) {
+            Path directory = Paths.get(args[i]);
+            if (!Files.isDirectory(directory))
+                continue;
+            InvokerGenerator generator = generate(directory, output);
+            System.out.println("Generated " + generator.invokers + " invokers for " + generator.classes + " classes in " + directory);
+        }
+    }
+
+    /**
+     * Generates invokers for the classes in the given directory, and writes
+     * them to the output directory.
+     *
+     * @param directory The class directory
+     * @param output    The directory to write invokers and registries to
+     * @return The generator, after generating
+     */
+    private static @NotNull InvokerGenerator generate(@NotNull Path directory, @NotNull Path output) {
+        try (URLClassLoader loader = new URLClassLoader(
+                new URL[]{directory.toUri().toURL()},
+                InvokerGenerator.class.getClassLoader()
+        )) {
+            InvokerGenerator generator = new InvokerGenerator(directory, output, loader);
+            List<Path> classFiles;
+            try (Stream<Path> files = Files.walk(directory)) {
+                classFiles = files.filter(file -> file.toString().endsWith(CLASS_EXTENSION))
+                        .collect(Collectors.toList());
+            }
+            for (Path classFile : classFiles)
+                generator.generateFor(classFile);
+            return generator;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void generateFor(@NotNull Path classFile) throws IOException {
+        String relative = directory.relativize(classFile).toString();
+        String className = relative.substring(0, relative.length() - CLASS_EXTENSION.length())
+                .replace(classFile.getFileSystem().getSeparator(), ".");
+        if (className.contains(INVOKER_SUFFIX) || className.endsWith("module-info") || className.endsWith("package-info"))
+            return;
+
+        Class<?> type;
+        Method[] methods;
+        try {
+            type = Class.forName(className, false, loader);
+            methods = type.getDeclaredMethods();
+        } catch (ClassNotFoundException | LinkageError e) {
+            // missing dependencies, the class can't be used at runtime either
+            return;
+        }
+
+        Set<String> defaultNames = defaultNamesOf(methods);
+        Class<?> companion = companionOf(type);
+        Set<String> companionDefaults;
+        try {
+            companionDefaults = companion == null ? Collections.emptySet() : defaultNamesOf(companion.getDeclaredMethods());
+        } catch (LinkageError e) {
+            companionDefaults = Collections.emptySet();
+        }
+        if (defaultNames.isEmpty() && companionDefaults.isEmpty())
+            return;
+
+        KotlinMetadata metadata = KotlinMetadata.of(type);
+        boolean isSingleton = metadata != null && metadata.isObject();
+        List<String> registry = new ArrayList<>();
+        for (Method method : methods) {
+            if (!isCandidate(method, defaultNames) || !isAccessible(method))
+                continue;
+            String invokerName = className + INVOKER_SUFFIX + registry.size();
+            byte[] bytes = BytecodeCallerFactory.generate(invokerName.replace('.', '/'), method, "PrecompiledCaller");
+            write(invokerName, bytes);
+            registry.add(PrecompiledInvokers.key(method) + " " + invokerName);
+            if (!takesReceiver(method))
+                continue;
+            invokerName = className + INVOKER_SUFFIX + registry.size();
+            bytes = BytecodeCallerFactory.generate(invokerName.replace('.', '/'), method, "PrecompiledCaller", true);
+            write(invokerName, bytes);
+            registry.add(PrecompiledInvokers.key(method) + RECEIVER_SUFFIX + " " + invokerName);
+            if (!isSingleton)
+                continue;
+            invokerName = className + INVOKER_SUFFIX + registry.size();
+            bytes = BytecodeCallerFactory.generateBound(invokerName.replace('.', '/'), method, "PrecompiledCaller");
+            write(invokerName, bytes);
+            registry.add(PrecompiledInvokers.key(method) + BOUND_SUFFIX + " " + invokerName);
+        }
+
+        List<String> resolutions = new ArrayList<>();
+        for (Method method : methods) {
+            String resolution = resolutionOf(type, method, defaultNames, companion, companionDefaults);
+            if (resolution != null)
+                resolutions.add(resolutionKey(method) + " " + resolution);
+        }
+        if (!resolutions.isEmpty())
+            writeLines(output.resolve(RESOLUTION_DIRECTORY + className), resolutions);
+
+        if (registry.isEmpty())
+            return;
+        writeLines(output.resolve(PrecompiledInvokers.registryPath(className)), registry);
+        classes++;
+        invokers += registry.size();
+    }
+
+    private static void writeLines(@NotNull Path file, @NotNull List<String> lines) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    private void write(@NotNull String invokerName, byte @NotNull [] bytes) throws IOException {
+        Path invokerFile = output.resolve(invokerName.replace('.', '/') + CLASS_EXTENSION);
+        Files.createDirectories(invokerFile.getParent());
+        Files.write(invokerFile, bytes);
+    }
+
+    private static @NotNull Set<String> defaultNamesOf(@NotNull Method @NotNull [] methods) {
+        Set<String> defaultNames = new HashSet<>();
+        for (Method method : methods) {
+            if (method.isSynthetic() && method.getName().endsWith(DEFAULT_SUFFIX))
+                defaultNames.add(method.getName());
+        }
+        return defaultNames;
+    }
+
+    /**
+     * Returns the binding of the {@code $default} method of the given function,
+     * followed by the companion that declares it if any, as they would be
+     * found at runtime, or {@code null} if it has none
+     */
+    private static @Nullable String resolutionOf(
+            @NotNull Class<?> type,
+            @NotNull Method method,
+            @NotNull Set<String> defaultNames,
+            @Nullable Class<?> companion,
+            @NotNull Set<String> companionDefaults
+    ) {
+        if (method.isSynthetic() || method.isBridge() || method.getParameterCount() == 0)
+            return null;
+        String name = method.getName() + DEFAULT_SUFFIX;
+        if (defaultNames.contains(name)) {
+            if (declaresDefault(type, name, defaultParameters(method, null)))
+                return "STATIC";
+            if (declaresDefault(type, name, defaultParameters(method, type)))
+                return "INSTANCE_FIRST";
+        }
+        if (companion != null && companionDefaults.contains(name)
+                && declaresDefault(companion, name, defaultParameters(method, companion)))
+            return "COMPANION " + companion.getName();
+        return null;
+    }
+
+    private static boolean declaresDefault(@NotNull Class<?> type, @NotNull String name, @NotNull Class<?>[] parameterTypes) {
+        try {
+            return type.getDeclaredMethod(name, parameterTypes).isSynthetic();
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the parameter types of the {@code $default} method of the given
+     * function: the receiver if any, the function parameters, the int masks and
+     * the marker. This matches the lookup of the runtime.
+     */
+    private static @NotNull Class<?>[] defaultParameters(@NotNull Method method, @Nullable Class<?> receiver) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        int offset = receiver == null ? 0 : 1;
+        int masked = parameterTypes.length;
+        if (masked > 0 && parameterTypes[masked - 1].getName().equals("kotlin.coroutines.Continuation"))
+            masked--;
+        int masks = (masked + Integer.SIZE - 1) / Integer.SIZE;
+        Class<?>[] parameters = new Class<?>[offset + parameterTypes.length + masks + 1];
+        if (receiver != null)
+            parameters[0] = receiver;
+        System.arraycopy(parameterTypes, 0, parameters, offset, parameterTypes.length);
+        Arrays.fill(parameters, offset + parameterTypes.length, parameters.length - 1, int.class);
+        parameters[parameters.length - 1] = Object.class;
+        return parameters;
+    }
+
+    /**
+     * Returns the key of the given function in resolution resources, which
+     * is its name, followed by the names of its parameter types
+     */
+    private static @NotNull String resolutionKey(@NotNull Method method) {
+        StringBuilder key = new StringBuilder(method.getName()).append('(');
+        for (Class<?> parameterType : method.getParameterTypes())
+            key.append(parameterType.getName()).append(',');
+        return key.append(')').toString();
+    }
+
+    /**
+     * Returns the class of the companion object of the given class, without
+     * initializing either of them, or {@code null} if it has none. The
+     * companion is held by a public static final field of the same name.
+     */
+    private static @Nullable Class<?> companionOf(@NotNull Class<?> type) {
+        Class<?> companion = null;
+        try {
+            for (Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isPublic(modifiers) || !Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers))
+                    continue;
+                Class<?> fieldType = field.getType();
+                if (fieldType.getEnclosingClass() != type || !field.getName().equals(fieldType.getSimpleName()))
+                    continue;
+                if (field.getName().equals(COMPANION_NAME))
+                    return fieldType;
+                if (companion == null)
+                    companion = fieldType;
+            }
+        } catch (LinkageError e) {
+            return null;
+        }
+        return companion;
+    }
+
+    /**
+     * Tests whether the method is a function with a {@code $default} twin,
+     * or the twin itself
+     */
+    private static boolean isCandidate(@NotNull Method method, @NotNull Set<String> defaultNames) {
+        if (Modifier.isAbstract(method.getModifiers()) || method.isBridge())
+            return false;
+        if (method.getName().endsWith(DEFAULT_SUFFIX))
+            return method.isSynthetic() && defaultNames.contains(method.getName());
+        return !method.isSynthetic() && defaultNames.contains(method.getName() + DEFAULT_SUFFIX);
+    }
+
+    /**
+     * Tests whether the method is a {@code $default} method that takes the
+     * instance, {@code object} or companion it is declared in as its first
+     * parameter
+     */
+    private static boolean takesReceiver(@NotNull Method method) {
+        return method.getName().endsWith(DEFAULT_SUFFIX)
+                && Modifier.isStatic(method.getModifiers())
+                && method.getParameterCount() > 0
+                && method.getParameterTypes()[0] == method.getDeclaringClass();
+    }
+
+    /**
+     * Tests whether an invoker in the package of the method's declaring class
+     * can access the method and all of the types it has to cast to
+     */
+    private static boolean isAccessible(@NotNull Method method) {
+        Class<?> owner = method.getDeclaringClass();
+        if (Modifier.isPrivate(method.getModifiers()) || !isAccessible(owner, owner))
+            return false;
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (!isAccessible(parameterType, owner))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isAccessible(@NotNull Class<?> type, @NotNull Class<?> from) {
+        while (type.isArray())
+            type = type.getComponentType();
+        if (type.isPrimitive())
+            return true;
+        for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+            int modifiers = c.getModifiers();
+            if (Modifier.isPrivate(modifiers))
+                return false;
+            if (!Modifier.isPublic(modifiers) && !packageOf(c).equals(packageOf(from)))
+                return false;
+        }
+        return true;
+    }
+
+    private static @NotNull String packageOf(@NotNull Class<?> type) {
+        String name = type.getName();
+        int lastDot = name.lastIndexOf('.');
+        return lastDot == -1 ? "" : name.substring(0, lastDot);
+    }
+}
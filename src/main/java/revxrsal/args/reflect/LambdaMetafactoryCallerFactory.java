@@ -0,0 +1,678 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.reflect;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.lang.invoke.MethodType.genericMethodType;
+import static revxrsal.args.util.Preconditions.sneakyThrow;
+
+/**
+ * A {@link MethodCallerFactory} that uses {@link LambdaMetafactory} to spin
+ * a class implementing a fixed-arity functional interface for every method,
+ * which calls the target method directly. The interfaces extend {@link MethodCaller}
+ * and spread its arguments in a default method, so the spun class is returned
+ * as the caller, and the JIT can inline the call like any other virtual call.
+ * Bound receivers are captured by the spun class, the same way a lambda captures
+ * its enclosing instance.
+ * <p>
+ * The metafactory cannot always be applied, for example when the target
+ * method is not accessible from the lookup, when the class loaders cannot
+ * see each other's types, or when the method has too many parameters. In
+ * such cases, this falls back to {@link MethodHandlesCallerFactory}.
+ */
+final class LambdaMetafactoryCallerFactory implements MethodCallerFactory {
+
+    public static final LambdaMetafactoryCallerFactory INSTANCE = new LambdaMetafactoryCallerFactory();
+
+    /**
+     * The highest supported arity, including the instance for non-static methods.
+     * This covers the {@code $default} method of a member function with up to 7
+     * parameters, which also takes the instance, a mask and a marker. Each arity
+     * takes four interfaces, and methods above it are rare enough to fall back.
+     */
+    private static final int MAX_ARITY = 10;
+
+    private static final Class<?>[] STATIC_INVOKERS = {
+            S0.class, S1.class, S2.class, S3.class, S4.class, S5.class,
+            S6.class, S7.class, S8.class, S9.class, S10.class
+    };
+
+    private static final Class<?>[] STATIC_VOID_INVOKERS = {
+            SV0.class, SV1.class, SV2.class, SV3.class, SV4.class, SV5.class,
+            SV6.class, SV7.class, SV8.class, SV9.class, SV10.class
+    };
+
+    // these take at least the instance
+    private static final Class<?>[] INSTANCE_INVOKERS = {
+            null, I1.class, I2.class, I3.class, I4.class, I5.class,
+            I6.class, I7.class, I8.class, I9.class, I10.class
+    };
+
+    private static final Class<?>[] INSTANCE_VOID_INVOKERS = {
+            null, IV1.class, IV2.class, IV3.class, IV4.class, IV5.class,
+            IV6.class, IV7.class, IV8.class, IV9.class, IV10.class
+    };
+
+    private static final Logger LOGGER = Logger.getLogger(LambdaMetafactoryCallerFactory.class.getName());
+
+    /**
+     * {@code MethodHandles.privateLookupIn}, which is only available in Java 9+
+     */
+    private static final @Nullable Method PRIVATE_LOOKUP_IN = findPrivateLookupIn();
+
+    @Override
+    public @NotNull MethodCaller createFor(@NotNull Method method) throws Throwable {
+        MethodCaller caller = spin(method, false, null);
+        if (caller != null)
+            return caller;
+        return MethodHandlesCallerFactory.INSTANCE.createFor(method);
+    }
+
+    @Override
+    public @NotNull MethodCaller createForReceiver(@NotNull Method method, @Nullable Object receiver) throws Throwable {
+        MethodHandlesCallerFactory.checkReceiverMethod(method);
+        MethodCaller caller = spin(method, true, receiver);
+        if (caller != null)
+            return caller;
+        return MethodHandlesCallerFactory.INSTANCE.createForReceiver(method, receiver);
+    }
+
+    /**
+     * Spins a caller for the given method.
+     *
+     * @param method         The method
+     * @param receiverFirst  Whether the first parameter of the static method is
+     *                       a receiver, which takes the place of the instance
+     * @param receiver       The receiver to capture in the spun class, or null
+     *                       to receive the instance of each call
+     * @return The caller, or null if the metafactory cannot be applied
+     */
+    private static @Nullable MethodCaller spin(@NotNull Method method, boolean receiverFirst, @Nullable Object receiver) {
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        boolean isVoid = method.getReturnType() == void.class;
+        boolean takesInstance = !isStatic || receiverFirst && receiver == null;
+        int captured = receiver == null ? 0 : 1;
+        int arity = method.getParameterCount() + (isStatic ? 0 : 1) - captured;
+        if (arity > MAX_ARITY)
+            return null;
+        Class<?> invoker = takesInstance
+                ? (isVoid ? INSTANCE_VOID_INVOKERS : INSTANCE_INVOKERS)[arity]
+                : (isVoid ? STATIC_VOID_INVOKERS : STATIC_INVOKERS)[arity];
+        CallSite site;
+        try {
+            Lookup lookup = lookupIn(method.getDeclaringClass());
+            MethodHandle target = lookup.unreflect(method);
+            MethodType samType = isVoid
+                    ? genericMethodType(arity).changeReturnType(void.class)
+                    : genericMethodType(arity);
+
+            // primitives are boxed, so they can be unboxed from the erased parameters
+            MethodType instantiatedType = target.type().dropParameterTypes(0, captured).wrap();
+            if (isVoid)
+                instantiatedType = instantiatedType.changeReturnType(void.class);
+
+            // a bound receiver is captured by the spun class, like a lambda's
+            MethodType invokedType = MethodType.methodType(invoker, target.type().parameterList().subList(0, captured));
+
+            // the spun class resolves all of these through the lookup class
+            ClassLoader host = lookup.lookupClass().getClassLoader();
+            if (!isVisible(invoker, host) || !isVisible(target.type().wrap(), host))
+                return null;
+
+            site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "invoke",
+                    invokedType,
+                    samType,
+                    target,
+                    instantiatedType
+            );
+        } catch (IllegalAccessException | LambdaConversionException e) {
+            // inaccessible member, a module that is not open to this library,
+            // nest mismatch, etc.
+            LOGGER.log(Level.FINE, e, () -> "Cannot spin a caller for " + method + ", falling back to method handles");
+            return null;
+        }
+        try {
+            return (MethodCaller) (receiver == null ? site.getTarget().invoke() : site.getTarget().invoke(receiver));
+        } catch (Throwable e) {
+            throw sneakyThrow(e);
+        }
+    }
+
+    private static @NotNull Lookup lookupIn(@NotNull Class<?> type) throws IllegalAccessException {
+        if (PRIVATE_LOOKUP_IN == null)
+            return MethodHandles.lookup();
+        try {
+            return (Lookup) PRIVATE_LOOKUP_IN.invoke(null, type, MethodHandles.lookup());
+        } catch (InvocationTargetException e) {
+            throw sneakyThrow(e.getCause());
+        }
+    }
+
+    private static @Nullable Method findPrivateLookupIn() {
+        try {
+            return MethodHandles.class.getMethod("privateLookupIn", Class.class, Lookup.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static boolean isVisible(@NotNull MethodType type, @Nullable ClassLoader loader) {
+        if (!isVisible(type.returnType(), loader))
+            return false;
+        for (Class<?> parameterType : type.parameterArray()) {
+            if (!isVisible(parameterType, loader))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isVisible(@NotNull Class<?> type, @Nullable ClassLoader loader) {
+        while (type.isArray())
+            type = type.getComponentType();
+        if (type.isPrimitive())
+            return true;
+        try {
+            return Class.forName(type.getName(), false, loader) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    // Functional interfaces implemented by the spun classes. Each one spreads
+    // the arguments of MethodCaller.call into its single abstract method, so
+    // that the spun class is the caller itself, and the call to the target is
+    // made on a known class. The S interfaces pass the arguments, and the I
+    // interfaces pass the instance before them. These have to be public, as
+    // the spun classes are defined in the package of the target method, and
+    // cannot implement them otherwise. They are not part of the API.
+    //
+    // The default call method is shared by all the classes that implement an
+    // interface, but it is only a spread of the arguments into invoke, which
+    // is inlined into it along with the target whenever the call site sees a
+    // single caller, the same as for a generated class.
+
+    @ApiStatus.Internal
+    public interface S0 extends MethodCaller {
+        Object invoke();
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke();
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface S1 extends MethodCaller {
+        Object invoke(Object a0);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(arguments[0]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface S2 extends MethodCaller {
+        Object invoke(Object a0, Object a1);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(arguments[0], arguments[1]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface S3 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(arguments[0], arguments[1], arguments[2]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface S4 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2, Object a3);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(arguments[0], arguments[1], arguments[2], arguments[3]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface S5 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2, Object a3, Object a4);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(arguments[0], arguments[1], arguments[2], arguments[3], arguments[4]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface S6 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface S7 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5], arguments[6]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface S8 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6, Object a7);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5], arguments[6], arguments[7]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface S9 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6, Object a7, Object a8);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5], arguments[6], arguments[7], arguments[8]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface S10 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6, Object a7, Object a8, Object a9);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5], arguments[6], arguments[7], arguments[8], arguments[9]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface SV0 extends MethodCaller {
+        void invoke();
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke();
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface SV1 extends MethodCaller {
+        void invoke(Object a0);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(arguments[0]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface SV2 extends MethodCaller {
+        void invoke(Object a0, Object a1);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(arguments[0], arguments[1]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface SV3 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(arguments[0], arguments[1], arguments[2]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface SV4 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2, Object a3);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(arguments[0], arguments[1], arguments[2], arguments[3]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface SV5 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2, Object a3, Object a4);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(arguments[0], arguments[1], arguments[2], arguments[3], arguments[4]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface SV6 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface SV7 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5], arguments[6]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface SV8 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6, Object a7);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5], arguments[6], arguments[7]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface SV9 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6, Object a7, Object a8);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5], arguments[6], arguments[7], arguments[8]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface SV10 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6, Object a7, Object a8, Object a9);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5], arguments[6], arguments[7], arguments[8], arguments[9]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface I1 extends MethodCaller {
+        Object invoke(Object a0);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(instance);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface I2 extends MethodCaller {
+        Object invoke(Object a0, Object a1);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(instance, arguments[0]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface I3 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(instance, arguments[0], arguments[1]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface I4 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2, Object a3);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(instance, arguments[0], arguments[1], arguments[2]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface I5 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2, Object a3, Object a4);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(instance, arguments[0], arguments[1], arguments[2], arguments[3]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface I6 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(instance, arguments[0], arguments[1], arguments[2], arguments[3], arguments[4]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface I7 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(instance, arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface I8 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6, Object a7);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(instance, arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5], arguments[6]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface I9 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6, Object a7, Object a8);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(instance, arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5], arguments[6], arguments[7]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface I10 extends MethodCaller {
+        Object invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6, Object a7, Object a8, Object a9);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            return invoke(instance, arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5], arguments[6], arguments[7], arguments[8]);
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface IV1 extends MethodCaller {
+        void invoke(Object a0);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(instance);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface IV2 extends MethodCaller {
+        void invoke(Object a0, Object a1);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(instance, arguments[0]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface IV3 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(instance, arguments[0], arguments[1]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface IV4 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2, Object a3);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(instance, arguments[0], arguments[1], arguments[2]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface IV5 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2, Object a3, Object a4);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(instance, arguments[0], arguments[1], arguments[2], arguments[3]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface IV6 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(instance, arguments[0], arguments[1], arguments[2], arguments[3], arguments[4]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface IV7 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(instance, arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface IV8 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6, Object a7);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(instance, arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5], arguments[6]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface IV9 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6, Object a7, Object a8);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(instance, arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5], arguments[6], arguments[7]);
+            return null;
+        }
+    }
+
+    @ApiStatus.Internal
+    public interface IV10 extends MethodCaller {
+        void invoke(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6, Object a7, Object a8, Object a9);
+
+        @Override
+        default Object call(@Nullable Object instance, Object... arguments) {
+            invoke(instance, arguments[0], arguments[1], arguments[2], arguments[3], arguments[4], arguments[5], arguments[6], arguments[7], arguments[8]);
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LambdaMetafactoryCallerFactory";
+    }
+}
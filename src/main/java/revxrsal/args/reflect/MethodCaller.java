@@ -27,6 +27,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import revxrsal.args.util.Preconditions;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 
 import static revxrsal.args.util.Preconditions.sneakyThrow;
@@ -79,11 +80,71 @@ public interface MethodCaller {
      * @return The method caller
      */
     static MethodCaller wrap(@NotNull Method method) {
+        return wrap(method, MethodCallerFactory.methodHandles());
+    }
+
+    /**
+     * A quick function to wrap the given method using the given factory.
+     * <p>
+     * If the factory is the default {@link MethodCallerFactory#methodHandles()}
+     * and an invoker was generated for the method ahead of time by
+     * {@link InvokerGenerator}, that invoker is used instead. Any other factory
+     * is always used as requested.
+     *
+     * @param method  Method to wrap into a {@link MethodCaller}
+     * @param factory The factory to create the caller with
+     * @return The method caller
+     */
+    static MethodCaller wrap(@NotNull Method method, @NotNull MethodCallerFactory factory) {
         Preconditions.checkNotNull(method, "method");
+        Preconditions.checkNotNull(factory, "factory");
+        try {
+            return PrecompiledCallerFactory.ifDefault(factory).createFor(method);
+        } catch (Throwable e) {
+            throw sneakyThrow(e);
+        }
+    }
+
+    /**
+     * A quick function to wrap the given static method, whose first parameter
+     * is a receiver, using the given factory. If {@code receiver} is not null,
+     * it is bound to the caller, otherwise the instance of each call is passed
+     * as the receiver.
+     * <p>
+     * As with {@link #wrap(Method, MethodCallerFactory)}, the invokers generated
+     * ahead of time are only used in place of the default factory.
+     *
+     * @param method   Method to wrap into a {@link MethodCaller}
+     * @param receiver The receiver to bind, or null
+     * @param factory  The factory to create the caller with
+     * @return The method caller, which takes the arguments after the receiver
+     * @see MethodCallerFactory#createForReceiver(Method, Object)
+     */
+    static MethodCaller wrapReceiver(@NotNull Method method, @Nullable Object receiver, @NotNull MethodCallerFactory factory) {
+        Preconditions.checkNotNull(method, "method");
+        Preconditions.checkNotNull(factory, "factory");
+        try {
+            return PrecompiledCallerFactory.ifDefault(factory).createForReceiver(method, receiver);
+        } catch (Throwable e) {
+            throw sneakyThrow(e);
+        }
+    }
+
+    /**
+     * A quick function to wrap the given constructor using the given factory.
+     * The returned caller ignores its instance, and returns the new object.
+     *
+     * @param constructor Constructor to wrap into a {@link MethodCaller}
+     * @param factory     The factory to create the caller with
+     * @return The constructor caller
+     */
+    static MethodCaller wrap(@NotNull Constructor<?> constructor, @NotNull MethodCallerFactory factory) {
+        Preconditions.checkNotNull(constructor, "constructor");
+        Preconditions.checkNotNull(factory, "factory");
         try {
-            return MethodCallerFactory.methodHandles().createFor(method);
+            return factory.createFor(constructor);
         } catch (Throwable e) {
             throw sneakyThrow(e);
         }
     }
-}
\ No newline at end of file
+}
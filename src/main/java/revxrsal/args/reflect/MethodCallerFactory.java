@@ -24,9 +24,13 @@
 package revxrsal.args.reflect;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 
+import static revxrsal.args.util.CollectionUtils.insertAtBeginning;
+
 /**
  * Factory for creating {@link MethodCaller}s for methods.
  */
@@ -41,6 +45,48 @@ public interface MethodCallerFactory {
      */
     @NotNull MethodCaller createFor(@NotNull Method method) throws Throwable;
 
+    /**
+     * Creates a new {@link MethodCaller} for the specified constructor. The
+     * created caller ignores its instance, and returns the new object.
+     * <p>
+     * By default, this uses the method handles API.
+     *
+     * @param constructor Constructor to create for
+     * @return The reflective constructor caller
+     * @throws Throwable Any exceptions during creation
+     */
+    default @NotNull MethodCaller createFor(@NotNull Constructor<?> constructor) throws Throwable {
+        return MethodHandlesCallerFactory.INSTANCE.createFor(constructor);
+    }
+
+    /**
+     * Creates a new {@link MethodCaller} for the specified static method, whose
+     * first parameter is a receiver. This is the case for the synthetic
+     * {@code $default} methods of member functions, which take the instance
+     * (or the {@code object} or companion) as their first parameter.
+     * <p>
+     * The created caller takes the remaining parameters as its arguments. If
+     * {@code receiver} is not null, it is bound to the caller once, and the
+     * instance of each call is ignored. Otherwise, the instance of each call
+     * is passed as the receiver.
+     * <p>
+     * By default, this copies the arguments after the receiver into a new
+     * array on every call. Implementations should pass the receiver directly
+     * instead.
+     *
+     * @param method   Method to create for
+     * @param receiver The receiver to bind, or null to receive the instance
+     *                 of each call
+     * @return The reflective method caller
+     * @throws Throwable Any exceptions during creation
+     */
+    default @NotNull MethodCaller createForReceiver(@NotNull Method method, @Nullable Object receiver) throws Throwable {
+        MethodCaller caller = createFor(method);
+        if (receiver != null)
+            return (instance, arguments) -> caller.call(null, insertAtBeginning(arguments, receiver));
+        return (instance, arguments) -> caller.call(null, insertAtBeginning(arguments, instance));
+    }
+
     /**
      * Returns the default {@link MethodCallerFactory}, which uses
      * the method handles API to create method callers.
@@ -51,4 +97,45 @@ public interface MethodCallerFactory {
         return MethodHandlesCallerFactory.INSTANCE;
     }
 
+    /**
+     * Returns a {@link MethodCallerFactory} that uses {@link java.lang.invoke.LambdaMetafactory}
+     * to generate a class for each method, which calls the method directly.
+     * <p>
+     * If the metafactory cannot be applied to a method (for example, because it is not
+     * accessible), this will fall back to {@link #methodHandles()}.
+     *
+     * @return The lambda metafactory method caller factory.
+     */
+    static MethodCallerFactory lambdaMetafactory() {
+        return LambdaMetafactoryCallerFactory.INSTANCE;
+    }
+
+    /**
+     * Returns a {@link MethodCallerFactory} that generates a class for each method,
+     * which calls the method with a direct invocation instruction and unboxes
+     * primitive arguments inline.
+     * <p>
+     * This only applies to public methods of public classes. For other methods,
+     * this will fall back to {@link #methodHandles()}.
+     *
+     * @return The bytecode method caller factory.
+     */
+    static MethodCallerFactory bytecode() {
+        return BytecodeCallerFactory.INSTANCE;
+    }
+
+    /**
+     * Returns a {@link MethodCallerFactory} that uses the invokers generated
+     * ahead of time by {@link InvokerGenerator}.
+     * <p>
+     * For methods that have no generated invoker, this will fall back to
+     * {@link #methodHandles()}. This is also what the default factory does
+     * when it is given to {@link MethodCaller#wrap(Method, MethodCallerFactory)}.
+     *
+     * @return The precompiled method caller factory.
+     */
+    static MethodCallerFactory precompiled() {
+        return PrecompiledCallerFactory.INSTANCE;
+    }
+
 }
\ No newline at end of file
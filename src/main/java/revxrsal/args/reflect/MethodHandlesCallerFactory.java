@@ -28,17 +28,25 @@ import org.jetbrains.annotations.Nullable;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
-import java.util.ArrayList;
-import java.util.List;
 
-import static java.util.Collections.addAll;
+import static java.lang.invoke.MethodType.genericMethodType;
 import static revxrsal.args.util.Preconditions.sneakyThrow;
 
 /**
  * A {@link MethodCallerFactory} that uses the method handles API to generate
- * method callers
+ * method callers.
+ * <p>
+ * Each handle is adapted once to an erased signature that spreads an
+ * {@code Object[]} of the exact arity, with the instance (if any) as the
+ * leading argument, so that calls can use {@link MethodHandle#invokeExact(Object...)}
+ * instead of the much slower {@link MethodHandle#invokeWithArguments(Object...)}.
+ * <p>
+ * Receivers of static methods are either bound to the handle with
+ * {@link MethodHandle#bindTo(Object)}, or passed as the leading argument in
+ * place of the instance, so that the arguments are never copied.
  */
 final class MethodHandlesCallerFactory implements MethodCallerFactory {
 
@@ -47,20 +55,89 @@ final class MethodHandlesCallerFactory implements MethodCallerFactory {
     @Override
     public @NotNull MethodCaller createFor(@NotNull Method method) throws Throwable {
         if (!method.isAccessible()) method.setAccessible(true);
-        MethodHandle handle = MethodHandles.lookup().unreflect(method);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method).asFixedArity();
         String methodString = method.toString();
-        boolean isStatic = Modifier.isStatic(method.getModifiers());
+        int parameterCount = method.getParameterCount();
+        if (Modifier.isStatic(method.getModifiers())) {
+            // (Object[])Object
+            MethodHandle spreader = handle
+                    .asType(genericMethodType(parameterCount))
+                    .asSpreader(Object[].class, parameterCount);
+            return new MethodCaller() {
+                @Override
+                public Object call(@Nullable Object instance, Object... arguments) {
+                    try {
+                        return (Object) spreader.invokeExact(arguments);
+                    } catch (Throwable e) {
+                        throw sneakyThrow(e);
+                    }
+                }
+
+                @Override
+                public String toString() {
+                    return "MethodHandlesCaller(" + methodString + ")";
+                }
+            };
+        }
+        // (Object, Object[])Object
+        MethodHandle spreader = handle
+                .asType(genericMethodType(parameterCount + 1))
+                .asSpreader(Object[].class, parameterCount);
         return new MethodCaller() {
             @Override
             public Object call(@Nullable Object instance, Object... arguments) {
                 try {
-                    if (!isStatic) {
-                        List<Object> args = new ArrayList<>();
-                        args.add(instance);
-                        addAll(args, arguments);
-                        return handle.invokeWithArguments(args);
+                    return (Object) spreader.invokeExact(instance, arguments);
+                } catch (Throwable e) {
+                    throw sneakyThrow(e);
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "MethodHandlesCaller(" + methodString + ")";
+            }
+        };
+    }
+
+    @Override
+    public @NotNull MethodCaller createForReceiver(@NotNull Method method, @Nullable Object receiver) throws Throwable {
+        checkReceiverMethod(method);
+        if (!method.isAccessible()) method.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method).asFixedArity();
+        String methodString = method.toString();
+        int argumentCount = method.getParameterCount() - 1;
+        if (receiver != null) {
+            // (Object[])Object
+            MethodHandle spreader = handle
+                    .bindTo(receiver)
+                    .asType(genericMethodType(argumentCount))
+                    .asSpreader(Object[].class, argumentCount);
+            return new MethodCaller() {
+                @Override
+                public Object call(@Nullable Object instance, Object... arguments) {
+                    try {
+                        return (Object) spreader.invokeExact(arguments);
+                    } catch (Throwable e) {
+                        throw sneakyThrow(e);
                     }
-                    return handle.invokeWithArguments(arguments);
+                }
+
+                @Override
+                public String toString() {
+                    return "MethodHandlesCaller(" + methodString + ", bound)";
+                }
+            };
+        }
+        // (Object, Object[])Object
+        MethodHandle spreader = handle
+                .asType(genericMethodType(argumentCount + 1))
+                .asSpreader(Object[].class, argumentCount);
+        return new MethodCaller() {
+            @Override
+            public Object call(@Nullable Object instance, Object... arguments) {
+                try {
+                    return (Object) spreader.invokeExact(instance, arguments);
                 } catch (Throwable e) {
                     throw sneakyThrow(e);
                 }
@@ -73,8 +150,48 @@ final class MethodHandlesCallerFactory implements MethodCallerFactory {
         };
     }
 
+    /**
+     * Checks that the method is static, and that its first parameter can
+     * hold a receiver
+     *
+     * @param method The method
+     */
+    static void checkReceiverMethod(@NotNull Method method) {
+        if (!Modifier.isStatic(method.getModifiers()))
+            throw new IllegalArgumentException("Method " + method + " is not static");
+        if (method.getParameterCount() == 0 || method.getParameterTypes()[0].isPrimitive())
+            throw new IllegalArgumentException("Method " + method + " does not take a receiver");
+    }
+
+    @Override
+    public @NotNull MethodCaller createFor(@NotNull Constructor<?> constructor) throws Throwable {
+        if (!constructor.isAccessible()) constructor.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflectConstructor(constructor).asFixedArity();
+        String constructorString = constructor.toString();
+        int parameterCount = constructor.getParameterCount();
+        // (Object[])Object
+        MethodHandle spreader = handle
+                .asType(genericMethodType(parameterCount))
+                .asSpreader(Object[].class, parameterCount);
+        return new MethodCaller() {
+            @Override
+            public Object call(@Nullable Object instance, Object... arguments) {
+                try {
+                    return (Object) spreader.invokeExact(arguments);
+                } catch (Throwable e) {
+                    throw sneakyThrow(e);
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "MethodHandlesCaller(" + constructorString + ")";
+            }
+        };
+    }
+
     @Override
     public String toString() {
         return "MethodHandlesCallerFactory";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.reflect;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/**
+ * A {@link MethodCallerFactory} that uses the invokers generated ahead of time
+ * by {@link InvokerGenerator}, and falls back to the method handles API for
+ * methods that have none.
+ */
+final class PrecompiledCallerFactory implements MethodCallerFactory {
+
+    public static final PrecompiledCallerFactory INSTANCE = new PrecompiledCallerFactory();
+
+    /**
+     * Substitutes the default factory with this one, which falls back to it
+     * for methods that have no generated invoker. Other factories are
+     * returned as is.
+     *
+     * @param factory The requested factory
+     * @return The factory to use
+     */
+    static @NotNull MethodCallerFactory ifDefault(@NotNull MethodCallerFactory factory) {
+        return factory == MethodHandlesCallerFactory.INSTANCE ? INSTANCE : factory;
+    }
+
+    @Override
+    public @NotNull MethodCaller createFor(@NotNull Method method) throws Throwable {
+        MethodCaller precompiled = PrecompiledInvokers.find(method);
+        if (precompiled != null)
+            return precompiled;
+        return MethodHandlesCallerFactory.INSTANCE.createFor(method);
+    }
+
+    @Override
+    public @NotNull MethodCaller createForReceiver(@NotNull Method method, @Nullable Object receiver) throws Throwable {
+        MethodCaller precompiled = receiver == null
+                ? PrecompiledInvokers.findForReceiver(method)
+                : PrecompiledInvokers.findBound(method, receiver);
+        if (precompiled != null)
+            return precompiled;
+        return MethodHandlesCallerFactory.INSTANCE.createForReceiver(method, receiver);
+    }
+
+    @Override
+    public @NotNull MethodCaller createFor(@NotNull Constructor<?> constructor) throws Throwable {
+        return MethodHandlesCallerFactory.INSTANCE.createFor(constructor);
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * This file is part of kotlin-default-args-util, licensed under the MIT License.
+ *
+ *  Copyright (c) Revxrsal <reflxction.github@gmail.com>
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in all
+ *  copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *  SOFTWARE.
+ */
+package revxrsal.args.reflect;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Looks up the invokers that were generated ahead of time by
+ * {@link InvokerGenerator}.
+ * <p>
+ * Every class that has precompiled invokers comes with a registry resource,
+ * which maps the signatures of its methods to the names of their invoker
+ * classes. Registries are read at most once per class.
+ */
+final class PrecompiledInvokers {
+
+    /**
+     * The directory of the registry resources
+     */
+    static final String REGISTRY_DIRECTORY = "META-INF/kotlin-default-args/invokers/";
+
+    /**
+     * The suffix of the generated invoker classes, followed by their index
+     */
+    static final String INVOKER_SUFFIX = "$$Invoker$";
+
+    /**
+     * The suffix of the keys of invokers whose receiver is passed as the
+     * instance of each call
+     */
+    static final String RECEIVER_SUFFIX = "#receiver";
+
+    /**
+     * The suffix of the keys of invokers whose receiver is bound once,
+     * when they are created
+     */
+    static final String BOUND_SUFFIX = "#bound";
+
+    /**
+     * The memoized registries of classes
+     */
+    private static final ClassValue<Map<String, String>> REGISTRIES = new ClassValue<Map<String, String>>() {
+        @Override
+        protected Map<String, String> computeValue(Class<?> type) {
+            return readRegistry(type);
+        }
+    };
+
+    private PrecompiledInvokers() {
+    }
+
+    /**
+     * Returns the precompiled invoker of the given method, or {@code null}
+     * if it has none.
+     *
+     * @param method The method
+     * @return The invoker, or null
+     */
+    static @Nullable MethodCaller find(@NotNull Method method) {
+        return find(method.getDeclaringClass(), key(method));
+    }
+
+    /**
+     * Returns the precompiled invoker of the given static method, which
+     * takes its first parameter as the instance of each call, or {@code null}
+     * if it has none.
+     *
+     * @param method The method
+     * @return The invoker, or null
+     * @see MethodCallerFactory#createForReceiver(Method, Object)
+     */
+    static @Nullable MethodCaller findForReceiver(@NotNull Method method) {
+        return find(method.getDeclaringClass(), key(method) + RECEIVER_SUFFIX);
+    }
+
+    /**
+     * Returns the precompiled invoker of the given static method, bound to
+     * the given receiver, or {@code null} if it has none. Bound invokers are
+     * only generated for the methods of objects and companion objects.
+     *
+     * @param method   The method
+     * @param receiver The receiver to bind
+     * @return The invoker, or null
+     * @see MethodCallerFactory#createForReceiver(Method, Object)
+     */
+    static @Nullable MethodCaller findBound(@NotNull Method method, @NotNull Object receiver) {
+        Class<?> invoker = findClass(method.getDeclaringClass(), key(method) + BOUND_SUFFIX);
+        if (invoker == null)
+            return null;
+        try {
+            return (MethodCaller) invoker.getConstructor(method.getParameterTypes()[0]).newInstance(receiver);
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static @Nullable MethodCaller find(@NotNull Class<?> type, @NotNull String key) {
+        Class<?> invoker = findClass(type, key);
+        if (invoker == null)
+            return null;
+        try {
+            return (MethodCaller) invoker.getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | ClassCastException e) {
+            // the registry is stale, or was generated against another version
+            return null;
+        }
+    }
+
+    private static @Nullable Class<?> findClass(@NotNull Class<?> type, @NotNull String key) {
+        Map<String, String> registry = REGISTRIES.get(type);
+        if (registry.isEmpty())
+            return null;
+        String invokerName = registry.get(key);
+        if (invokerName == null)
+            return null;
+        try {
+            return Class.forName(invokerName, true, type.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            // the invoker was not packaged along with the registry
+            return null;
+        }
+    }
+
+    /**
+     * Returns the key of the given method in registries
+     *
+     * @param method The method
+     * @return The registry key
+     */
+    static @NotNull String key(@NotNull Method method) {
+        return method.getName() + BytecodeCallerFactory.descriptor(method);
+    }
+
+    /**
+     * Returns the path of the registry resource of the given class
+     *
+     * @param className The binary name of the class
+     * @return The resource path
+     */
+    static @NotNull String registryPath(@NotNull String className) {
+        return REGISTRY_DIRECTORY + className;
+    }
+
+    private static @NotNull Map<String, String> readRegistry(@NotNull Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+        if (loader == null)
+            return Collections.emptyMap();
+        InputStream stream = loader.getResourceAsStream(registryPath(type.getName()));
+        if (stream == null)
+            return Collections.emptyMap();
+        Map<String, String> registry = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf(' ');
+                if (separator > 0)
+                    registry.put(line.substring(0, separator), line.substring(separator + 1).trim());
+            }
+        } catch (IOException e) {
+            return Collections.emptyMap();
+        }
+        return registry;
+    }
+}
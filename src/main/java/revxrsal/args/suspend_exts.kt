@@ -23,20 +23,20 @@
  */
 package revxrsal.args
 
-import revxrsal.args.util.KotlinConstants.continuation
 import java.lang.reflect.Parameter
+import java.util.function.Function
 import kotlin.coroutines.intrinsics.suspendCoroutineUninterceptedOrReturn
 
 /**
  * Calls a [KotlinFunction] in the current suspend context.
  *
- * If the callable is not a suspend function, it behaves as [KotlinFunction.callByNames].
+ * If the callable is not a suspend function, it behaves as [KotlinFunction.call].
  * Otherwise, calls the suspend function with current continuation.
  */
 suspend fun <T> KotlinFunction.callSuspend(
     instance: Any?,
     arguments: List<Any?>,
-    isOptional: (Parameter) -> Boolean
+    isOptional: Function<Parameter, Boolean>
 ): T {
     if (!isSuspend) {
         // Function is not suspend
@@ -44,22 +44,23 @@ suspend fun <T> KotlinFunction.callSuspend(
     }
 
     val result = suspendCoroutineUninterceptedOrReturn<T> { continuation ->
-        call(
-            instance,
-            arguments + continuation,
-            isOptional
-        )
+        callSuspend(instance, arguments, continuation, isOptional)
     }
-
-    // If suspend function returns Unit and tail-call, it might appear, that it returns not Unit,
-    // see comment above replaceReturnsUnitMarkersWithPushingUnitOnStack for explanation.
-    // In this case, return Unit manually.
-    @Suppress("UNCHECKED_CAST")
-    if (method.method.returnType == Unit::class.java)
-        return Unit as T
-    return result
+    return unitIfVoid(result)
 }
 
+/**
+ * Calls a [KotlinFunction] in the current suspend context.
+ *
+ * If the callable is not a suspend function, it behaves as [KotlinFunction.call].
+ * Otherwise, calls the suspend function with current continuation.
+ */
+suspend fun <T> KotlinFunction.callSuspend(
+    instance: Any?,
+    arguments: List<Any?>,
+    isOptional: (Parameter) -> Boolean
+): T = callSuspend(instance, arguments, Function(isOptional))
+
 /**
  * Calls a [KotlinFunction] in the current suspend context.
  *
@@ -69,29 +70,17 @@ suspend fun <T> KotlinFunction.callSuspend(
 suspend fun <T> KotlinFunction.callByNamesSuspend(
     instance: Any?,
     arguments: Map<String, Any?>,
-    isOptional: (Parameter) -> Boolean
+    isOptional: Function<Parameter, Boolean>
 ): T {
-    val lastParameter = parameters.last()
-    if (lastParameter.type != continuation()) {
+    if (!isSuspend) {
         // Function is not suspend
         return callByNames(instance, arguments, isOptional)
     }
 
     val result = suspendCoroutineUninterceptedOrReturn<T> { continuation ->
-        callByNames(
-            instance,
-            arguments + (lastParameter.name to continuation),
-            isOptional
-        )
+        callByNamesSuspend(instance, arguments, continuation, isOptional)
     }
-
-    // If suspend function returns Unit and tail-call, it might appear, that it returns not Unit,
-    // see comment above replaceReturnsUnitMarkersWithPushingUnitOnStack for explanation.
-    // In this case, return Unit manually.
-    @Suppress("UNCHECKED_CAST")
-    if (method.method.returnType == Unit::class.java)
-        return Unit as T
-    return result
+    return unitIfVoid(result)
 }
 
 /**
@@ -100,65 +89,89 @@ suspend fun <T> KotlinFunction.callByNamesSuspend(
  * If the callable is not a suspend function, it behaves as [KotlinFunction.callByNames].
  * Otherwise, calls the suspend function with current continuation.
  */
+suspend fun <T> KotlinFunction.callByNamesSuspend(
+    instance: Any?,
+    arguments: Map<String, Any?>,
+    isOptional: (Parameter) -> Boolean
+): T = callByNamesSuspend(instance, arguments, Function(isOptional))
+
+/**
+ * Calls a [KotlinFunction] in the current suspend context.
+ *
+ * If the callable is not a suspend function, it behaves as [KotlinFunction.callByIndices].
+ * Otherwise, calls the suspend function with current continuation.
+ */
 suspend fun <T> KotlinFunction.callByIndicesSuspend(
     instance: Any?,
     arguments: Map<Int, Any?>,
-    isOptional: (Parameter) -> Boolean
+    isOptional: Function<Parameter, Boolean>
 ): T {
-
     if (!isSuspend) {
         // Function is not suspend
         return callByIndices(instance, arguments, isOptional)
     }
 
     val result = suspendCoroutineUninterceptedOrReturn<T> { continuation ->
-        callByIndices(
-            instance,
-            arguments + (parameters.lastIndex to continuation),
-            isOptional
-        )
+        callByIndicesSuspend(instance, arguments, continuation, isOptional)
     }
-
-    // If suspend function returns Unit and tail-call, it might appear, that it returns not Unit,
-    // see comment above replaceReturnsUnitMarkersWithPushingUnitOnStack for explanation.
-    // In this case, return Unit manually.
-    @Suppress("UNCHECKED_CAST")
-    if (method.method.returnType == Unit::class.java)
-        return Unit as T
-    return result
+    return unitIfVoid(result)
 }
 
 /**
  * Calls a [KotlinFunction] in the current suspend context.
  *
- * If the callable is not a suspend function, it behaves as [KotlinFunction.callByNames].
+ * If the callable is not a suspend function, it behaves as [KotlinFunction.callByIndices].
+ * Otherwise, calls the suspend function with current continuation.
+ */
+suspend fun <T> KotlinFunction.callByIndicesSuspend(
+    instance: Any?,
+    arguments: Map<Int, Any?>,
+    isOptional: (Parameter) -> Boolean
+): T = callByIndicesSuspend(instance, arguments, Function(isOptional))
+
+/**
+ * Calls a [KotlinFunction] in the current suspend context.
+ *
+ * If the callable is not a suspend function, it behaves as [KotlinFunction.callByParameters].
  * Otherwise, calls the suspend function with current continuation.
  */
 suspend fun <T> KotlinFunction.callByParametersSuspend(
     instance: Any?,
     arguments: Map<Parameter, Any?>,
-    isOptional: (Parameter) -> Boolean
+    isOptional: Function<Parameter, Boolean>
 ): T {
-
-    val lastParameter = parameters.last()
-    if (lastParameter.type != continuation()) {
+    if (!isSuspend) {
         // Function is not suspend
         return callByParameters(instance, arguments, isOptional)
     }
 
     val result = suspendCoroutineUninterceptedOrReturn<T> { continuation ->
-        callByParameters(
-            instance,
-            arguments + (lastParameter to continuation),
-            isOptional
-        )
+        callByParametersSuspend(instance, arguments, continuation, isOptional)
     }
+    return unitIfVoid(result)
+}
 
-    // If suspend function returns Unit and tail-call, it might appear, that it returns not Unit,
-    // see comment above replaceReturnsUnitMarkersWithPushingUnitOnStack for explanation.
-    // In this case, return Unit manually.
-    @Suppress("UNCHECKED_CAST")
-    if (method.method.returnType == Unit::class.java)
+/**
+ * Calls a [KotlinFunction] in the current suspend context.
+ *
+ * If the callable is not a suspend function, it behaves as [KotlinFunction.callByParameters].
+ * Otherwise, calls the suspend function with current continuation.
+ */
+suspend fun <T> KotlinFunction.callByParametersSuspend(
+    instance: Any?,
+    arguments: Map<Parameter, Any?>,
+    isOptional: (Parameter) -> Boolean
+): T = callByParametersSuspend(instance, arguments, Function(isOptional))
+
+/**
+ * If suspend function returns Unit and tail-call, it might appear, that it returns not Unit,
+ * see comment above replaceReturnsUnitMarkersWithPushingUnitOnStack for explanation.
+ * In this case, return Unit manually. The JVM method of a suspend function always
+ * returns Object, so the Kotlin return type is taken from the metadata.
+ */
+@Suppress("UNCHECKED_CAST")
+private fun <T> KotlinFunction.unitIfVoid(result: T): T {
+    if (metadata?.returnsUnit() == true)
         return Unit as T
     return result
 }
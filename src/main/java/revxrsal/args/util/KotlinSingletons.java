@@ -24,19 +24,17 @@
 package revxrsal.args.util;
 
 import org.jetbrains.annotations.NotNull;
- import revxrsal.args.reflect.MethodCaller;
+import org.jetbrains.annotations.Nullable;
+import revxrsal.args.metadata.KotlinMetadata;
+import revxrsal.args.reflect.MethodCaller;
+import revxrsal.args.reflect.MethodCallerFactory;
 
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 import static java.lang.reflect.Modifier.isPublic;
-import static java.lang.reflect.Modifier.isStatic;
-import static revxrsal.args.util.CollectionUtils.getOrNull;
-import static revxrsal.args.util.KotlinConstants.isJvmStatic;
 import static revxrsal.args.util.KotlinConstants.isStaticFinal;
 
 /**
@@ -50,6 +48,21 @@ public final class KotlinSingletons {
      */
     private static final String COMPANION_NAME = "Companion";
 
+    /**
+     * The name of the field that holds the singleton of an {@code object}
+     */
+    private static final String INSTANCE_NAME = "INSTANCE";
+
+    /**
+     * The memoized companion objects of classes
+     */
+    private static final ClassValue<Optional<CompanionObject>> COMPANIONS = new ClassValue<Optional<CompanionObject>>() {
+        @Override
+        protected Optional<CompanionObject> computeValue(Class<?> type) {
+            return lookupCompanion(type);
+        }
+    };
+
     private KotlinSingletons() {
     }
 
@@ -62,20 +75,49 @@ public final class KotlinSingletons {
      * @return The bound method caller
      */
     public static MethodCaller getCallerForNonDefault(@NotNull Method method) {
-        Class<?>[] parameterTypes = method.getParameterTypes();
-        MethodCaller caller = MethodCaller.wrap(method);
-        boolean isStatic = isStatic(method.getModifiers()) || isJvmStatic(method);
-        if (isStatic)
-            return caller;
-
-        // an object or a companion object, bind it twice
-        if (getOrNull(parameterTypes, 0) == method.getDeclaringClass())
-            return (instance, arguments) -> {
-                Object[] boundArgs = CollectionUtils.insertAtBeginning(arguments, instance);
-                return caller.call(instance, boundArgs);
-            };
-
-        return caller;
+        return getCallerForNonDefault(method, MethodCallerFactory.methodHandles());
+    }
+
+    /**
+     * Generates a {@link MethodCaller} for the given method, assuming that
+     * it is not the synthetic default function generated by the
+     * Kotlin compiler.
+     *
+     * @param method  Method to generate for
+     * @param factory The factory to create the caller with
+     * @return The bound method caller
+     */
+    public static MethodCaller getCallerForNonDefault(@NotNull Method method, @NotNull MethodCallerFactory factory) {
+        // functions of objects and companion objects are instance methods,
+        // so the singleton is passed as the instance like any other receiver
+        return MethodCaller.wrap(method, factory);
+    }
+
+    /**
+     * Returns the singleton of the given class if it is a Kotlin {@code object}
+     * or a companion object, or {@code null} otherwise.
+     * <p>
+     * The class kind is taken from its {@code kotlin.Metadata}, so that
+     * regular classes that happen to expose a static {@code INSTANCE} of their
+     * own type, such as through a companion property or an enum constant, are
+     * not mistaken for singletons.
+     *
+     * @param type The class
+     * @return The singleton, or null
+     */
+    public static @Nullable Object singletonOf(@NotNull Class<?> type) {
+        KotlinMetadata metadata = KotlinMetadata.of(type);
+        if (metadata == null || !metadata.isObject())
+            return null;
+        for (Field field : type.getDeclaredFields()) {
+            if (field.getType() == type && isStaticFinal(field.getModifiers()) && field.getName().equals(INSTANCE_NAME))
+                return fetch(field);
+        }
+        Class<?> enclosingClass = type.getEnclosingClass();
+        if (enclosingClass == null)
+            return null;
+        CompanionObject companion = companionOf(enclosingClass);
+        return companion != null && companion.type() == type ? companion.instance() : null;
     }
 
     /**
@@ -85,35 +127,86 @@ public final class KotlinSingletons {
      * @param type Type to search for. This should <em>not</em> be
      *             the companion class.
      * @return The companion object
+     * @throws IllegalStateException if the class has no companion object
      */
     public static @NotNull Object findCompanion(Class<?> type) {
-        Map<String, Field> fields = Arrays
-                .stream(type.getDeclaredFields())
-                .filter(field -> isPublic(field.getModifiers()) && isStaticFinal(field.getModifiers()))
-                .collect(Collectors.toMap(Field::getName, f -> f));
+        CompanionObject companion = companionOf(type);
+        if (companion == null)
+            throw new IllegalStateException("Unable to find companion object.");
+        return companion.instance();
+    }
 
-        // try the Companion field
-        try {
-            Class<?> companion = Class.forName(type.getName() + "$" + COMPANION_NAME);
-            Field companionField = fields.get(companion.getSimpleName());
-            if (companionField != null)
-                return fetch(companionField);
-        } catch (ClassNotFoundException ignored) {
-        }
+    /**
+     * Returns the companion object of the given class, or {@code null} if it
+     * has none.
+     * <p>
+     * Results are memoized per class, including negative ones, so that the
+     * fields and enclosed classes are only walked once.
+     *
+     * @param type Type to search for. This should <em>not</em> be
+     *             the companion class.
+     * @return The companion object, or null
+     */
+    public static @Nullable CompanionObject companionOf(@NotNull Class<?> type) {
+        return COMPANIONS.get(type).orElse(null);
+    }
 
-        // Companion probably has another name. Look for a class
-        // that has a static final field in its parent and has a name
-        // that matches it
-        for (Class<?> declaredClass : type.getDeclaredClasses()) {
-            String name = declaredClass.getSimpleName();
-            Field companionField = fields.get(name);
-            if (companionField != null) {
-                Object singleton = fetch(companionField);
-                if (singleton != null)
-                    return singleton;
+    private static @NotNull Optional<CompanionObject> lookupCompanion(@NotNull Class<?> type) {
+        // the companion field has the same name as the companion class,
+        // which is usually 'Companion'
+        Field named = null;
+        for (Field field : type.getDeclaredFields()) {
+            if (!isPublic(field.getModifiers()) || !isStaticFinal(field.getModifiers()))
+                continue;
+            Class<?> fieldType = field.getType();
+            if (fieldType.getEnclosingClass() != type || !field.getName().equals(fieldType.getSimpleName()))
+                continue;
+            if (field.getName().equals(COMPANION_NAME)) {
+                named = field;
+                break;
             }
+            // Companion probably has another name
+            if (named == null)
+                named = field;
+        }
+        if (named == null)
+            return Optional.empty();
+        Object singleton = fetch(named);
+        if (singleton == null)
+            return Optional.empty();
+        return Optional.of(new CompanionObject(singleton, named.getType()));
+    }
+
+    /**
+     * A companion object, along with its class
+     */
+    public static final class CompanionObject {
+
+        private final Object instance;
+        private final Class<?> type;
+
+        private CompanionObject(@NotNull Object instance, @NotNull Class<?> type) {
+            this.instance = instance;
+            this.type = type;
+        }
+
+        /**
+         * Returns the companion object
+         *
+         * @return The companion object
+         */
+        public @NotNull Object instance() {
+            return instance;
+        }
+
+        /**
+         * Returns the class of the companion object
+         *
+         * @return The companion class
+         */
+        public @NotNull Class<?> type() {
+            return type;
         }
-        throw new IllegalStateException("Unable to find companion object.");
     }
 
     // Auxiliary reflection methods